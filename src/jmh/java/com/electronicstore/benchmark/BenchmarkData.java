@@ -0,0 +1,140 @@
+package com.electronicstore.benchmark;
+
+import com.electronicstore.model.inventory.Category;
+import com.electronicstore.model.inventory.Item;
+import com.electronicstore.model.inventory.Supplier;
+import com.electronicstore.model.persistence.BillJournal;
+import com.electronicstore.model.persistence.CategoryRepository;
+import com.electronicstore.model.persistence.ItemRepository;
+import com.electronicstore.model.persistence.SupplierRepository;
+import com.electronicstore.model.sales.Bill;
+import com.electronicstore.model.sales.SaleItem;
+import com.electronicstore.model.utils.FileHandler;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Deterministic store fixture for the benchmarks, written to the data
+ * directory of the forked JVM (see {@link FileHandler#DATA_DIRECTORY_PROPERTY}).
+ *
+ * Must run before any repository or the bill journal is touched, since those
+ * read the data directory once. A fixture of the same size left by an earlier
+ * fork is reused.
+ */
+final class BenchmarkData {
+    static final String DATA_DIRECTORY_ARG = "-D" + FileHandler.DATA_DIRECTORY_PROPERTY + "=target/jmh-data";
+
+    static final int CASHIERS = 25;
+    static final int DAYS = 365;
+    static final long SEED = 42L;
+
+    private static final String FIXTURE_FILE = "fixture.txt";
+    private static final int CATEGORIES = 20;
+    private static final int SUPPLIERS = 10;
+    private static final int CHUNK = 10_000;
+
+    private BenchmarkData() {
+    }
+
+    // First day of the generated sales history
+    static LocalDate firstDay() {
+        return LocalDate.of(2024, 1, 1);
+    }
+
+    static LocalDate lastDay() {
+        return firstDay().plusDays(DAYS - 1);
+    }
+
+    static String cashierId(int cashier) {
+        return "U" + cashier;
+    }
+
+    // Catalog of the given size and the given number of bills spread over a year
+    static void prepare(int catalogSize, int bills) throws IOException {
+        Path fixture = FileHandler.resolve(FIXTURE_FILE);
+        String key = "items=" + catalogSize + ",bills=" + bills + ",seed=" + SEED;
+        if (Files.exists(fixture) && Files.readString(fixture, StandardCharsets.UTF_8).equals(key)) {
+            return;
+        }
+        clearDataDirectory();
+
+        Random random = new Random(SEED);
+        List<Category> categories = new ArrayList<>();
+        for (int i = 0; i < CATEGORIES; i++) {
+            categories.add(new Category("C" + i, "Category " + i, 5 + random.nextInt(20), "Sector " + (i % 4)));
+        }
+        List<Supplier> suppliers = new ArrayList<>();
+        for (int i = 0; i < SUPPLIERS; i++) {
+            suppliers.add(new Supplier("S" + i, "Supplier " + i, "supplier" + i + "@example.com"));
+        }
+        List<Item> items = new ArrayList<>(catalogSize);
+        for (int i = 0; i < catalogSize; i++) {
+            double purchasePrice = 5 + random.nextInt(200_000) / 100.0;
+            double sellingPrice = Math.round(purchasePrice * (1.2 + random.nextDouble() * 0.5) * 100) / 100.0;
+            int stock = random.nextInt(10) == 0 ? random.nextInt(10) : 1_000_000;
+            items.add(new Item("I" + i, "Item " + i, categories.get(random.nextInt(CATEGORIES)),
+                    suppliers.get(random.nextInt(SUPPLIERS)), firstDay(), purchasePrice, sellingPrice, stock));
+        }
+
+        FileHandler.saveListToFile(new ArrayList<>(categories), CategoryRepository.CATEGORIES_FILE);
+        FileHandler.saveListToFile(new ArrayList<>(suppliers), SupplierRepository.SUPPLIERS_FILE);
+        FileHandler.saveListToFile(new ArrayList<>(items), ItemRepository.ITEMS_FILE);
+
+        // A private journal instance; BillJournal.getInstance() opens the same files later
+        BillJournal journal = new BillJournal(FileHandler.resolve(BillJournal.JOURNAL_DIRECTORY));
+        List<Bill> chunk = new ArrayList<>(CHUNK);
+        for (int i = 0; i < bills; i++) {
+            chunk.add(createBill(i, bills, items, random));
+            if (chunk.size() == CHUNK) {
+                journal.appendAll(chunk);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            journal.appendAll(chunk);
+        }
+
+        Files.writeString(fixture, key, StandardCharsets.UTF_8);
+    }
+
+    // Forces the next prepare() to write a fresh fixture, after a benchmark changed the data
+    static void discard() throws IOException {
+        Files.deleteIfExists(FileHandler.resolve(FIXTURE_FILE));
+    }
+
+    // Bills are issued in date order, evenly over the year
+    private static Bill createBill(int index, int bills, List<Item> items, Random random) {
+        LocalDate day = firstDay().plusDays((long) index * DAYS / Math.max(bills, 1));
+        Bill bill = new Bill("B" + index, cashierId(random.nextInt(CASHIERS)),
+                day.atTime(9 + random.nextInt(12), random.nextInt(60)), 0.0);
+        int lines = 1 + random.nextInt(5);
+        for (int line = 0; line < lines; line++) {
+            bill.addItem(new SaleItem(items.get(random.nextInt(items.size())), 1 + random.nextInt(3)));
+        }
+        return bill;
+    }
+
+    private static void clearDataDirectory() throws IOException {
+        Path directory = FileHandler.resolve("");
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                if (!path.equals(directory)) {
+                    Files.delete(path);
+                }
+            }
+        }
+        Files.createDirectories(FileHandler.resolve("bills"));
+    }
+}
@@ -0,0 +1,58 @@
+package com.electronicstore.benchmark;
+
+import com.electronicstore.controller.BillingController;
+import com.electronicstore.model.inventory.Item;
+import com.electronicstore.model.persistence.ItemRepository;
+import com.electronicstore.model.persistence.BillJournal;
+import com.electronicstore.model.users.Cashier;
+import com.electronicstore.model.utils.SessionState;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// One checkout per operation: a new bill with three lines, finalized; the history size should not matter
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", BenchmarkData.DATA_DIRECTORY_ARG})
+public class BillingBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int bills;
+
+    private BillingController billingController;
+    private List<Item> items;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        BenchmarkData.prepare(2_000, bills);
+        BillJournal.getInstance();
+        SessionState.getInstance().startSession(new Cashier(BenchmarkData.cashierId(0), "bench", "bench",
+                "Benchmark Cashier", "bench@example.com", "000", "Sector 0"));
+        billingController = new BillingController();
+        items = ItemRepository.getInstance().findAll().stream()
+                .filter(item -> item.getStockQuantity() > 100_000)
+                .toList();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        SessionState.getInstance().endSession();
+        // The bills finalized here would skew the other suites
+        BenchmarkData.discard();
+    }
+
+    @Benchmark
+    public boolean finalizeBill() {
+        billingController.createNewBill();
+        for (int line = 0; line < 3; line++) {
+            billingController.addItemToBill(items.get(next++ % items.size()), 1);
+        }
+        return billingController.finalizeBill();
+    }
+}
@@ -0,0 +1,44 @@
+package com.electronicstore.benchmark;
+
+import com.electronicstore.model.persistence.BillJournal;
+import com.electronicstore.model.sales.Bill;
+import com.electronicstore.model.utils.FileHandler;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Whole-list writes and reads of bills.dat, the format every list file uses
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", BenchmarkData.DATA_DIRECTORY_ARG})
+public class FileHandlerBenchmark {
+    private static final String LIST_FILE = "benchmark_bills.dat";
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int bills;
+
+    private ArrayList<Bill> billList;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        BenchmarkData.prepare(2_000, bills);
+        billList = new ArrayList<>(BillJournal.getInstance().readAll());
+        FileHandler.saveListToFile(billList, LIST_FILE);
+    }
+
+    @Benchmark
+    public void saveListToFile() throws IOException {
+        FileHandler.saveListToFile(billList, LIST_FILE);
+    }
+
+    @Benchmark
+    public List<Bill> readListFromFile() throws IOException, ClassNotFoundException {
+        return FileHandler.readListFromFile(LIST_FILE);
+    }
+}
@@ -0,0 +1,36 @@
+package com.electronicstore.benchmark;
+
+import com.electronicstore.controller.InventoryController;
+import com.electronicstore.model.inventory.Item;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Low-stock scan over catalogs of increasing size
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", BenchmarkData.DATA_DIRECTORY_ARG})
+public class InventoryBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int items;
+
+    private InventoryController inventoryController;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        BenchmarkData.prepare(items, 0);
+        inventoryController = new InventoryController();
+        inventoryController.getAllItems();
+    }
+
+    @Benchmark
+    public List<Item> checkLowStock() {
+        return inventoryController.checkLowStock();
+    }
+}
@@ -0,0 +1,104 @@
+package com.electronicstore.benchmark;
+
+import com.electronicstore.controller.ReportController;
+import com.electronicstore.model.persistence.BillJournal;
+import com.electronicstore.model.users.Administrator;
+import com.electronicstore.model.utils.ReportCache;
+import com.electronicstore.model.utils.SessionState;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Every report of ReportController over a month and over the whole year of history,
+// with the report cache off so that each call computes its report
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", BenchmarkData.DATA_DIRECTORY_ARG,
+        "-D" + ReportCache.CAPACITY_PROPERTY + "=0"})
+public class ReportBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int bills;
+
+    @Param({"month", "year"})
+    public String period;
+
+    private ReportController reportController;
+    private LocalDate startDate;
+    private LocalDate endDate;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        BenchmarkData.prepare(2_000, bills);
+        BillJournal.getInstance();
+        // Administrators may run every report
+        SessionState.getInstance().startSession(new Administrator("A1", "admin", "admin",
+                "Benchmark Admin", "admin@example.com", "000"));
+        reportController = new ReportController();
+        endDate = BenchmarkData.lastDay();
+        startDate = period.equals("month") ? endDate.withDayOfMonth(1) : BenchmarkData.firstDay();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        SessionState.getInstance().endSession();
+    }
+
+    @Benchmark
+    public Map<String, Double> dailySalesReport() {
+        return reportController.getDailySalesReport(endDate);
+    }
+
+    @Benchmark
+    public Map<LocalDate, Double> monthlySalesReport() {
+        return reportController.getMonthlySalesReport(endDate.getYear(), endDate.getMonthValue());
+    }
+
+    @Benchmark
+    public Map<String, Integer> itemsSoldReport() {
+        return reportController.getItemsSoldReport(startDate, endDate);
+    }
+
+    @Benchmark
+    public Map<String, Map<String, Double>> cashierPerformanceReport() {
+        return reportController.getCashierPerformanceReport(endDate);
+    }
+
+    @Benchmark
+    public Map<String, Double> financialSummary() {
+        return reportController.getFinancialSummary(startDate, endDate);
+    }
+
+    @Benchmark
+    public String salesReport() {
+        return reportController.generateReport("Sales Report", startDate, endDate);
+    }
+
+    @Benchmark
+    public String inventoryReport() {
+        return reportController.generateReport("Inventory Report", startDate, endDate);
+    }
+
+    @Benchmark
+    public String lowStockReport() {
+        return reportController.generateReport("Low Stock Report", startDate, endDate);
+    }
+
+    @Benchmark
+    public String profitReport() {
+        return reportController.generateReport("Profit Report", startDate, endDate);
+    }
+
+    @Benchmark
+    public Map<String, String> reportBundle() {
+        return reportController.generateReports(
+                List.of("Sales Report", "Inventory Report", "Profit Report"), startDate, endDate);
+    }
+}
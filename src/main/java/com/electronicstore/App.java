@@ -1,6 +1,7 @@
 package com.electronicstore;
 
 import com.electronicstore.model.users.User;
+import com.electronicstore.model.utils.Metrics;
 import com.electronicstore.model.utils.SessionState;
 import com.electronicstore.view.components.CustomMenuBar;
 import com.electronicstore.view.screens.*;
@@ -21,6 +22,7 @@ public class App extends Application {
         try {
             this.primaryStage = primaryStage;
             this.sessionState = SessionState.getInstance();
+            Metrics.startConfiguredDump();
 
             boolean testMode = Boolean.getBoolean("test.mode");
 
@@ -1,11 +1,20 @@
 package com.electronicstore.controller;
 
 import com.electronicstore.model.inventory.Item;
+import com.electronicstore.model.inventory.StockReservations;
+import com.electronicstore.model.persistence.BillJournal;
+import com.electronicstore.model.persistence.ItemRepository;
+import com.electronicstore.model.persistence.SalesRollupRepository;
+import com.electronicstore.model.persistence.StockMovementLog;
 import com.electronicstore.model.sales.Bill;
 import com.electronicstore.model.sales.SaleItem;
+import com.electronicstore.model.utils.CheckoutEvent;
 import com.electronicstore.model.utils.FileHandler;
+import com.electronicstore.model.utils.Metrics;
+import com.electronicstore.model.utils.ReportCache;
 import com.electronicstore.model.utils.SessionState;
 import java.io.IOException;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
@@ -15,46 +24,73 @@ import java.util.UUID;
 import java.util.stream.Collectors;
 
 public class BillingController {
-    private static final String BILLS_FILE = "bills.dat";
+    private static final Metrics METRICS = Metrics.getInstance();
+
     private final SessionState sessionState;
+    private final BillJournal billJournal;
+    private final StockReservations stockReservations;
     private Bill currentBill;
 
     public BillingController() {
-        this.sessionState = SessionState.getInstance();
+        this(SessionState.getInstance());
+    }
+
+    // Controller for one terminal's session
+    public BillingController(SessionState sessionState) {
+        this.sessionState = sessionState;
+        this.billJournal = BillJournal.getInstance();
+        this.stockReservations = StockReservations.getInstance();
     }
 
     public Bill createNewBill() {
-        if (!sessionState.isCashier()) {
-            throw new IllegalStateException("Only cashiers can create bills");
-        }
-        String billNumber = "B" + UUID.randomUUID().toString().substring(0, 8);
-        currentBill = new Bill(billNumber, sessionState.getCurrentUser().getId());
-        return currentBill;
+        return METRICS.time("BillingController.createNewBill", () -> {
+            if (!sessionState.isCashier()) {
+                throw new IllegalStateException("Only cashiers can create bills");
+            }
+            String billNumber = "B" + UUID.randomUUID().toString().substring(0, 8);
+            currentBill = new Bill(billNumber, sessionState.getCurrentUser().getId());
+            return currentBill;
+        });
     }
 
     public boolean addItemToBill(Item item, int quantity) {
-        if (currentBill == null) {
-            return false;
-        }
+        return METRICS.time("BillingController.addItemToBill", () -> {
+            if (currentBill == null) {
+                return false;
+            }
 
-        if (!item.checkAvailability(quantity)) {
-            return false;
-        }
+            // Held for this bill until it is finalized or the line is removed
+            if (!stockReservations.reserve(currentBill.getBillNumber(), item, quantity)) {
+                return false;
+            }
 
-        SaleItem saleItem = new SaleItem(item, quantity);
-        currentBill.addItem(saleItem);
-        item.updateStock(-quantity);
-        return true;
+            SaleItem saleItem = new SaleItem(item, quantity);
+            currentBill.addItem(saleItem);
+            return true;
+        });
     }
 
     public boolean removeItemFromBill(SaleItem saleItem) {
-        if (currentBill == null) {
-            return false;
-        }
+        return METRICS.time("BillingController.removeItemFromBill", () -> {
+            if (currentBill == null) {
+                return false;
+            }
 
-        currentBill.removeItem(saleItem);
-        saleItem.getItem().updateStock(saleItem.getQuantity());
-        return true;
+            currentBill.removeItem(saleItem);
+            stockReservations.release(currentBill.getBillNumber(), saleItem.getItem(), saleItem.getQuantity());
+            return true;
+        });
+    }
+
+    // Drops the open bill and returns its reserved stock
+    public void cancelBill() {
+        METRICS.run("BillingController.cancelBill", () -> {
+            if (currentBill == null) {
+                return;
+            }
+            stockReservations.releaseAll(currentBill.getBillNumber());
+            currentBill = null;
+        });
     }
 
     public double getBillTotal() {
@@ -62,78 +98,90 @@ public class BillingController {
     }
 
     public boolean finalizeBill() {
-        if (currentBill == null || currentBill.getItems().isEmpty()) {
-            return false;
-        }
-
-        try {
-            List<Bill> bills = loadBills();
-            bills.add(currentBill);
-            FileHandler.saveListToFile(bills, BILLS_FILE);
-
-            // ADDED: persist updated stock quantities to items.dat (only add)
-            persistUpdatedStock();
+        return METRICS.time("BillingController.finalizeBill", () -> {
+            if (currentBill == null || currentBill.getItems().isEmpty()) {
+                return false;
+            }
 
-            FileHandler.exportBill(currentBill);
+            CheckoutEvent event = CheckoutEvent.start(currentBill.getBillNumber(), currentBill.getCashierId(),
+                    currentBill.getItems().size(), currentBill.getTotalCents());
+            try {
+                // Append only the new bill instead of rewriting the whole history
+                billJournal.append(currentBill);
+            } catch (IOException e) {
+                // Nothing was recorded yet, so the bill stays open and can be finalized again
+                Metrics.markFailed();
+                e.printStackTrace();
+                event.finish(false);
+                return false;
+            }
 
+            // Journaled means sold: from here on the bill is final whatever fails next
             Bill finalizedBill = currentBill;
             currentBill = null;
 
+            // Keep the per-day report totals current
+            SalesRollupRepository.getInstance().record(finalizedBill);
+            // Rollups and columns now include the bill, so reports of its day are stale
+            ReportCache.getInstance().invalidate(
+                    finalizedBill.getDate() != null ? finalizedBill.getDate() : LocalDate.now());
+
+            try {
+                // The reserved stock is now sold; only the movements are written
+                recordStockMovements(finalizedBill);
+            } catch (IOException e) {
+                // The item repository writes the sold stock into items.dat instead of the log;
+                // the reservations must not go back on the shelf either way
+                stockReservations.commit(finalizedBill.getBillNumber());
+                e.printStackTrace();
+            }
+
+            try {
+                FileHandler.exportBill(finalizedBill);
+            } catch (IOException e) {
+                // The receipt file is a copy; the journal already holds the bill
+                e.printStackTrace();
+            }
+
+            event.finish(true);
             return true;
-        } catch (IOException e) {
-            e.printStackTrace();
-            return false;
-        }
+        });
     }
 
     public List<Bill> getDailyBills() {
-        try {
-            List<Bill> allBills = loadBills();
-            return allBills.stream()
-                    .filter(bill -> bill.getDate().equals(LocalDate.now()))
-                    .filter(bill -> bill.getCashierId().equals(
-                            sessionState.getCurrentUser().getId()))
-                    .toList();
-        } catch (IOException e) {
-            e.printStackTrace();
-            return new ArrayList<>();
-        }
-    }
-
-    private List<Bill> loadBills() throws IOException {
-        try {
-            return FileHandler.readListFromFile(BILLS_FILE);
-        } catch (IOException | ClassNotFoundException e) {
-            return new ArrayList<>();
-        }
+        return METRICS.time("BillingController.getDailyBills", () -> {
+            try {
+                // Only this month's segment is read
+                LocalDate today = LocalDate.now();
+                List<Bill> todaysBills = billJournal.readRange(today, today);
+                return todaysBills.stream()
+                        .filter(bill -> bill.getCashierId().equals(
+                                sessionState.getCurrentUser().getId()))
+                        .toList();
+            } catch (IOException e) {
+                Metrics.markFailed();
+                e.printStackTrace();
+                return new ArrayList<>();
+            }
+        });
     }
 
     public Bill getCurrentBill() {
         return currentBill;
     }
 
-    // ADDED: helper to save updated stock after selling items (only add)
-    private void persistUpdatedStock() {
-        try {
-            // Load items currently stored (items.dat)
-            List<Item> storedItems = FileHandler.readListFromFile("items.dat");
-
-            // Update only the items involved in this bill (by matching IDs)
-            for (SaleItem s : currentBill.getItems()) {
-                Item soldItem = s.getItem();
-
-                for (int i = 0; i < storedItems.size(); i++) {
-                    if (storedItems.get(i).getId().equals(soldItem.getId())) {
-                        storedItems.set(i, soldItem); // soldItem already has updated stock
-                        break;
-                    }
-                }
-            }
-
-            FileHandler.saveListToFile(storedItems, "items.dat");
-        } catch (Exception ignored) {
-            // Keep billing working even if saving items fails
+    // One movement per line instead of rewriting items.dat; compaction folds them in later
+    private void recordStockMovements(Bill bill) throws IOException {
+        String billNumber = bill.getBillNumber();
+        Instant now = Instant.now();
+        List<StockMovementLog.Movement> movements = new ArrayList<>();
+        for (SaleItem s : bill.getItems()) {
+            movements.add(new StockMovementLog.Movement(s.getItem().getId(), -s.getQuantity(), billNumber, now));
         }
+        ItemRepository.getInstance().recordStockChange(movements, () -> {
+            stockReservations.commit(billNumber);
+            return true;
+        });
     }
 }
 
@@ -1,258 +1,183 @@
 package com.electronicstore.controller;
 
 import com.electronicstore.model.inventory.*;
-import com.electronicstore.model.utils.FileHandler;
+import com.electronicstore.model.persistence.CategoryRepository;
+import com.electronicstore.model.persistence.ItemRepository;
+import com.electronicstore.model.persistence.StockMovementLog;
+import com.electronicstore.model.persistence.SupplierRepository;
+import com.electronicstore.model.utils.Metrics;
+import com.electronicstore.model.utils.ReportEvent;
 import com.electronicstore.model.utils.SessionState;
 import java.io.IOException;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.*;
 
 public class InventoryController {
-    private static final String ITEMS_FILE = "items.dat";
-    private static final String CATEGORIES_FILE = "categories.dat";
-    private static final String SUPPLIERS_FILE = "suppliers.dat";
+    private static final Metrics METRICS = Metrics.getInstance();
+
     private final SessionState sessionState;
+    // Shared in-memory repositories; writes reach disk in batches (write-behind)
+    private final ItemRepository itemRepository;
+    private final CategoryRepository categoryRepository;
+    private final SupplierRepository supplierRepository;
 
     public InventoryController() {
-        this.sessionState = SessionState.getInstance();
+        this(SessionState.getInstance());
+    }
+
+    // Controller for one terminal's session
+    public InventoryController(SessionState sessionState) {
+        this.sessionState = sessionState;
+        this.itemRepository = ItemRepository.getInstance();
+        this.categoryRepository = CategoryRepository.getInstance();
+        this.supplierRepository = SupplierRepository.getInstance();
     }
 
     // Item management
     public boolean addItem(String name, Category category, Supplier supplier,
                            double purchasePrice, double sellingPrice, int quantity) {
-        if (!sessionState.isManager()) {
-            return false;
-        }
+        return METRICS.time("InventoryController.addItem", () -> {
+            if (!sessionState.isManager()) {
+                return false;
+            }
 
-        try {
-            List<Item> items = loadItems();
             String itemId = "I" + UUID.randomUUID().toString().substring(0, 8);
 
             Item newItem = new Item(itemId, name, category, supplier,
                     LocalDate.now(), purchasePrice,
                     sellingPrice, quantity);
-            items.add(newItem);
-
-            FileHandler.saveListToFile(items, ITEMS_FILE);
+            itemRepository.save(newItem);
             return true;
-        } catch (IOException e) {
-            e.printStackTrace();
-            return false;
-        }
+        });
     }
 
     public boolean updateItemStock(String itemId, int quantity) {
-        try {
-            List<Item> items = loadItems();
-            Optional<Item> item = items.stream()
-                    .filter(i -> i.getId().equals(itemId))
-                    .findFirst();
+        return METRICS.time("InventoryController.updateItemStock", () -> {
+            Optional<Item> item = itemRepository.findById(itemId);
 
             if (item.isPresent()) {
-                if (item.get().updateStock(quantity)) {
-                    FileHandler.saveListToFile(items, ITEMS_FILE);
-                    return true;
+                StockMovementLog.Movement movement = new StockMovementLog.Movement(itemId, quantity, null, Instant.now());
+                try {
+                    return itemRepository.recordStockChange(List.of(movement),
+                            () -> StockReservations.getInstance().adjust(item.get(), quantity));
+                } catch (IOException e) {
+                    Metrics.markFailed();
+                    e.printStackTrace();
                 }
             }
             return false;
-        } catch (IOException e) {
-            e.printStackTrace();
-            return false;
-        }
+        });
     }
 
     // Category management
     public boolean addCategory(String name, int minStockLevel, String sector) {
-        if (!sessionState.isManager()) {
-            return false;
-        }
+        return METRICS.time("InventoryController.addCategory", () -> {
+            if (!sessionState.isManager()) {
+                return false;
+            }
 
-        try {
-            List<Category> categories = loadCategories();
             String categoryId = "C" + UUID.randomUUID().toString().substring(0, 8);
 
             Category newCategory = new Category(categoryId, name, minStockLevel, sector);
-            categories.add(newCategory);
-
-            FileHandler.saveListToFile(categories, CATEGORIES_FILE);
+            categoryRepository.save(newCategory);
             return true;
-        } catch (IOException e) {
-            e.printStackTrace();
-            return false;
-        }
+        });
     }
 
     // Supplier management
     public boolean addSupplier(String name, String contact) {
-        if (!sessionState.isManager()) {
-            return false;
-        }
+        return METRICS.time("InventoryController.addSupplier", () -> {
+            if (!sessionState.isManager()) {
+                return false;
+            }
 
-        try {
-            List<Supplier> suppliers = loadSuppliers();
             String supplierId = "S" + UUID.randomUUID().toString().substring(0, 8);
 
             Supplier newSupplier = new Supplier(supplierId, name, contact);
-            suppliers.add(newSupplier);
-
-            FileHandler.saveListToFile(suppliers, SUPPLIERS_FILE);
+            supplierRepository.save(newSupplier);
             return true;
-        } catch (IOException e) {
-            e.printStackTrace();
-            return false;
-        }
+        });
     }
 
     // Stock alerts
     public List<Item> checkLowStock() {
-        try {
-            List<Item> items = loadItems();
-            List<Category> categories = loadCategories();
-
+        return METRICS.time("InventoryController.checkLowStock", () -> {
+            List<Item> items = itemRepository.findAll();
+            ReportEvent.countRows(items.size());
             return items.stream()
                     .filter(item -> {
                         Category category = item.getCategory();
                         return item.getStockQuantity() <= category.getMinStockLevel();
                     })
                     .toList();
-        } catch (IOException e) {
-            e.printStackTrace();
-            return new ArrayList<>();
-        }
-    }
-
-    // Load data methods
-    private List<Item> loadItems() throws IOException {
-        try {
-            return FileHandler.readListFromFile(ITEMS_FILE);
-        } catch (IOException | ClassNotFoundException e) {
-            return new ArrayList<>();
-        }
-    }
-
-    private List<Category> loadCategories() throws IOException {
-        try {
-            return FileHandler.readListFromFile(CATEGORIES_FILE);
-        } catch (IOException | ClassNotFoundException e) {
-            return new ArrayList<>();
-        }
-    }
-
-    private List<Supplier> loadSuppliers() throws IOException {
-        try {
-            return FileHandler.readListFromFile(SUPPLIERS_FILE);
-        } catch (IOException | ClassNotFoundException e) {
-            return new ArrayList<>();
-        }
+        });
     }
 
     public List<Item> getAvailableItems() {
-        try {
-            return loadItems().stream()
+        return METRICS.time("InventoryController.getAvailableItems", () -> {
+            return itemRepository.findAll().stream()
                     .filter(item -> item.getStockQuantity() > 0)
                     .toList();
-        } catch (IOException e) {
-            e.printStackTrace();
-            return new ArrayList<>();
-        }
+        });
     }
 
     public List<Category> getAllCategories() {
-        try {
-            return loadCategories();
-        } catch (IOException e) {
-            e.printStackTrace();
-            return new ArrayList<>();
-        }
+        return METRICS.time("InventoryController.getAllCategories", () -> {
+            return categoryRepository.findAll();
+        });
     }
 
     public List<Supplier> getAllSuppliers() {
-        try {
-            return loadSuppliers();
-        } catch (IOException e) {
-            e.printStackTrace();
-            return new ArrayList<>();
-        }
+        return METRICS.time("InventoryController.getAllSuppliers", () -> {
+            return supplierRepository.findAll();
+        });
     }
 
     public List<Item> getAllItems() {
-        try {
-            return loadItems();
-        } catch (IOException e) {
-            e.printStackTrace();
-            return new ArrayList<>();
-        }
+        return METRICS.time("InventoryController.getAllItems", () -> {
+            return itemRepository.findAll();
+        });
     }
 
     public boolean updateItem(Item item) {
-        if (!sessionState.isManager()) {
-            return false;
-        }
-
-        try {
-            List<Item> items = loadItems();
-
-            // Find and replace the item
-            for (int i = 0; i < items.size(); i++) {
-                if (items.get(i).getId().equals(item.getId())) {
-                    items.set(i, item);
-                    FileHandler.saveListToFile(items, ITEMS_FILE);
-                    return true;
-                }
+        return METRICS.time("InventoryController.updateItem", () -> {
+            if (!sessionState.isManager()) {
+                return false;
             }
-            return false;
-        } catch (IOException e) {
-            e.printStackTrace();
-            return false;
-        }
+
+            return itemRepository.replace(item);
+        });
     }
 
     public boolean deleteItem(String id) {
-        if (!sessionState.isManager()) {
-            return false;
-        }
-
-        try {
-            List<Item> items = loadItems();
-            items.removeIf(item -> item.getId().equals(id));
+        return METRICS.time("InventoryController.deleteItem", () -> {
+            if (!sessionState.isManager()) {
+                return false;
+            }
 
-            FileHandler.saveListToFile(items, ITEMS_FILE);
+            itemRepository.delete(id);
             return true;
-        } catch (IOException e) {
-            e.printStackTrace();
-            return false;
-        }
+        });
     }
 
     public void deleteCategory(Category category) {
-        if (!sessionState.isManager()) {
-            return;
-        }
-
-        try {
-            List<Category> categories = loadCategories();
-            categories.removeIf(c -> c.getId().equals(category.getId()));
+        METRICS.run("InventoryController.deleteCategory", () -> {
+            if (!sessionState.isManager()) {
+                return;
+            }
 
-            FileHandler.saveListToFile(categories, CATEGORIES_FILE);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+            categoryRepository.delete(category.getId());
+        });
     }
     public boolean deleteSupplier(String supplierId) {
-        if (!sessionState.isManager()) {
-            return false;
-        }
-
-        try {
-            List<Supplier> suppliers = loadSuppliers();
-            boolean removed = suppliers.removeIf(s -> s.getId().equals(supplierId));
+        return METRICS.time("InventoryController.deleteSupplier", () -> {
+            if (!sessionState.isManager()) {
+                return false;
+            }
 
-            FileHandler.saveListToFile(suppliers, SUPPLIERS_FILE);
-            return removed;
-        } catch (IOException e) {
-            e.printStackTrace();
-            return false;
-        }
+            return supplierRepository.delete(supplierId);
+        });
     }
 
 }
\ No newline at end of file
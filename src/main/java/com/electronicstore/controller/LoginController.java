@@ -1,51 +1,58 @@
 package com.electronicstore.controller;
 
+import com.electronicstore.model.persistence.UserRepository;
 import com.electronicstore.model.users.User;
-import com.electronicstore.model.utils.FileHandler;
+import com.electronicstore.model.utils.Metrics;
 import com.electronicstore.model.utils.SessionState;
-import java.io.IOException;
-import java.util.List;
+import java.util.Optional;
 
 public class LoginController {
-    private static final String USERS_FILE = "users.dat";
+    private static final Metrics METRICS = Metrics.getInstance();
+
     private SessionState sessionState;
 
     public LoginController() {
-        this.sessionState = SessionState.getInstance();
+        this(SessionState.getInstance());
+    }
+
+    // Controller for one terminal's session
+    public LoginController(SessionState sessionState) {
+        this.sessionState = sessionState;
     }
 
     public boolean login(String username, String password) {
-        try {
-            List<User> users = FileHandler.readListFromFile(USERS_FILE);
-
-            for (User user : users) {
-                if (user.getUsername().equals(username)) {
-                    if (user.login(username, password)) {
-                        sessionState.startSession(user);
-                        return true;
-                    }
-                    return false; // Password incorrect
-                }
+        return METRICS.time("LoginController.login", () -> {
+            Optional<User> user = UserRepository.getInstance().findByUsername(username);
+            if (user.isPresent() && user.get().login(username, password)) {
+                sessionState.startSession(user.get());
+                return true;
             }
-        } catch (IOException | ClassNotFoundException e) {
-            e.printStackTrace();
-        }
-        return false; // User not found
+            return false; // User not found or password incorrect
+        });
     }
 
     public void logout() {
-        if (sessionState.isLoggedIn()) {
-            sessionState.endSession();
-        }
+        METRICS.run("LoginController.logout", () -> {
+            if (sessionState.isLoggedIn()) {
+                sessionState.endSession();
+            }
+        });
     }
 
     public boolean changePassword(String oldPassword, String newPassword) {
-        if (!sessionState.isLoggedIn()) {
-            return false;
-        }
+        return METRICS.time("LoginController.changePassword", () -> {
+            if (!sessionState.isLoggedIn()) {
+                return false;
+            }
 
-        User currentUser = sessionState.getCurrentUser();
-        return currentUser.changePassword(oldPassword, newPassword);
+            User currentUser = sessionState.getCurrentUser();
+            if (!currentUser.changePassword(oldPassword, newPassword)) {
+                return false;
+            }
+            // The session user is the directory's instance; persist the change
+            UserRepository.getInstance().touch(currentUser.getId());
+            return true;
+        });
     }
 
     public User getCurrentUser() {
@@ -2,26 +2,39 @@ package com.electronicstore.controller;
 
 import com.electronicstore.model.inventory.Category;
 import com.electronicstore.model.inventory.Item;
-import com.electronicstore.model.inventory.Supplier;
+import com.electronicstore.model.persistence.BillJournal;
+import com.electronicstore.model.persistence.InventoryLedger;
+import com.electronicstore.model.persistence.ItemRepository;
+import com.electronicstore.model.persistence.SalesColumnStore;
+import com.electronicstore.model.persistence.SalesRollupRepository;
+import com.electronicstore.model.persistence.SalesScan;
 import com.electronicstore.model.sales.Bill;
+import com.electronicstore.model.sales.DailySales;
+import com.electronicstore.model.sales.Money;
 import com.electronicstore.model.sales.SaleItem;
+import com.electronicstore.model.utils.CsvExporter;
 import com.electronicstore.model.utils.FileHandler;
+import com.electronicstore.model.utils.Metrics;
+import com.electronicstore.model.utils.ReportCache;
+import com.electronicstore.model.utils.ReportEvent;
 import com.electronicstore.model.utils.SessionState;
-import com.electronicstore.view.components.AlertDialog;
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVPrinter;
 
-import java.io.FileWriter;
 import java.io.IOException;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
 
 public class ReportController {
-    private static final String BILLS_FILE = "bills.dat";
+    private static final Metrics METRICS = Metrics.getInstance();
+    private static final ReportCache REPORT_CACHE = ReportCache.getInstance();
+
+    // Reports of generateReport computed from bills alone, and so safe to cache by period
+    private static final Set<String> SALES_ONLY_REPORTS = Set.of("Sales Report", "Profit Report");
+
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     private static final String NL = System.lineSeparator();
 
@@ -30,229 +43,343 @@ public class ReportController {
     private final SessionState sessionState;
 
     public ReportController() {
-        this.sessionState = SessionState.getInstance();
+        this(SessionState.getInstance());
+    }
+
+    // Controller for one terminal's session
+    public ReportController(SessionState sessionState) {
+        this.sessionState = sessionState;
     }
 
     // Sales Reports
     public Map<String, Double> getDailySalesReport(LocalDate date) {
-        try {
-            List<Bill> bills = loadBills();
-            return bills.stream()
-                    .filter(bill -> bill.getDate().equals(date))
-                    .collect(Collectors.groupingBy(
-                            Bill::getCashierId,
-                            Collectors.summingDouble(Bill::getTotalAmount)
-                    ));
-        } catch (IOException e) {
-            e.printStackTrace();
-            return new HashMap<>();
-        }
+        return cachedReport("ReportController.getDailySalesReport", "Daily Sales", date, date, () -> {
+            Map<String, Double> report = new HashMap<>();
+            loadRollups().forDay(date).ifPresent(day ->
+                    day.getByCashier().forEach((cashierId, totals) -> report.put(cashierId, totals.getRevenue())));
+            return Collections.unmodifiableMap(report);
+        });
     }
 
     public Map<LocalDate, Double> getMonthlySalesReport(int year, int month) {
-        try {
-            List<Bill> bills = loadBills();
-            return bills.stream()
-                    .filter(bill -> {
-                        LocalDate date = bill.getDate();
-                        return date.getYear() == year && date.getMonthValue() == month;
-                    })
-                    .collect(Collectors.groupingBy(
-                            Bill::getDate,
-                            Collectors.summingDouble(Bill::getTotalAmount)
-                    ));
-        } catch (IOException e) {
-            e.printStackTrace();
-            return new HashMap<>();
-        }
+        YearMonth period = YearMonth.of(year, month);
+        return cachedReport("ReportController.getMonthlySalesReport", "Monthly Sales",
+                period.atDay(1), period.atEndOfMonth(), () -> {
+            Map<LocalDate, Double> report = new HashMap<>();
+            for (DailySales day : loadRollups().forRange(period.atDay(1), period.atEndOfMonth())) {
+                report.put(day.getDate(), day.getTotal().getRevenue());
+            }
+            return Collections.unmodifiableMap(report);
+        });
     }
 
     // Inventory Reports
     public Map<String, Integer> getItemsSoldReport(LocalDate startDate, LocalDate endDate) {
-        try {
-            List<Bill> bills = loadBills();
-            return bills.stream()
-                    .filter(bill -> {
-                        LocalDate date = bill.getDate();
-                        return !date.isBefore(startDate) && !date.isAfter(endDate);
-                    })
-                    .flatMap(bill -> bill.getItems().stream())
-                    .collect(Collectors.groupingBy(
-                            item -> item.getItem().getName(),
-                            Collectors.summingInt(SaleItem::getQuantity)
-                    ));
-        } catch (IOException e) {
-            e.printStackTrace();
-            return new HashMap<>();
-        }
+        return timeReport("ReportController.getItemsSoldReport", "Items Sold", startDate, endDate, () -> {
+            try {
+                SalesScan scan = salesScan(startDate, endDate);
+                SalesScan.ByItem sold = scan.byItem();
+                scan.run();
+                return itemsSold(scan.getSales(), sold);
+            } catch (IOException e) {
+                Metrics.markFailed();
+                e.printStackTrace();
+                return new HashMap<>();
+            }
+        });
     }
 
     // Performance Reports
     public Map<String, Map<String, Double>> getCashierPerformanceReport(LocalDate date) {
-        if (!sessionState.isManager() && !sessionState.isAdministrator()) {
-            return new HashMap<>();
-        }
+        return cachedReport("ReportController.getCashierPerformanceReport", "Cashier Performance", date, date, () -> {
+            if (!sessionState.isManager() && !sessionState.isAdministrator()) {
+                return Map.of();
+            }
 
-        try {
-            List<Bill> bills = loadBills();
             Map<String, Map<String, Double>> report = new HashMap<>();
+            loadRollups().forDay(date).ifPresent(day -> day.getByCashier().forEach((cashierId, totals) -> {
+                Map<String, Double> cashierStats = new HashMap<>();
+                cashierStats.put("totalSales", totals.getRevenue());
+                cashierStats.put("billCount", (double) totals.getBillCount());
+                cashierStats.put("averagePerBill",
+                        totals.getBillCount() > 0 ? totals.getRevenue() / totals.getBillCount() : 0.0);
+                report.put(cashierId, Collections.unmodifiableMap(cashierStats));
+            }));
+            return Collections.unmodifiableMap(report);
+        });
+    }
 
-            bills.stream()
-                    .filter(bill -> bill.getDate().equals(date))
-                    .forEach(bill -> {
-                        String cashierId = bill.getCashierId();
-                        report.computeIfAbsent(cashierId, k -> new HashMap<>());
-
-                        Map<String, Double> cashierStats = report.get(cashierId);
-                        cashierStats.merge("totalSales", bill.getTotalAmount(), Double::sum);
-                        cashierStats.merge("billCount", 1.0, Double::sum);
-
-                        // keep a place-holder; actual average computed below
-                        cashierStats.putIfAbsent("averagePerBill", 0.0);
-                    });
-
-            report.forEach((cashierId, stats) -> {
-                double totalSales = stats.getOrDefault("totalSales", 0.0);
-                double billCount = stats.getOrDefault("billCount", 0.0);
-                stats.put("averagePerBill", billCount > 0 ? (totalSales / billCount) : 0.0);
-            });
+    // Same figures over a period, e.g. a month or a year, from one scan of the bill column
+    public Map<String, Map<String, Double>> getCashierPerformanceReport(LocalDate startDate, LocalDate endDate) {
+        return cachedReport("ReportController.getCashierPerformanceReport", "Cashier Performance",
+                startDate, endDate, () -> {
+            if (!sessionState.isManager() && !sessionState.isAdministrator()) {
+                return Map.of();
+            }
 
-            return report;
-        } catch (IOException e) {
-            e.printStackTrace();
-            return new HashMap<>();
-        }
+            try {
+                SalesScan scan = salesScan(startDate, endDate);
+                SalesScan.ByCashier cashiers = scan.byCashier();
+                scan.run();
+
+                Map<String, Map<String, Double>> report = new HashMap<>();
+                for (int cashier = 0; cashier < cashiers.cashiers(); cashier++) {
+                    int billCount = cashiers.getBillCount(cashier);
+                    if (billCount == 0) {
+                        continue;
+                    }
+                    double revenue = Money.toAmount(cashiers.getRevenueCents(cashier));
+                    Map<String, Double> cashierStats = new HashMap<>();
+                    cashierStats.put("totalSales", revenue);
+                    cashierStats.put("billCount", (double) billCount);
+                    cashierStats.put("averagePerBill", revenue / billCount);
+                    report.put(scan.getSales().cashierId(cashier), Collections.unmodifiableMap(cashierStats));
+                }
+                return Collections.unmodifiableMap(report);
+            } catch (IOException e) {
+                Metrics.markFailed();
+                e.printStackTrace();
+                return new HashMap<>();
+            }
+        });
     }
 
     // Financial Reports
     public Map<String, Double> getFinancialSummary(LocalDate startDate, LocalDate endDate) {
-        if (!sessionState.isAdministrator()) {
-            return new HashMap<>();
-        }
+        return cachedReport("ReportController.getFinancialSummary", "Financial Summary", startDate, endDate, () -> {
+            if (!sessionState.isAdministrator()) {
+                return Map.of();
+            }
 
-        try {
-            List<Bill> bills = loadBills();
-
-            double totalRevenue = bills.stream()
-                    .filter(bill -> {
-                        LocalDate date = bill.getDate();
-                        return !date.isBefore(startDate) && !date.isAfter(endDate);
-                    })
-                    .mapToDouble(Bill::getTotalAmount)
-                    .sum();
-
-            double totalPurchaseCost = bills.stream()
-                    .filter(bill -> {
-                        LocalDate date = bill.getDate();
-                        return !date.isBefore(startDate) && !date.isAfter(endDate);
-                    })
-                    .flatMap(bill -> bill.getItems().stream())
-                    .mapToDouble(item -> item.getItem().getPurchasePrice() * item.getQuantity())
-                    .sum();
-
-            Map<String, Double> summary = new HashMap<>();
-            summary.put("totalRevenue", totalRevenue);
-            summary.put("totalCost", totalPurchaseCost);
-            summary.put("grossProfit", totalRevenue - totalPurchaseCost);
-
-            return summary;
-        } catch (IOException e) {
-            e.printStackTrace();
-            return new HashMap<>();
-        }
+            try {
+                SalesScan scan = salesScan(startDate, endDate);
+                SalesScan.Totals totals = scan.totals();
+                scan.run();
+
+                Map<String, Double> summary = new HashMap<>();
+                summary.put("totalRevenue", Money.toAmount(totals.getRevenueCents()));
+                summary.put("totalCost", Money.toAmount(totals.getCostCents()));
+                summary.put("grossProfit", Money.toAmount(totals.getRevenueCents() - totals.getCostCents()));
+
+                return Collections.unmodifiableMap(summary);
+            } catch (IOException e) {
+                Metrics.markFailed();
+                e.printStackTrace();
+                return new HashMap<>();
+            }
+        });
     }
 
     private List<Bill> loadBills() throws IOException {
         try {
-            return FileHandler.readListFromFile(BILLS_FILE);
-        } catch (IOException | ClassNotFoundException e) {
+            return BillJournal.getInstance().readAll();
+        } catch (IOException e) {
             return new ArrayList<>();
         }
     }
 
-    public String generateReport(String reportType, LocalDate startDate, LocalDate endDate) {
-        if (!sessionState.isManager() && !sessionState.isAdministrator()) {
-            return "Insufficient permissions to generate reports.";
-        }
+    // Like timeReport, but served from the report cache when this role already ran the report for the period
+    private <T> T cachedReport(String operation, String reportType, LocalDate startDate, LocalDate endDate,
+                               Supplier<T> report) {
+        return timeReport(operation, reportType, startDate, endDate, () ->
+                REPORT_CACHE.get(reportType, startDate, endDate, sessionState.getRole(), report));
+    }
 
-        return switch (reportType) {
-            case "Sales Report" -> generateSalesReport(startDate, endDate);
-            case "Inventory Report" -> generateInventoryReport(startDate, endDate);
-            case "Low Stock Report" -> generateLowStockReport();
-            case "Profit Report" -> generateProfitReport(startDate, endDate);
-            default -> "Invalid report type selected.";
-        };
+    // Times a report in the metrics and records a flight recorder event for it
+    private static <T> T timeReport(String operation, String reportType, LocalDate startDate, LocalDate endDate,
+                                    Supplier<T> report) {
+        return METRICS.time(operation, () -> {
+            ReportEvent event = ReportEvent.start(reportType, startDate, endDate);
+            try {
+                return report.get();
+            } finally {
+                event.finish();
+            }
+        });
     }
 
-    private String generateSalesReport(LocalDate startDate, LocalDate endDate) {
-        try {
-            List<Bill> bills = loadBills();
-            Map<LocalDate, List<Bill>> dailyBills = bills.stream()
-                    .filter(bill -> !bill.getDate().isBefore(startDate) && !bill.getDate().isAfter(endDate))
-                    .collect(Collectors.groupingBy(Bill::getDate));
-
-            StringBuilder report = new StringBuilder();
-            report.append("SALES REPORT").append(NL);
-            report.append(LABEL_PERIOD)
-                    .append(startDate.format(DATE_FORMATTER))
-                    .append(" to ")
-                    .append(endDate.format(DATE_FORMATTER))
-                    .append(NL).append(NL);
-
-            dailyBills.forEach((date, dayBills) -> {
-                double dailyTotal = dayBills.stream().mapToDouble(Bill::getTotalAmount).sum();
-                int billCount = dayBills.size();
-
-                report.append(String.format("Date: %s%n", date.format(DATE_FORMATTER)));
-                report.append(String.format("Total Sales: $%.2f%n", dailyTotal));
-                report.append(String.format("Number of Bills: %d%n", billCount));
-                report.append(String.format("Average Bill Amount: $%.2f%n%n",
-                        billCount > 0 ? (dailyTotal / billCount) : 0.0));
-            });
+    // Opening the journal first reconciles the rollups with it
+    private SalesRollupRepository loadRollups() {
+        BillJournal.getInstance();
+        return SalesRollupRepository.getInstance();
+    }
 
-            double periodTotal = dailyBills.values().stream()
-                    .flatMap(List::stream)
-                    .mapToDouble(Bill::getTotalAmount)
-                    .sum();
+    // Scan of the columns of the sales history; reports read these instead of whole bills
+    private SalesScan salesScan(LocalDate startDate, LocalDate endDate) throws IOException {
+        SalesColumnStore columns = BillJournal.getInstance().getColumns();
+        if (columns == null) {
+            throw new IOException("Sales columns are not available");
+        }
+        return new SalesScan(columns.snapshot(), startDate, endDate);
+    }
 
-            report.append(NL).append("PERIOD SUMMARY").append(NL);
-            report.append(String.format("Total Sales: $%.2f%n", periodTotal));
-            report.append(String.format("Total Days: %d%n", dailyBills.size()));
+    // Units sold by current item name; items no longer in the catalog keep the name they were sold under
+    private static Map<String, Integer> itemsSold(SalesColumnStore.Snapshot sales, SalesScan.ByItem sold) {
+        Map<String, Integer> report = new HashMap<>();
+        Map<String, Item> catalog = ItemRepository.getInstance().findAllById();
+        for (int item = 0; item < sold.items(); item++) {
+            if (sold.getUnits(item) > 0) {
+                String storedName = sales.itemName(item);
+                Item current = catalog.get(sales.itemId(item));
+                String name = current != null ? current.getName() : storedName;
+                report.merge(name, sold.getUnits(item), Integer::sum);
+            }
+        }
+        return report;
+    }
 
-            return report.toString();
+    public String generateReport(String reportType, LocalDate startDate, LocalDate endDate) {
+        return timeReport("ReportController.generateReport", reportType, startDate, endDate, () -> {
+            if (!sessionState.isManager() && !sessionState.isAdministrator()) {
+                return "Insufficient permissions to generate reports.";
+            }
+            if (!SALES_ONLY_REPORTS.contains(reportType)) {
+                return generate(List.of(reportType), startDate, endDate).get(reportType);
+            }
+            return REPORT_CACHE.get(reportType, startDate, endDate, sessionState.getRole(),
+                    () -> generate(List.of(reportType), startDate, endDate).get(reportType));
+        });
+    }
+
+    /**
+     * Generates several reports of the same period from one scan of the sales
+     * history, keyed by report type in the order given.
+     */
+    public Map<String, String> generateReports(List<String> reportTypes, LocalDate startDate, LocalDate endDate) {
+        return timeReport("ReportController.generateReports", "Report Bundle", startDate, endDate, () -> {
+            Map<String, String> reports = new LinkedHashMap<>();
+            if (!sessionState.isManager() && !sessionState.isAdministrator()) {
+                reportTypes.forEach(type -> reports.put(type, "Insufficient permissions to generate reports."));
+                return reports;
+            }
+            return generate(reportTypes, startDate, endDate);
+        });
+    }
+
+    // Registers what every report needs on one scan, runs it, then renders each report from it
+    private Map<String, String> generate(List<String> reportTypes, LocalDate startDate, LocalDate endDate) {
+        SalesScan scan = null;
+        IOException scanError = null;
+        try {
+            scan = salesScan(startDate, endDate);
+            for (String reportType : reportTypes) {
+                switch (reportType) {
+                    case "Sales Report" -> scan.byDay(false);
+                    case "Inventory Report" -> scan.byItem();
+                    case "Profit Report" -> scan.byDay(true);
+                    default -> {
+                        // Reads no sales
+                    }
+                }
+            }
+            scan.run();
         } catch (IOException e) {
-            return "Error generating sales report: " + e.getMessage();
+            Metrics.markFailed();
+            scanError = e;
         }
+
+        Map<String, String> reports = new LinkedHashMap<>();
+        for (String reportType : reportTypes) {
+            reports.put(reportType, switch (reportType) {
+                case "Sales Report" -> scan != null
+                        ? generateSalesReport(startDate, endDate, scan.byDay(false))
+                        : "Error generating sales report: " + scanError.getMessage();
+                case "Inventory Report" -> generateInventoryReport(startDate, endDate, scan);
+                case "Low Stock Report" -> generateLowStockReport();
+                case "Profit Report" -> generateProfitReport(startDate, endDate,
+                        scan != null ? scan.byDay(true) : null, scanError);
+                default -> "Invalid report type selected.";
+            });
+        }
+        return reports;
     }
 
-    private String generateInventoryReport(LocalDate startDate, LocalDate endDate) {
+    private String generateSalesReport(LocalDate startDate, LocalDate endDate, SalesScan.ByDay days) {
         StringBuilder report = new StringBuilder();
-        report.append("INVENTORY MOVEMENT REPORT").append(NL);
+        report.append("SALES REPORT").append(NL);
         report.append(LABEL_PERIOD)
                 .append(startDate.format(DATE_FORMATTER))
                 .append(" to ")
                 .append(endDate.format(DATE_FORMATTER))
                 .append(NL).append(NL);
 
-        Map<String, Integer> itemsSold = getItemsSoldReport(startDate, endDate);
-        List<Item> currentInventory = new InventoryController().getAllItems();
-
-        itemsSold.forEach((itemName, soldQuantity) -> {
-            currentInventory.stream()
-                    .filter(i -> i.getName().equals(itemName))
-                    .findFirst()
-                    .ifPresent(item -> {
-                        report.append(String.format("Item: %s%n", itemName));
-                        report.append(String.format("Current Stock: %d%n", item.getStockQuantity()));
-                        report.append(String.format("Sold in Period: %d%n", soldQuantity));
-                        report.append(String.format("Minimum Level: %d%n%n",
-                                item.getCategory().getMinStockLevel()));
-                    });
-        });
+        long periodTotal = 0;
+        int salesDays = 0;
+        for (int offset = 0; offset < days.days(); offset++) {
+            int billCount = days.getBillCount(offset);
+            if (billCount == 0) {
+                continue;
+            }
+            long dailyTotal = days.getRevenueCents(offset);
+            periodTotal += dailyTotal;
+            salesDays++;
+
+            report.append(String.format("Date: %s%n", startDate.plusDays(offset).format(DATE_FORMATTER)));
+            report.append(String.format("Total Sales: $%s%n", Money.format(dailyTotal)));
+            report.append(String.format("Number of Bills: %d%n", billCount));
+            report.append(String.format("Average Bill Amount: $%s%n%n",
+                    Money.format(Math.round((double) dailyTotal / billCount))));
+        }
+
+        report.append(NL).append("PERIOD SUMMARY").append(NL);
+        report.append(String.format("Total Sales: $%s%n", Money.format(periodTotal)));
+        report.append(String.format("Total Days: %d%n", salesDays));
 
         return report.toString();
     }
 
+    private String generateInventoryReport(LocalDate startDate, LocalDate endDate, SalesScan scan) {
+        StringBuilder report = new StringBuilder();
+        writeInventoryReport(startDate, endDate, scan, new Formatter(report));
+        return report.toString();
+    }
+
+    /**
+     * Writes the movement of every item sold in the period, joined to the
+     * catalog on the item ID: one hash lookup per item sold instead of a
+     * catalog scan per item, and items that share a name stay apart. Lines
+     * go straight to the formatter's destination as they are produced.
+     */
+    private void writeInventoryReport(LocalDate startDate, LocalDate endDate, SalesScan scan, Formatter out) {
+        out.format("INVENTORY MOVEMENT REPORT%n");
+        out.format("%s%s to %s%n%n", LABEL_PERIOD,
+                startDate.format(DATE_FORMATTER), endDate.format(DATE_FORMATTER));
+        if (scan == null) {
+            return;
+        }
+
+        SalesColumnStore.Snapshot sales = scan.getSales();
+        SalesScan.ByItem sold = scan.byItem();
+        ItemRepository repository = ItemRepository.getInstance();
+        Map<String, Item> catalog = repository.findAllById();
+        InventoryLedger ledger = repository.getLedger();
+        Instant periodStart = startDate.atStartOfDay(ZoneId.systemDefault()).toInstant();
+        Instant periodEnd = endDate.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant();
+
+        for (int ref = 0; ref < sold.items(); ref++) {
+            int soldQuantity = sold.getUnits(ref);
+            if (soldQuantity == 0) {
+                continue;
+            }
+            Item item = catalog.get(sales.itemId(ref));
+            if (item == null) {
+                continue;
+            }
+            out.format("Item: %s%n", item.getName());
+            out.format("Current Stock: %d%n", item.getStockQuantity());
+            out.format("Opening Stock: %s%n", ledgerStock(ledger, item, periodStart));
+            out.format("Closing Stock: %s%n", ledgerStock(ledger, item, periodEnd));
+            out.format("Sold in Period: %d%n", soldQuantity);
+            out.format("Minimum Level: %d%n%n", item.getCategory().getMinStockLevel());
+        }
+    }
+
+    // Stock recorded in the inventory ledger at the instant, "n/a" before the item's history starts
+    private static String ledgerStock(InventoryLedger ledger, Item item, Instant instant) {
+        OptionalInt stock = ledger.stockAt(item.getId(), instant);
+        return stock.isPresent() ? String.valueOf(stock.getAsInt()) : "n/a";
+    }
+
     private String generateLowStockReport() {
         StringBuilder report = new StringBuilder();
         report.append("LOW STOCK ALERT REPORT").append(NL);
@@ -260,7 +387,7 @@ public class ReportController {
                 .append(LocalDate.now().format(DATE_FORMATTER))
                 .append(NL).append(NL);
 
-        List<Item> lowStockItems = new InventoryController().checkLowStock();
+        List<Item> lowStockItems = new InventoryController(sessionState).checkLowStock();
 
         if (lowStockItems.isEmpty()) {
             report.append("No items are currently below minimum stock levels.").append(NL);
@@ -279,7 +406,9 @@ public class ReportController {
         return report.toString();
     }
 
-    private String generateProfitReport(LocalDate startDate, LocalDate endDate) {
+    // The period totals are summed from the daily figures, so the report needs a single scan
+    private String generateProfitReport(LocalDate startDate, LocalDate endDate, SalesScan.ByDay days,
+                                        IOException scanError) {
         if (!sessionState.isAdministrator()) {
             return "Insufficient permissions to generate profit report.";
         }
@@ -292,10 +421,17 @@ public class ReportController {
                 .append(endDate.format(DATE_FORMATTER))
                 .append(NL).append(NL);
 
-        Map<String, Double> summary = getFinancialSummary(startDate, endDate);
-        double totalRevenue = summary.getOrDefault("totalRevenue", 0.0);
-        double totalCost = summary.getOrDefault("totalCost", 0.0);
-        double grossProfit = summary.getOrDefault("grossProfit", 0.0);
+        long revenueCents = 0;
+        long costCents = 0;
+        if (days != null) {
+            for (int offset = 0; offset < days.days(); offset++) {
+                revenueCents += days.getRevenueCents(offset);
+                costCents += days.getCostCents(offset);
+            }
+        }
+        double totalRevenue = Money.toAmount(revenueCents);
+        double totalCost = Money.toAmount(costCents);
+        double grossProfit = Money.toAmount(revenueCents - costCents);
         double marginPercentage = totalRevenue > 0 ? (grossProfit / totalRevenue) * 100 : 0.0;
 
         report.append(String.format("Total Revenue: $%.2f%n", totalRevenue));
@@ -303,223 +439,231 @@ public class ReportController {
         report.append(String.format("Gross Profit: $%.2f%n", grossProfit));
         report.append(String.format("Profit Margin: %.2f%%%n%n", marginPercentage));
 
-        try {
-            List<Bill> bills = loadBills();
-            Map<LocalDate, List<Bill>> dailyBills = bills.stream()
-                    .filter(bill -> !bill.getDate().isBefore(startDate) && !bill.getDate().isAfter(endDate))
-                    .collect(Collectors.groupingBy(Bill::getDate));
-
-            report.append("DAILY BREAKDOWN").append(NL);
-
-            dailyBills.forEach((date, dayBills) -> {
-                double dayRevenue = dayBills.stream().mapToDouble(Bill::getTotalAmount).sum();
-                double dayCost = dayBills.stream()
-                        .flatMap(bill -> bill.getItems().stream())
-                        .mapToDouble(item -> item.getItem().getPurchasePrice() * item.getQuantity())
-                        .sum();
-                double dayProfit = dayRevenue - dayCost;
-
-                report.append(String.format("%nDate: %s%n", date.format(DATE_FORMATTER)));
-                report.append(String.format("Revenue: $%.2f%n", dayRevenue));
-                report.append(String.format("Cost: $%.2f%n", dayCost));
-                report.append(String.format("Profit: $%.2f%n", dayProfit));
-            });
-        } catch (IOException e) {
-            report.append("Error generating daily breakdown: ").append(e.getMessage());
+        if (days == null) {
+            report.append("Error generating daily breakdown: ").append(scanError.getMessage());
+            return report.toString();
+        }
+
+        report.append("DAILY BREAKDOWN").append(NL);
+
+        for (int offset = 0; offset < days.days(); offset++) {
+            if (days.getBillCount(offset) == 0) {
+                continue;
+            }
+            long dayRevenue = days.getRevenueCents(offset);
+            long dayCost = days.getCostCents(offset);
+
+            report.append(String.format("%nDate: %s%n", startDate.plusDays(offset).format(DATE_FORMATTER)));
+            report.append(String.format("Revenue: $%s%n", Money.format(dayRevenue)));
+            report.append(String.format("Cost: $%s%n", Money.format(dayCost)));
+            report.append(String.format("Profit: $%s%n", Money.format(dayRevenue - dayCost)));
         }
 
         return report.toString();
     }
 
     public boolean exportReport(String reportContent, String reportType) {
-        try {
-            String filename = reportType.toLowerCase().replace(" ", "_") + "_"
-                    + LocalDate.now().format(DATE_FORMATTER) + ".txt";
-            FileHandler.saveToTextFile(reportContent, filename);
-            return true;
-        } catch (IOException e) {
-            e.printStackTrace();
-            return false;
-        }
+        return METRICS.time("ReportController.exportReport", () -> {
+            try {
+                String filename = reportType.toLowerCase().replace(" ", "_") + "_"
+                        + LocalDate.now().format(DATE_FORMATTER) + ".txt";
+                FileHandler.saveToTextFile(reportContent, filename);
+                return true;
+            } catch (IOException e) {
+                Metrics.markFailed();
+                e.printStackTrace();
+                return false;
+            }
+        });
     }
 
     public boolean exportData(boolean exportItems, boolean exportCategories,
                               boolean exportSuppliers, boolean exportSales) {
-        try {
-            if (exportItems) {
-                List<Item> items = new InventoryController().getAllItems();
-                exportDataToCSV(items, "items_export.csv");
-            }
-            if (exportCategories) {
-                List<Category> categories = new InventoryController().getAllCategories();
-                exportDataToCSV(categories, "categories_export.csv");
-            }
-            if (exportSuppliers) {
-                List<Supplier> suppliers = new InventoryController().getAllSuppliers();
-                exportDataToCSV(suppliers, "suppliers_export.csv");
-            }
-            if (exportSales) {
-                List<Bill> bills = loadBills();
-                exportDataToCSV(bills, "sales_export.csv");
+        return exportData(exportItems, exportCategories, exportSuppliers, exportSales, false,
+                CsvExporter.Progress.NONE);
+    }
+
+    /**
+     * Writes the selected CSV exports to the data directory, gzip-compressed
+     * when asked. Rows are written as they are read, with sales streamed from
+     * the bill journal one bill at a time, so memory use does not grow with
+     * the sales history. Returns false when an export fails or has no rows.
+     */
+    public boolean exportData(boolean exportItems, boolean exportCategories, boolean exportSuppliers,
+                              boolean exportSales, boolean gzip, CsvExporter.Progress progress) {
+        return METRICS.time("ReportController.exportData", () -> {
+            try {
+                InventoryController inventory = new InventoryController(sessionState);
+                if (exportItems) {
+                    exportRows(inventory.getAllItems(), "items_export.csv", gzip, progress,
+                            new String[]{"ID", "Name", "Category", "Supplier", "Purchase Price", "Selling Price",
+                                    "Stock Quantity"},
+                            (csv, i) -> csv.write(i.getId(), i.getName(), i.getCategory().getName(),
+                                    i.getSupplier().getName(), i.getPurchasePrice(), i.getSellingPrice(),
+                                    i.getStockQuantity()));
+                }
+                if (exportCategories) {
+                    exportRows(inventory.getAllCategories(), "categories_export.csv", gzip, progress,
+                            new String[]{"ID", "Name", "Minimum Stock Level", "Sector"},
+                            (csv, c) -> csv.write(c.getId(), c.getName(), c.getMinStockLevel(), c.getSector()));
+                }
+                if (exportSuppliers) {
+                    exportRows(inventory.getAllSuppliers(), "suppliers_export.csv", gzip, progress,
+                            new String[]{"ID", "Name", "Contact"},
+                            (csv, s) -> csv.write(s.getId(), s.getName(), s.getContact()));
+                }
+                if (exportSales) {
+                    exportSales(gzip, progress);
+                }
+                return true;
+            } catch (IOException e) {
+                Metrics.markFailed();
+                e.printStackTrace();
+                return false;
             }
-            return true;
-        } catch (IOException e) {
-            e.printStackTrace();
-            return false;
-        }
+        });
     }
 
-    private <T> void exportDataToCSV(List<T> data, String filename) throws IOException {
-        if (data == null || data.isEmpty()) {
+    // Writes one row of an export
+    @FunctionalInterface
+    private interface RowWriter<T> {
+        void write(CsvExporter csv, T record) throws IOException;
+    }
+
+    // The catalog is held in memory by the repositories anyway; only its rows are streamed
+    private static <T> void exportRows(List<T> records, String filename, boolean gzip,
+                                       CsvExporter.Progress progress, String[] headers,
+                                       RowWriter<T> row) throws IOException {
+        if (records.isEmpty()) {
             throw new IOException("No data to export");
         }
-
-        Path filepath = Paths.get(FileHandler.DATA_DIRECTORY).resolve(filename);
-
-        T firstItem = data.get(0);
-        String[] headers = getHeaders(firstItem);
-
-        // ✅ remove deprecated withHeader()
-        CSVFormat format = CSVFormat.DEFAULT.builder()
-                .setHeader(headers)
-                .build();
-
-        try (FileWriter fileWriter = new FileWriter(filepath.toFile());
-             CSVPrinter csvPrinter = new CSVPrinter(fileWriter, format)) {
-
-            for (T item : data) {
-                csvPrinter.printRecord(getValues(item));
+        try (CsvExporter csv = new CsvExporter(FileHandler.resolve(filename), gzip, progress, headers)) {
+            for (T record : records) {
+                row.write(csv, record);
             }
-
-            csvPrinter.flush();
-            AlertDialog.showInfo("Export Successful", "Data exported to " + filename);
-        } catch (IOException e) {
-            AlertDialog.showError("Export Error", "Failed to export data: " + e.getMessage());
-            throw e;
         }
     }
 
-    // ✅ chain if/else -> switch expression
-    private String[] getHeaders(Object item) {
-        return switch (item) {
-            case Item ignored -> new String[]{"ID", "Name", "Category", "Supplier", "Purchase Price", "Selling Price", "Stock Quantity"};
-            case Category ignored -> new String[]{"ID", "Name", "Minimum Stock Level", "Sector"};
-            case Supplier ignored -> new String[]{"ID", "Name", "Contact"};
-            case Bill ignored -> new String[]{"Bill Number", "Date", "Cashier ID", "Total Amount", "Items"};
-            default -> throw new IllegalArgumentException("Unsupported data type for CSV export");
-        };
-    }
-
-    private Object[] getValues(Object item) {
-        if (item instanceof Item i) {
-            return new Object[]{
-                    i.getId(),
-                    i.getName(),
-                    i.getCategory().getName(),
-                    i.getSupplier().getName(),
-                    i.getPurchasePrice(),
-                    i.getSellingPrice(),
-                    i.getStockQuantity()
-            };
-        } else if (item instanceof Category c) {
-            return new Object[]{
-                    c.getId(),
-                    c.getName(),
-                    c.getMinStockLevel(),
-                    c.getSector()
-            };
-        } else if (item instanceof Supplier s) {
-            return new Object[]{
-                    s.getId(),
-                    s.getName(),
-                    s.getContact()
-            };
-        } else if (item instanceof Bill b) {
-            return new Object[]{
-                    b.getBillNumber(),
-                    b.getDateTime().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME),
-                    b.getCashierId(),
-                    b.getTotalAmount(),
-                    formatBillItems(b.getItems())
-            };
-        } else {
-            throw new IllegalArgumentException("Unsupported data type for CSV export");
+    private static void exportSales(boolean gzip, CsvExporter.Progress progress) throws IOException {
+        BillJournal journal = BillJournal.getInstance();
+        if (journal.billCount() == 0) {
+            throw new IOException("No data to export");
+        }
+        try (CsvExporter csv = new CsvExporter(FileHandler.resolve("sales_export.csv"), gzip, progress,
+                "Bill Number", "Date", "Cashier ID", "Total Amount", "Items")) {
+            StringBuilder lines = new StringBuilder();
+            journal.forEach(bill -> {
+                lines.setLength(0);
+                for (SaleItem item : bill.getItems()) {
+                    if (!lines.isEmpty()) {
+                        lines.append("; ");
+                    }
+                    lines.append(item.getItem().getName()).append(" (x").append(item.getQuantity()).append(')');
+                }
+                csv.write(bill.getBillNumber(),
+                        bill.getDateTime().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME),
+                        bill.getCashierId(),
+                        bill.getTotalAmount(),
+                        lines);
+            });
         }
-    }
-
-    private String formatBillItems(List<SaleItem> items) {
-        return items.stream()
-                .map(item -> String.format("%s (x%d)", item.getItem().getName(), item.getQuantity()))
-                .collect(Collectors.joining("; "));
     }
 
     // ✅ remove unused parameters "start", "end"
     // (they were used only for filtering; if your linter says unused, then you likely didn't want them here)
     public List<String> getRecentActivities() {
-        try {
-            List<Bill> bills = loadBills();
-            return bills.stream()
-                    .map(bill -> String.format("Bill #%s by %s on %s",
-                            bill.getBillNumber(), bill.getCashierId(), bill.getDate()))
-                    .toList(); // ✅ Stream.toList()
-        } catch (IOException e) {
-            e.printStackTrace();
-            return new ArrayList<>();
-        }
+        return METRICS.time("ReportController.getRecentActivities", () -> {
+            try {
+                List<Bill> bills = loadBills();
+                return bills.stream()
+                        .map(bill -> String.format("Bill #%s by %s on %s",
+                                bill.getBillNumber(), bill.getCashierId(), bill.getDate()))
+                        .toList(); // ✅ Stream.toList()
+            } catch (IOException e) {
+                Metrics.markFailed();
+                e.printStackTrace();
+                return new ArrayList<>();
+            }
+        });
     }
 
     // ✅ remove unused parameters "start", "end"
     public double calculateInventoryValue() {
-        try {
-            List<Item> items = new InventoryController().getAllItems();
-            return items.stream()
-                    .mapToDouble(item -> item.getPurchasePrice() * item.getStockQuantity())
-                    .sum();
-        } catch (Exception e) {
-            e.printStackTrace();
-            return 0.0;
-        }
+        return METRICS.time("ReportController.calculateInventoryValue", () -> {
+            try {
+                List<Item> items = new InventoryController(sessionState).getAllItems();
+                long valueCents = 0;
+                for (Item item : items) {
+                    valueCents += Money.toCents(item.getPurchasePrice()) * item.getStockQuantity();
+                }
+                return Money.toAmount(valueCents);
+            } catch (Exception e) {
+                Metrics.markFailed();
+                e.printStackTrace();
+                return 0.0;
+            }
+        });
     }
 
     public int getTotalProducts() {
-        try {
-            List<Item> items = new InventoryController().getAllItems();
-            return items.size();
-        } catch (Exception e) {
-            e.printStackTrace();
-            return 0;
-        }
+        return METRICS.time("ReportController.getTotalProducts", () -> {
+            try {
+                List<Item> items = new InventoryController(sessionState).getAllItems();
+                return items.size();
+            } catch (Exception e) {
+                Metrics.markFailed();
+                e.printStackTrace();
+                return 0;
+            }
+        });
     }
 
     public int getActiveSectors() {
-        try {
-            List<Category> categories = new InventoryController().getAllCategories();
-            return (int) categories.stream()
-                    .map(Category::getSector)
-                    .distinct()
-                    .count();
-        } catch (Exception e) {
-            e.printStackTrace();
-            return 0;
-        }
+        return METRICS.time("ReportController.getActiveSectors", () -> {
+            try {
+                List<Category> categories = new InventoryController(sessionState).getAllCategories();
+                return (int) categories.stream()
+                        .map(Category::getSector)
+                        .distinct()
+                        .count();
+            } catch (Exception e) {
+                Metrics.markFailed();
+                e.printStackTrace();
+                return 0;
+            }
+        });
     }
 
     public List<String> getLowStockAlerts() {
-        try {
-            List<Item> lowStockItems = new InventoryController().checkLowStock();
-            return lowStockItems.stream()
-                    .map(item -> String.format("%s (%d)", item.getName(), item.getStockQuantity()))
-                    .toList(); // ✅ Stream.toList()
-        } catch (Exception e) {
-            e.printStackTrace();
-            return new ArrayList<>();
-        }
+        return METRICS.time("ReportController.getLowStockAlerts", () -> {
+            try {
+                List<Item> lowStockItems = new InventoryController(sessionState).checkLowStock();
+                return lowStockItems.stream()
+                        .map(item -> String.format("%s (%d)", item.getName(), item.getStockQuantity()))
+                        .toList(); // ✅ Stream.toList()
+            } catch (Exception e) {
+                Metrics.markFailed();
+                e.printStackTrace();
+                return new ArrayList<>();
+            }
+        });
     }
 
-	public List<String> getRecentActivities(LocalDate start, LocalDate end) {
-		// TODO Auto-generated method stub
-		return null;
-	}
+    // Bills of the period, read from the journal segments that overlap it
+    public List<String> getRecentActivities(LocalDate start, LocalDate end) {
+        return cachedReport("ReportController.getRecentActivities", "Recent Activities", start, end, () -> {
+            try {
+                return BillJournal.getInstance().readRange(start, end).stream()
+                        .map(bill -> String.format("Bill #%s by %s on %s",
+                                bill.getBillNumber(), bill.getCashierId(), bill.getDate()))
+                        .toList();
+            } catch (IOException e) {
+                Metrics.markFailed();
+                e.printStackTrace();
+                return new ArrayList<>();
+            }
+        });
+    }
 
 	public double calculateInventoryValue(LocalDate start, LocalDate end) {
 		// TODO Auto-generated method stub
@@ -1,140 +1,144 @@
 package com.electronicstore.controller;
 
+import com.electronicstore.model.persistence.UserRepository;
 import com.electronicstore.model.users.*;
-import com.electronicstore.model.utils.FileHandler;
+import com.electronicstore.model.utils.Metrics;
 import com.electronicstore.model.utils.SessionState;
 
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.util.*;
 
 public class UserManagementController {
-	private static final String USERS_FILE = "users.dat";
+    private static final Metrics METRICS = Metrics.getInstance();
+
     private final SessionState sessionState;
+    private final UserRepository users;
 
     public UserManagementController() {
-        this.sessionState = SessionState.getInstance();
+        this(SessionState.getInstance());
+    }
+
+    // Controller for one terminal's session
+    public UserManagementController(SessionState sessionState) {
+        this.sessionState = sessionState;
+        this.users = UserRepository.getInstance();
     }
 
     public boolean addUser(String username, String password, String name,
                            String email, String phone, String userType, String sector) {
- 
-
-        try {
-            List<User> users = loadUsers();
+        return METRICS.time("UserManagementController.addUser", () -> {
+            try {
+                // If this is the first user, allow creating an administrator
+                boolean isFirstUser = users.size() == 0;
+
+                // Only allow admin creation if it's the first user or if current user is admin
+                if (userType.equalsIgnoreCase("administrator")) {
+                    if (!isFirstUser && !sessionState.isLoggedIn()) {
+                        return false;
+                    }
+                    if (!isFirstUser && !sessionState.isAdministrator()) {
+                        return false;
+                    }
+                }
 
-            // If this is the first user, allow creating an administrator
-            boolean isFirstUser = users.isEmpty();
 
-            // Only allow admin creation if it's the first user or if current user is admin
-            if (userType.equalsIgnoreCase("administrator")) {
-                if (!isFirstUser && !sessionState.isLoggedIn()) {
+                // Check if username already exists
+                if (users.findByUsername(username).isPresent()) {
                     return false;
                 }
-                if (!isFirstUser && !sessionState.isAdministrator()) {
-                    return false;
+
+                String userId = "U" + UUID.randomUUID().toString().substring(0, 8);
+                User newUser;
+
+                switch (userType.toLowerCase()) {
+                    case "cashier" ->
+                            newUser = new Cashier(userId, username, password, name,
+                                    email, phone, sector);
+                    case "manager" ->
+                            newUser = new Manager(userId, username, password, name,
+                                    email, phone);
+                    case "administrator" ->
+                            newUser = new Administrator(userId, username, password, name,
+                                    email, phone);
+                    default ->
+                            throw new IllegalArgumentException("Invalid user type");
                 }
-            }
 
+                // Save the updated user list
+                users.save(newUser);
+                users.flush();
+                return true;
 
-            // Check if username already exists
-            if (users.stream().anyMatch(u -> u.getUsername().equals(username))) {
+            } catch (IOException e) {
+                Metrics.markFailed();
+                e.printStackTrace();
+                System.err.println("Error saving user: " + e.getMessage());
                 return false;
             }
+        });
+    }
 
-            String userId = "U" + UUID.randomUUID().toString().substring(0, 8);
-            User newUser;
-
-            switch (userType.toLowerCase()) {
-                case "cashier" ->
-                        newUser = new Cashier(userId, username, password, name,
-                                email, phone, sector);
-                case "manager" ->
-                        newUser = new Manager(userId, username, password, name,
-                                email, phone);
-                case "administrator" ->
-                        newUser = new Administrator(userId, username, password, name,
-                                email, phone);
-                default ->
-                        throw new IllegalArgumentException("Invalid user type");
+    public boolean updateUser(String userId, Map<String, String> updates) {
+        return METRICS.time("UserManagementController.updateUser", () -> {
+            if (!sessionState.isAdministrator()) {
+                return false;
             }
 
-            users.add(newUser);
-
-            // Ensure the data directory exists
-          Files.createDirectories(Paths.get(FileHandler.DATA_DIRECTORY));
-
-            // Save the updated user list
-            FileHandler.saveListToFile(users, USERS_FILE);
-            return true;
-
-        } catch (IOException e) {
-            e.printStackTrace();
-            System.err.println("Error saving user: " + e.getMessage());
-            return false;
-        }
-    }
+            try {
+                Optional<User> userOpt = users.findById(userId);
 
-    public boolean updateUser(String userId, Map<String, String> updates) {
-        if (!sessionState.isAdministrator()) {
-            return false;
-        }
+                if (userOpt.isPresent()) {
+                    User user = userOpt.get();
 
-        try {
-            List<User> users = loadUsers();
-            Optional<User> userOpt = users.stream()
-                    .filter(u -> u.getId().equals(userId))
-                    .findFirst();
-
-            if (userOpt.isPresent()) {
-                User user = userOpt.get();
-
-                updates.forEach((key, value) -> {
-                    switch (key) {
-                        case "name" -> user.setName(value);
-                        case "email" -> user.setEmail(value);
-                        case "phone" -> user.setPhone(value);
-                        case "password" -> user.setPassword(value);
-                    }
-                });
+                    updates.forEach((key, value) -> {
+                        switch (key) {
+                            case "name" -> user.setName(value);
+                            case "email" -> user.setEmail(value);
+                            case "phone" -> user.setPhone(value);
+                            case "password" -> user.setPassword(value);
+                        }
+                    });
 
-                FileHandler.saveListToFile(users, USERS_FILE);
-                return true;
+                    users.touch(userId);
+                    users.flush();
+                    return true;
+                }
+                return false;
+            } catch (IOException e) {
+                Metrics.markFailed();
+                e.printStackTrace();
+                return false;
             }
-            return false;
-        } catch (IOException e) {
-            e.printStackTrace();
-            return false;
-        }
+        });
     }
 
     public boolean deleteUser(String userId) {
-        if (!sessionState.isAdministrator()) {
-            return false;
-        }
-
-        try {
-            List<User> users = loadUsers();
-            boolean removed = users.removeIf(u -> u.getId().equals(userId));
+        return METRICS.time("UserManagementController.deleteUser", () -> {
+            if (!sessionState.isAdministrator()) {
+                return false;
+            }
 
-            if (removed) {
-                FileHandler.saveListToFile(users, USERS_FILE);
-                return true;
+            try {
+                if (users.delete(userId)) {
+                    users.flush();
+                    return true;
+                }
+                return false;
+            } catch (IOException e) {
+                Metrics.markFailed();
+                e.printStackTrace();
+                return false;
             }
-            return false;
-        } catch (IOException e) {
-            e.printStackTrace();
-            return false;
-        }
+        });
     }
     public List<User> getAllUsers() {
-        if (!sessionState.isAdministrator()) {
-            return new ArrayList<>();
-        }
+        return METRICS.time("UserManagementController.getAllUsers", () -> {
+            if (!sessionState.isAdministrator()) {
+                return new ArrayList<>();
+            }
 
-        return loadUsers();
+            return loadUsers();
+        });
     }
 
    /* public List<User> getAllUsers() {
@@ -151,38 +155,42 @@ public class UserManagementController {
     }
     */
     public boolean toggleUserActive(String userId) {
-        if (!sessionState.isAdministrator()) {
-            return false;
-        }
-
-        try {
-            List<User> users = loadUsers();
+        return METRICS.time("UserManagementController.toggleUserActive", () -> {
+            if (!sessionState.isAdministrator()) {
+                return false;
+            }
 
-            for (User user : users) {
-                if (user.getId().equals(userId)) {
+            try {
+                Optional<User> userOpt = users.findById(userId);
+                if (userOpt.isPresent()) {
+                    User user = userOpt.get();
                     user.setActive(!user.isActive()); // toggle
-                    FileHandler.saveListToFile(users, USERS_FILE);
+                    users.touch(userId);
+                    users.flush();
                     return true;
                 }
-            }
-            return false;
+                return false;
 
-        } catch (IOException e) {
-            e.printStackTrace();
-            return false;
-        }
+            } catch (IOException e) {
+                Metrics.markFailed();
+                e.printStackTrace();
+                return false;
+            }
+        });
     }
 
 
     public List<User> getUsersByType(String userType) {
-        if (!sessionState.isAdministrator()) {
-            return new ArrayList<>();
-        }
+        return METRICS.time("UserManagementController.getUsersByType", () -> {
+            if (!sessionState.isAdministrator()) {
+                return new ArrayList<>();
+            }
 
-        return loadUsers().stream()
-                .filter(u -> u.getClass().getSimpleName()
-                        .equalsIgnoreCase(userType))
-                .toList();
+            return loadUsers().stream()
+                    .filter(u -> u.getClass().getSimpleName()
+                            .equalsIgnoreCase(userType))
+                    .toList();
+        });
     }
 
   /*  public List<User> getUsersByType(String userType) {
@@ -202,12 +210,7 @@ public class UserManagementController {
     }
     */
     private List<User> loadUsers() {
-        try {
-            return FileHandler.readListFromFile(USERS_FILE);
-        } catch (Exception e) {
-            System.err.println("Users file missing or corrupted. Starting fresh.");
-            return new ArrayList<>();
-        }
+        return users.findAll();
     }
 
 
@@ -221,62 +224,65 @@ public class UserManagementController {
     */
 
     public boolean resetPassword(User user) {
-        if (!sessionState.isAdministrator()) {
-            return false;
-        }
+        return METRICS.time("UserManagementController.resetPassword", () -> {
+            if (!sessionState.isAdministrator()) {
+                return false;
+            }
 
-        try {
-            List<User> users = loadUsers();
-            Optional<User> userOpt = users.stream()
-                    .filter(u -> u.getId().equals(user.getId()))
-                    .findFirst();
-
-            if (userOpt.isPresent()) {
-                User foundUser = userOpt.get();
-                foundUser.setPassword("password");
-                FileHandler.saveListToFile(users, USERS_FILE);
-                return true;
+            try {
+                Optional<User> userOpt = users.findById(user.getId());
+
+                if (userOpt.isPresent()) {
+                    User foundUser = userOpt.get();
+                    foundUser.setPassword("password");
+                    users.touch(foundUser.getId());
+                    users.flush();
+                    return true;
+                }
+                return false;
+            } catch (IOException e) {
+                Metrics.markFailed();
+                e.printStackTrace();
+                return false;
             }
-            return false;
-        } catch (IOException e) {
-            e.printStackTrace();
-            return false;
-        }
+        });
     }
 
     public boolean editUser(User user, String username, String name, String email, String phone, String role, String sector) {
-        if (!sessionState.isAdministrator()) {
-            return false;
-        }
+        return METRICS.time("UserManagementController.editUser", () -> {
+            if (!sessionState.isAdministrator()) {
+                return false;
+            }
 
-        try {
-            List<User> users = loadUsers();
-            Optional<User> userOpt = users.stream()
-                    .filter(u -> u.getId().equals(user.getId()))
-                    .findFirst();
-
-            if (userOpt.isPresent()) {
-                User foundUser = userOpt.get();
-                foundUser.setUsername(username);
-                foundUser.setName(name);
-                foundUser.setEmail(email);
-                foundUser.setPhone(phone);
-
-                if (foundUser instanceof Cashier) {
-                    ((Cashier) foundUser).setSector(sector);
-                }
+            try {
+                Optional<User> userOpt = users.findById(user.getId());
 
-                //if (foundUser instanceof Manager) {
-                    //((Manager) foundUser).setRole(role);
-                //}
+                if (userOpt.isPresent()) {
+                    User foundUser = userOpt.get();
+                    foundUser.setUsername(username);
+                    foundUser.setName(name);
+                    foundUser.setEmail(email);
+                    foundUser.setPhone(phone);
 
-                FileHandler.saveListToFile(users, USERS_FILE);
-                return true;
+                    if (foundUser instanceof Cashier) {
+                        ((Cashier) foundUser).setSector(sector);
+                    }
+
+                    //if (foundUser instanceof Manager) {
+                        //((Manager) foundUser).setRole(role);
+                    //}
+
+                    // Also re-indexes the changed username
+                    users.touch(foundUser.getId());
+                    users.flush();
+                    return true;
+                }
+                return false;
+            } catch (IOException e) {
+                Metrics.markFailed();
+                e.printStackTrace();
+                return false;
             }
-            return false;
-        } catch (IOException e) {
-            e.printStackTrace();
-            return false;
-        }
+        });
     }
 }
\ No newline at end of file
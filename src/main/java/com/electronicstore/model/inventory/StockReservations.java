@@ -0,0 +1,232 @@
+package com.electronicstore.model.inventory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serializes stock changes per SKU so that concurrent tills cannot oversell.
+ *
+ * Adding a line to an open bill reserves the quantity: it is taken off the
+ * item's stock at once, under the lock of the item's stripe, and remembered
+ * against the bill. Removing the line or cancelling the bill gives it back;
+ * finalizing the bill commits it, after which the sale is final. All other
+ * stock changes go through {@link #adjust(Item, int)} so they take the same
+ * lock. Items hash onto a fixed set of stripes, so tills selling different
+ * SKUs rarely wait for each other.
+ *
+ * Reservations are kept by item ID. When the catalog is reloaded,
+ * {@link #rebase(Collection)} moves them onto the new item instances, so
+ * stock given back later lands on the items the repository now holds. The
+ * repository also reports each item it saves ({@link #track(Item)}), and
+ * reservations and adjustments given an instance the catalog has since
+ * replaced take the stock off the one it holds now for the ID.
+ */
+public class StockReservations {
+    private static final int STRIPES = 64;
+
+    private static final StockReservations INSTANCE = new StockReservations();
+
+    // One line of an open bill holding stock
+    public static final class Reservation {
+        // Replaced by rebase when the catalog is reloaded
+        private Item item;
+        private int quantity;
+
+        private Reservation(Item item) {
+            this.item = item;
+        }
+
+        public Item getItem() {
+            return item;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+    }
+
+    private final Object[] stripes = new Object[STRIPES];
+    // Bill number -> item ID -> reservation
+    private final Map<String, Map<String, Reservation>> open = new ConcurrentHashMap<>();
+    // Item ID -> quantity held by all open bills; changed under the item's stripe
+    private final Map<String, Integer> reserved = new ConcurrentHashMap<>();
+    // Item ID -> the instance the catalog holds; changed under the item's stripe
+    private final Map<String, Item> current = new ConcurrentHashMap<>();
+    // Instances the catalog held before a reload or save replaced them, by identity
+    private final Set<Item> superseded = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+    public StockReservations() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+    }
+
+    public static StockReservations getInstance() {
+        return INSTANCE;
+    }
+
+    // Takes the quantity off the stock for the bill; false when not enough is left
+    public boolean reserve(String billNumber, Item item, int quantity) {
+        if (quantity <= 0) {
+            return false;
+        }
+        synchronized (stripeOf(item)) {
+            Item held = currentOf(item);
+            if (!held.checkAvailability(quantity) || !held.updateStock(-quantity)) {
+                return false;
+            }
+            Reservation reservation = open.computeIfAbsent(billNumber, bill -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(held.getId(), id -> new Reservation(held));
+            reservation.quantity += quantity;
+            reserved.merge(held.getId(), quantity, Integer::sum);
+        }
+        return true;
+    }
+
+    // Gives a reserved quantity back to the stock
+    public void release(String billNumber, Item item, int quantity) {
+        synchronized (stripeOf(item)) {
+            Map<String, Reservation> bill = open.get(billNumber);
+            Reservation reservation = bill != null ? bill.get(item.getId()) : null;
+            if (reservation == null) {
+                return;
+            }
+            // The caller's instance may predate a reload; the reservation has the current one
+            int released = Math.min(quantity, reservation.quantity);
+            reservation.item.updateStock(released);
+            reservation.quantity -= released;
+            unreserve(item.getId(), released);
+            if (reservation.quantity == 0) {
+                bill.remove(item.getId());
+            }
+        }
+    }
+
+    // Gives back everything the bill still holds, e.g. when it is cancelled
+    public void releaseAll(String billNumber) {
+        Map<String, Reservation> bill = open.remove(billNumber);
+        if (bill == null) {
+            return;
+        }
+        for (Reservation reservation : bill.values()) {
+            synchronized (stripeOf(reservation.item)) {
+                reservation.item.updateStock(reservation.quantity);
+                unreserve(reservation.item.getId(), reservation.quantity);
+                reservation.quantity = 0;
+            }
+        }
+    }
+
+    // Makes the bill's reservations final and returns them
+    public List<Reservation> commit(String billNumber) {
+        Map<String, Reservation> bill = open.remove(billNumber);
+        if (bill == null) {
+            return new ArrayList<>();
+        }
+        for (Reservation reservation : bill.values()) {
+            synchronized (stripeOf(reservation.item)) {
+                unreserve(reservation.item.getId(), reservation.quantity);
+            }
+        }
+        return new ArrayList<>(bill.values());
+    }
+
+    /**
+     * Moves the open reservations onto freshly loaded items. The loaded stock
+     * is committed stock, which still counts what open bills hold, so that
+     * quantity is taken off again.
+     */
+    public void rebase(Collection<Item> loadedItems) {
+        for (Item item : loadedItems) {
+            synchronized (stripeOf(item)) {
+                setCurrent(item);
+                int held = reservedQuantity(item.getId());
+                if (held == 0) {
+                    continue;
+                }
+                item.setStockQuantity(item.getStockQuantity() - held);
+                for (Map<String, Reservation> bill : open.values()) {
+                    Reservation reservation = bill.get(item.getId());
+                    if (reservation != null) {
+                        reservation.item = item;
+                    }
+                }
+            }
+        }
+    }
+
+    // Makes the item the one stock is taken from and given back to, e.g. after it was saved
+    public void track(Item item) {
+        synchronized (stripeOf(item)) {
+            setCurrent(item);
+            if (reservedQuantity(item.getId()) == 0) {
+                return;
+            }
+            for (Map<String, Reservation> bill : open.values()) {
+                Reservation reservation = bill.get(item.getId());
+                if (reservation != null) {
+                    reservation.item = item;
+                }
+            }
+        }
+    }
+
+    // Drops a deleted item; later calls fall back to the instance they are given
+    public void forget(String itemId) {
+        synchronized (stripeOf(itemId)) {
+            current.remove(itemId);
+        }
+    }
+
+    // Stock change outside a bill (deliveries, corrections); false if stock would go negative
+    public boolean adjust(Item item, int delta) {
+        synchronized (stripeOf(item)) {
+            return currentOf(item).updateStock(delta);
+        }
+    }
+
+    // Quantity of the item currently held by open bills
+    public int reservedQuantity(String itemId) {
+        return reserved.getOrDefault(itemId, 0);
+    }
+
+    // Stock as if no bill were open: what is on hand plus what open bills hold
+    public int committedStock(Item item) {
+        synchronized (stripeOf(item)) {
+            return item.getStockQuantity() + reservedQuantity(item.getId());
+        }
+    }
+
+    private void unreserve(String itemId, int quantity) {
+        reserved.computeIfPresent(itemId, (id, held) -> held == quantity ? null : held - quantity);
+    }
+
+    // Both called with the item's stripe held
+    private void setCurrent(Item item) {
+        Item previous = current.put(item.getId(), item);
+        if (previous != null && previous != item) {
+            superseded.add(previous);
+        }
+    }
+
+    // The catalog's instance when the given one was replaced; items the catalog never held are used as given
+    private Item currentOf(Item item) {
+        Item held = current.get(item.getId());
+        return held != null && superseded.contains(item) ? held : item;
+    }
+
+    private Object stripeOf(Item item) {
+        return stripeOf(item.getId());
+    }
+
+    private Object stripeOf(String itemId) {
+        int hash = itemId.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+}
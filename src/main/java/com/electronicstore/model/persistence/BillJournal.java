@@ -0,0 +1,388 @@
+package com.electronicstore.model.persistence;
+
+import com.electronicstore.model.sales.Bill;
+import com.electronicstore.model.utils.FileHandler;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bill history split into one journal segment per calendar month.
+ *
+ * A bill is appended to the segment of the month it was issued in. The
+ * manifest lists the segments by month, so a date range query opens only the
+ * segments that overlap the range instead of reading the whole history. The
+ * manifest is rewritten (atomically) only when a new month starts; segments
+ * found on disk but missing from it, e.g. after a crash right after a segment
+ * was created, are picked up again when the journal is opened.
+ */
+public class BillJournal {
+    private static final Logger LOGGER = Logger.getLogger(BillJournal.class.getName());
+
+    public static final String JOURNAL_DIRECTORY = "journal";
+    public static final String MANIFEST_FILE = "manifest.txt";
+    public static final String LEGACY_JOURNAL_FILE = "bills.journal";
+    public static final String LEGACY_BILLS_FILE = "bills.dat";
+
+    private static final String SEGMENT_PREFIX = "bills-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String COLUMNS_DIRECTORY = "columns";
+    private static final int COLUMN_REBUILD_BATCH = 4096;
+
+    private static BillJournal instance;
+
+    private final Path directory;
+    private final Path manifestPath;
+    private final NavigableMap<YearMonth, JournalSegment> segments = new ConcurrentSkipListMap<>();
+    private SalesColumnStore columns;
+    private final AtomicInteger billCount = new AtomicInteger();
+
+    public BillJournal(Path directory) {
+        this.directory = directory;
+        this.manifestPath = directory.resolve(MANIFEST_FILE);
+        open();
+    }
+
+    // Process-wide journal in the data directory, migrated from the older formats on first use
+    public static synchronized BillJournal getInstance() {
+        if (instance == null) {
+            BillJournal journal = new BillJournal(FileHandler.resolve(JOURNAL_DIRECTORY));
+            journal.migrateLegacyJournal(FileHandler.resolve(LEGACY_JOURNAL_FILE));
+            journal.migrateLegacyBills(FileHandler.resolve(LEGACY_BILLS_FILE));
+            SalesRollupRepository.getInstance().reconcile(journal);
+            instance = journal;
+        }
+        return instance;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    // Number of bills in the journal
+    public int billCount() {
+        return billCount.get();
+    }
+
+    // Columnar copy of the same bills for report scans
+    public SalesColumnStore getColumns() {
+        return columns;
+    }
+
+    // Appends one bill to the segment of its month
+    public void append(Bill bill) throws IOException {
+        segmentFor(monthOf(bill)).append(bill);
+        billCount.incrementAndGet();
+        appendColumns(List.of(bill));
+    }
+
+    // Appends several bills with one fsync per month touched
+    public void appendAll(List<Bill> bills) throws IOException {
+        Map<YearMonth, List<Bill>> byMonth = new TreeMap<>();
+        for (Bill bill : bills) {
+            byMonth.computeIfAbsent(monthOf(bill), month -> new ArrayList<>()).add(bill);
+        }
+        for (Map.Entry<YearMonth, List<Bill>> entry : byMonth.entrySet()) {
+            segmentFor(entry.getKey()).appendAll(entry.getValue());
+            billCount.addAndGet(entry.getValue().size());
+        }
+        appendColumns(bills);
+    }
+
+    // The journal is the record; a failed column write is repaired by the rebuild on next open
+    private void appendColumns(List<Bill> bills) {
+        if (columns == null) {
+            return;
+        }
+        try {
+            columns.appendAll(bills);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not update sales columns", e);
+        }
+    }
+
+    // Reads the whole history, resolving items against the catalog
+    public List<Bill> readAll() throws IOException {
+        return readAll(catalogResolver());
+    }
+
+    public List<Bill> readAll(ReferenceResolver resolver) throws IOException {
+        List<Bill> bills = new ArrayList<>();
+        for (JournalSegment segment : segments.values()) {
+            bills.addAll(segment.readAll(resolver));
+        }
+        return bills;
+    }
+
+    // Receives one bill of a journal scan
+    @FunctionalInterface
+    public interface BillAction {
+        void accept(Bill bill) throws IOException;
+    }
+
+    // Visits the whole history in append order, one bill in memory at a time
+    public void forEach(BillAction action) throws IOException {
+        forEach(catalogResolver(), action);
+    }
+
+    public void forEach(ReferenceResolver resolver, BillAction action) throws IOException {
+        for (JournalSegment segment : segments.values()) {
+            segment.forEach(resolver, action);
+        }
+    }
+
+    // Reads the bills issued between the two dates (inclusive)
+    public List<Bill> readRange(LocalDate startDate, LocalDate endDate) throws IOException {
+        return readRange(startDate, endDate, catalogResolver());
+    }
+
+    public List<Bill> readRange(LocalDate startDate, LocalDate endDate, ReferenceResolver resolver)
+            throws IOException {
+        List<Bill> bills = new ArrayList<>();
+        for (JournalSegment segment : overlapping(startDate, endDate)) {
+            for (Bill bill : segment.readAll(resolver)) {
+                LocalDate date = bill.getDate();
+                if (date != null && !date.isBefore(startDate) && !date.isAfter(endDate)) {
+                    bills.add(bill);
+                }
+            }
+        }
+        return bills;
+    }
+
+    // Segment files a query for the given range has to open
+    public List<Path> segmentsFor(LocalDate startDate, LocalDate endDate) {
+        return overlapping(startDate, endDate).stream().map(JournalSegment::getPath).toList();
+    }
+
+    private Collection<JournalSegment> overlapping(LocalDate startDate, LocalDate endDate) {
+        if (startDate.isAfter(endDate)) {
+            return List.of();
+        }
+        return segments.subMap(YearMonth.from(startDate), true, YearMonth.from(endDate), true).values();
+    }
+
+    private JournalSegment segmentFor(YearMonth month) throws IOException {
+        JournalSegment segment = segments.get(month);
+        if (segment != null) {
+            return segment;
+        }
+        synchronized (this) {
+            segment = segments.get(month);
+            if (segment == null) {
+                segment = new JournalSegment(directory.resolve(segmentFileName(month)));
+                segments.put(month, segment);
+                writeManifest();
+            }
+            return segment;
+        }
+    }
+
+    private static YearMonth monthOf(Bill bill) {
+        return bill.getDateTime() != null ? YearMonth.from(bill.getDateTime()) : YearMonth.now();
+    }
+
+    private static ReferenceResolver catalogResolver() {
+        return ReferenceResolver.forCatalog(ItemRepository.getInstance().findAll());
+    }
+
+    // Loads the manifest, reconciles it with the segment files on disk and recovers each segment
+    private synchronized void open() {
+        Map<YearMonth, Path> found = new TreeMap<>();
+        boolean manifestStale = false;
+
+        if (Files.exists(manifestPath)) {
+            try {
+                for (String line : Files.readAllLines(manifestPath, StandardCharsets.UTF_8)) {
+                    String[] parts = line.split("\t");
+                    if (parts.length != 2) {
+                        continue;
+                    }
+                    Path file = directory.resolve(parts[1]);
+                    if (Files.exists(file)) {
+                        found.put(YearMonth.parse(parts[0]), file);
+                    } else {
+                        manifestStale = true;
+                    }
+                }
+            } catch (IOException | DateTimeParseException e) {
+                LOGGER.log(Level.WARNING, "Could not read bill journal manifest, rebuilding it", e);
+                found.clear();
+                manifestStale = true;
+            }
+        }
+
+        if (Files.isDirectory(directory)) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+                    SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+                for (Path file : files) {
+                    YearMonth month = monthOf(file);
+                    if (month != null && !found.containsKey(month)) {
+                        found.put(month, file);
+                        manifestStale = true;
+                    }
+                }
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not list bill journal segments", e);
+            }
+            // A month whose segment was set aside stays known, so its reads and appends fail loudly
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+                    SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX + JournalSegment.CORRUPT_SUFFIX)) {
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+                    Path segmentFile = file.resolveSibling(
+                            name.substring(0, name.length() - JournalSegment.CORRUPT_SUFFIX.length()));
+                    YearMonth month = monthOf(segmentFile);
+                    if (month != null && !found.containsKey(month)) {
+                        found.put(month, segmentFile);
+                    }
+                }
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not list quarantined bill journal segments", e);
+            }
+        }
+
+        int bills = 0;
+        for (Map.Entry<YearMonth, Path> entry : found.entrySet()) {
+            JournalSegment segment = new JournalSegment(entry.getValue());
+            bills += segment.recover();
+            segments.put(entry.getKey(), segment);
+        }
+        billCount.set(bills);
+        openColumns(bills);
+
+        if (manifestStale) {
+            try {
+                writeManifest();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not rewrite bill journal manifest", e);
+            }
+        }
+    }
+
+    // The columns are rebuilt from the journal when they missed bills (or hold extra ones)
+    private void openColumns(int journalBills) {
+        try {
+            SalesColumnStore store = new SalesColumnStore(directory.resolve(COLUMNS_DIRECTORY));
+            if (store.billCount() != journalBills) {
+                LOGGER.info("Rebuilding sales columns from " + journalBills + " journaled bills");
+                rebuildColumns(store);
+            }
+            columns = store;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Sales columns unavailable", e);
+        }
+    }
+
+    // Streams the segments into the store in bounded batches
+    private void rebuildColumns(SalesColumnStore store) throws IOException {
+        store.clear();
+        List<Bill> batch = new ArrayList<>(COLUMN_REBUILD_BATCH);
+        forEach(ReferenceResolver.forCatalog(List.of()), bill -> {
+            batch.add(bill);
+            if (batch.size() == COLUMN_REBUILD_BATCH) {
+                store.appendAll(batch);
+                batch.clear();
+            }
+        });
+        store.appendAll(batch);
+    }
+
+    private synchronized void writeManifest() throws IOException {
+        StringBuilder manifest = new StringBuilder();
+        segments.forEach((month, segment) -> manifest.append(month).append('\t')
+                .append(segment.getPath().getFileName()).append('\n'));
+        FileHandler.writeTextAtomically(manifestPath, manifest.toString());
+    }
+
+    private static String segmentFileName(YearMonth month) {
+        return SEGMENT_PREFIX + month + SEGMENT_SUFFIX;
+    }
+
+    private static YearMonth monthOf(Path segmentFile) {
+        String name = segmentFile.getFileName().toString();
+        try {
+            return YearMonth.parse(name.substring(SEGMENT_PREFIX.length(),
+                    name.length() - SEGMENT_SUFFIX.length()));
+        } catch (DateTimeParseException | IndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+    // One-time split of the single-file journal into monthly segments
+    synchronized void migrateLegacyJournal(Path legacyFile) {
+        if (!Files.exists(legacyFile)) {
+            return;
+        }
+
+        try {
+            JournalSegment legacy = new JournalSegment(legacyFile);
+            legacy.recover();
+            int migrated = appendMissing(legacy.readAll(catalogResolver()));
+            LOGGER.info("Migrated " + migrated + " bills from " + legacyFile + " into monthly segments");
+            Files.move(legacyFile, legacyFile.resolveSibling(legacyFile.getFileName() + ".migrated"),
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not migrate legacy bill journal " + legacyFile, e);
+        }
+    }
+
+    // One-time import of the old whole-file bills.dat; the file is set aside once its bills are synced
+    synchronized void migrateLegacyBills(Path legacyFile) {
+        if (!Files.exists(legacyFile)) {
+            return;
+        }
+
+        try {
+            List<Bill> legacyBills = FileHandler.readListFromFile(legacyFile);
+            int migrated = appendMissing(legacyBills);
+            LOGGER.info("Migrated " + migrated + " bills from " + legacyFile + " into the journal");
+            Files.move(legacyFile, legacyFile.resolveSibling(legacyFile.getFileName() + ".migrated"),
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            LOGGER.log(Level.WARNING, "Could not migrate legacy bills file " + legacyFile, e);
+        }
+    }
+
+    /**
+     * Appends the imported bills the journal does not have yet, by bill
+     * number, and returns how many that were. An import cut short by a crash
+     * or a failed write is finished by the next start instead of being
+     * skipped or duplicated. Only the segments of the months the import
+     * touches are read.
+     */
+    private int appendMissing(List<Bill> imported) throws IOException {
+        Set<String> journaled = new HashSet<>();
+        Set<YearMonth> months = new TreeSet<>();
+        for (Bill bill : imported) {
+            months.add(monthOf(bill));
+        }
+        for (YearMonth month : months) {
+            JournalSegment segment = segments.get(month);
+            if (segment != null) {
+                segment.forEach(ReferenceResolver.forCatalog(List.of()), bill -> journaled.add(bill.getBillNumber()));
+            }
+        }
+
+        List<Bill> missing = new ArrayList<>();
+        for (Bill bill : imported) {
+            if (journaled.add(bill.getBillNumber())) {
+                missing.add(bill);
+            }
+        }
+        appendAll(missing);
+        return missing.size();
+    }
+}
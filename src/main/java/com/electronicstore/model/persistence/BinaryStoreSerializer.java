@@ -0,0 +1,79 @@
+package com.electronicstore.model.persistence;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary list format built on ModelCodec.
+ *
+ * Layout (version 2): [int magic][short version][reference table][int count]
+ * followed by count tagged records. Version 1 files have no reference table.
+ */
+public class BinaryStoreSerializer implements StoreSerializer {
+    static final int MAGIC = 0x45534231; // "ESB1"
+    static final short VERSION = 2;
+    private static final short VERSION_INLINE = 1;
+
+    @Override
+    public String getName() {
+        return "binary";
+    }
+
+    @Override
+    public boolean canWrite(List<?> list) {
+        for (Object value : list) {
+            if (!ModelCodec.supports(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean canRead(byte[] header) {
+        return header.length >= 4
+                && ((header[0] & 0xFF) << 24 | (header[1] & 0xFF) << 16
+                | (header[2] & 0xFF) << 8 | (header[3] & 0xFF)) == MAGIC;
+    }
+
+    @Override
+    public void writeList(List<?> list, OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeShort(VERSION);
+
+        ReferenceTable table = ReferenceTable.collect(list);
+        table.write(data);
+
+        data.writeInt(list.size());
+        for (Object value : list) {
+            ModelCodec.write(data, value, table);
+        }
+        data.flush();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> List<T> readList(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) {
+            throw new StreamCorruptedException("Not a binary store file");
+        }
+        short version = data.readShort();
+        if (version != VERSION && version != VERSION_INLINE) {
+            throw new StreamCorruptedException("Unsupported binary store version: " + version);
+        }
+
+        // One resolver per file: every category and supplier is decoded once and shared
+        ReferenceResolver resolver = new ReferenceResolver();
+        ReferenceTable table = version == VERSION ? ReferenceTable.read(data, resolver) : null;
+
+        int count = data.readInt();
+        List<T> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            list.add((T) ModelCodec.read(data, table, resolver));
+        }
+        return list;
+    }
+}
@@ -0,0 +1,18 @@
+package com.electronicstore.model.persistence;
+
+import com.electronicstore.model.inventory.Category;
+
+// In-memory view of categories.dat shared by all controllers
+public class CategoryRepository extends FileRepository<Category> {
+    public static final String CATEGORIES_FILE = "categories.dat";
+
+    private static final CategoryRepository INSTANCE = new CategoryRepository();
+
+    private CategoryRepository() {
+        super(CATEGORIES_FILE, Category::getId);
+    }
+
+    public static CategoryRepository getInstance() {
+        return INSTANCE;
+    }
+}
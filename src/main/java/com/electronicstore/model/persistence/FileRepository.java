@@ -0,0 +1,285 @@
+package com.electronicstore.model.persistence;
+
+import com.electronicstore.model.utils.FileHandler;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Process-wide, ID-keyed in-memory copy of one list file.
+ *
+ * The file is deserialized once; reads are served from memory and only stat the
+ * file to notice edits made outside the repository (other tools, tests), once
+ * per call, so loops over many IDs should take one {@link #findAllById()}.
+ * Writes mark the repository dirty and are flushed in one batch by a
+ * background task every {@value #FLUSH_INTERVAL_PROPERTY} milliseconds
+ * (default 500, 0 means write-through) and once more at JVM shutdown. If the
+ * file changes on disk while changes are pending, the two are merged by ID:
+ * entries saved or deleted here keep their pending state, all others come
+ * from the file. After {@link #replaceAll(Collection)} or a requested flush
+ * the whole content is pending and overwrites the file.
+ */
+public abstract class FileRepository<T extends Serializable> {
+    private static final Logger LOGGER = Logger.getLogger(FileRepository.class.getName());
+
+    public static final String FLUSH_INTERVAL_PROPERTY = "electronicstore.flushIntervalMs";
+    private static final long FLUSH_INTERVAL_MS = Long.getLong(FLUSH_INTERVAL_PROPERTY, 500L);
+
+    private static final List<FileRepository<?>> REPOSITORIES = new CopyOnWriteArrayList<>();
+    private static ScheduledExecutorService flusher;
+
+    private final String filename;
+    private final Path path;
+    private final Function<T, String> idOf;
+    private final Map<String, T> entries = new LinkedHashMap<>();
+    private String loadedStamp;
+    private boolean loaded;
+    private boolean dirty;
+    // What is pending while dirty: saved and deleted IDs, or the whole content
+    private final Set<String> saved = new HashSet<>();
+    private final Set<String> deleted = new HashSet<>();
+    private boolean wholeContent;
+    private long modCount;
+
+    protected FileRepository(String filename, Function<T, String> idOf) {
+        this.filename = filename;
+        this.path = FileHandler.resolve(filename);
+        this.idOf = idOf;
+        register(this);
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    // Snapshot of all entries in file order; the list itself may be modified by the caller
+    public synchronized List<T> findAll() {
+        ensureFresh();
+        return new ArrayList<>(entries.values());
+    }
+
+    public synchronized Optional<T> findById(String id) {
+        ensureFresh();
+        return Optional.ofNullable(entries.get(id));
+    }
+
+    // Snapshot of all entries by ID, for lookups in a loop; checks the file once
+    public synchronized Map<String, T> findAllById() {
+        ensureFresh();
+        return new HashMap<>(entries);
+    }
+
+    public synchronized int size() {
+        ensureFresh();
+        return entries.size();
+    }
+
+    // Inserts or replaces the entry with the same ID
+    public synchronized void save(T entry) {
+        ensureFresh();
+        String id = idOf.apply(entry);
+        entries.put(id, entry);
+        markSaved(id);
+    }
+
+    // Replaces an existing entry; returns false when the ID is unknown
+    public synchronized boolean replace(T entry) {
+        ensureFresh();
+        String id = idOf.apply(entry);
+        if (!entries.containsKey(id)) {
+            return false;
+        }
+        entries.put(id, entry);
+        markSaved(id);
+        return true;
+    }
+
+    public synchronized boolean delete(String id) {
+        ensureFresh();
+        if (entries.remove(id) == null) {
+            return false;
+        }
+        saved.remove(id);
+        deleted.add(id);
+        markDirty();
+        return true;
+    }
+
+    // Replaces the whole content, e.g. after rebuilding derived data
+    public synchronized void replaceAll(Collection<T> replacement) {
+        ensureFresh();
+        entries.clear();
+        for (T entry : replacement) {
+            entries.put(idOf.apply(entry), entry);
+        }
+        wholeContent = true;
+        markDirty();
+    }
+
+    // Records an in-place change to an entry that was obtained from this repository
+    public synchronized void touch(String id) {
+        ensureFresh();
+        if (entries.containsKey(id)) {
+            markSaved(id);
+        }
+    }
+
+    // Adds an entry the subclass persists by other means; it is only written with the whole content
+    protected synchronized void cache(T entry) {
+        entries.put(idOf.apply(entry), entry);
+        modCount++;
+    }
+
+    // Changes whenever the content changes, through this repository or on disk
+    protected synchronized long modCount() {
+        ensureFresh();
+        return modCount;
+    }
+
+    // Marks the whole content for the next flush
+    protected synchronized void requestFlush() {
+        ensureFresh();
+        wholeContent = true;
+        markDirty();
+    }
+
+    // Writes pending changes now, merged with the file if it was changed on disk
+    public synchronized void flush() throws IOException {
+        if (!dirty) {
+            return;
+        }
+        ensureFresh();
+        loadedStamp = write(new ArrayList<>(entries.values()));
+        clearPending();
+    }
+
+    // Writes the entries to the file and returns its new stamp
+    protected String write(List<T> snapshot) throws IOException {
+        FileHandler.saveListToFile(snapshot, filename);
+        return stampOf(path);
+    }
+
+    // Called after the file was (re)read, with the entries in file order
+    protected void afterLoad(Collection<T> loadedEntries, String stamp) {
+    }
+
+    public static void flushAll() {
+        for (FileRepository<?> repository : REPOSITORIES) {
+            try {
+                repository.flush();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not flush " + repository.filename, e);
+            }
+        }
+    }
+
+    private void markSaved(String id) {
+        deleted.remove(id);
+        saved.add(id);
+        markDirty();
+    }
+
+    private void clearPending() {
+        dirty = false;
+        saved.clear();
+        deleted.clear();
+        wholeContent = false;
+    }
+
+    private void markDirty() {
+        dirty = true;
+        modCount++;
+        if (FLUSH_INTERVAL_MS <= 0) {
+            try {
+                flush();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not write " + filename, e);
+            }
+        }
+    }
+
+    // Reloads when the file was never read or was replaced behind our back
+    private void ensureFresh() {
+        String stamp = stampOf(path);
+        if (loaded && Objects.equals(stamp, loadedStamp)) {
+            return;
+        }
+        if (dirty && wholeContent) {
+            LOGGER.warning(filename + " was changed on disk; the pending content will overwrite it");
+            loadedStamp = stamp;
+            modCount++;
+            return;
+        }
+
+        Map<String, T> pending = new HashMap<>();
+        if (dirty) {
+            LOGGER.warning(filename + " was changed on disk; merging " + (saved.size() + deleted.size())
+                    + " unflushed changes into it");
+            for (String id : saved) {
+                pending.put(id, entries.get(id));
+            }
+        }
+
+        entries.clear();
+        List<T> fromFile = new ArrayList<>();
+        try {
+            List<T> list = FileHandler.readListFromFile(filename);
+            for (T entry : list) {
+                String id = idOf.apply(entry);
+                if (!pending.containsKey(id) && !deleted.contains(id)) {
+                    fromFile.add(entry);
+                }
+                entries.put(id, entry);
+            }
+        } catch (IOException | ClassNotFoundException e) {
+            // Missing or unreadable file: start empty, as the controllers always did
+            if (stamp != null) {
+                LOGGER.log(Level.WARNING, "Could not read " + filename + ", starting empty", e);
+            }
+        }
+        // Pending entries already went through afterLoad when they were first read or saved
+        afterLoad(fromFile, stamp);
+        entries.putAll(pending);
+        entries.keySet().removeAll(deleted);
+        loadedStamp = stamp;
+        loaded = true;
+        modCount++;
+    }
+
+    // Identity of the file contents on disk, or null when the file does not exist
+    static String stampOf(Path path) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return attributes.fileKey() + "|" + attributes.size() + "|" + attributes.lastModifiedTime();
+        } catch (IOException e) {
+            // NoSuchFileException included: a missing file has no stamp
+            return null;
+        }
+    }
+
+    private static synchronized void register(FileRepository<?> repository) {
+        REPOSITORIES.add(repository);
+        if (flusher != null || FLUSH_INTERVAL_MS <= 0) {
+            return;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "repository-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(FileRepository::flushAll,
+                FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(FileRepository::flushAll, "repository-shutdown-flush"));
+    }
+}
@@ -0,0 +1,684 @@
+package com.electronicstore.model.persistence;
+
+import com.electronicstore.model.utils.FileHandler;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Append-only history of stock changes, kept in inventory_ledger.log.
+ *
+ * Unlike the {@link StockMovementLog}, which is folded into items.dat and
+ * restarted, the ledger is never truncated. An item's history starts with a
+ * snapshot of its stock and continues with its movements; a new snapshot is
+ * written every {@value #SNAPSHOT_INTERVAL} movements of the item and
+ * whenever the catalog's stock disagrees with the ledger (an edit in the
+ * inventory screen, or items.dat replaced on disk).
+ *
+ * The history stays on disk. Every record carries the item's stock after it
+ * and the offset of the item's previous record, and memory only holds an
+ * index: per item its current stock and the offsets of its snapshots, plus
+ * the offset of every {@value #TIME_INDEX_INTERVAL}th movement by time.
+ * {@link #stockAt(String, Instant)} walks back from the first snapshot after
+ * the instant, so it reads at most about {@value #SNAPSHOT_INTERVAL} records,
+ * and {@link #stockMovements(Instant, Instant)} reads the range from the
+ * nearest indexed movement on. The index is saved next to the ledger when it
+ * is opened, so the next open only reads what was appended since. The ledger
+ * follows committed stock: quantities held by open bills count as stock until
+ * the bill is finalized.
+ *
+ * History is never deleted. A version 1 ledger is rewritten in the current
+ * format on open, and a file that is not a ledger at all is renamed with the
+ * {@value #CORRUPT_SUFFIX} suffix; either way the original bytes stay on disk.
+ */
+public class InventoryLedger {
+    private static final Logger LOGGER = Logger.getLogger(InventoryLedger.class.getName());
+
+    public static final String LEDGER_FILE = "inventory_ledger.log";
+    public static final String INDEX_SUFFIX = ".idx";
+    public static final String CORRUPT_SUFFIX = ".corrupt";
+    public static final String VERSION_1_SUFFIX = ".v1";
+    public static final int SNAPSHOT_INTERVAL = 256;
+    public static final int TIME_INDEX_INTERVAL = 256;
+
+    private static final int MAGIC = 0x45534C31; // "ESL1"
+    private static final int INDEX_MAGIC = 0x45534C49; // "ESLI"
+    // 2: records carry the stock after them and the item's previous record
+    private static final int VERSION = 2;
+    private static final int FILE_HEADER_SIZE = 8;
+    private static final int NO_HEADER = -1;
+    private static final int MAX_RECORD_SIZE = 64 * 1024;
+
+    private static final byte SNAPSHOT = 1;
+    private static final byte MOVEMENT = 2;
+
+    // One record as read from or written to the file
+    private record Entry(byte type, String itemId, int delta, int stock, String billNumber, long time,
+                         long previous) {
+        StockMovementLog.Movement toMovement() {
+            return new StockMovementLog.Movement(itemId, delta, billNumber, Instant.ofEpochMilli(time));
+        }
+    }
+
+    // Where one item's history is in the file
+    private static final class ItemIndex {
+        private long[] snapshotTimes = new long[4];
+        private long[] snapshotOffsets = new long[4];
+        private int snapshots;
+        private int current;
+        private long lastTime;
+        private long lastOffset = -1;
+        private int sinceSnapshot;
+
+        void addSnapshot(long time, long offset) {
+            if (snapshots == snapshotTimes.length) {
+                snapshotTimes = Arrays.copyOf(snapshotTimes, snapshots * 2);
+                snapshotOffsets = Arrays.copyOf(snapshotOffsets, snapshots * 2);
+            }
+            snapshotTimes[snapshots] = time;
+            snapshotOffsets[snapshots] = offset;
+            snapshots++;
+        }
+
+        // Index of the first snapshot after the time, or snapshots when there is none
+        int firstSnapshotAfter(long time) {
+            int low = 0;
+            int high = snapshots;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (snapshotTimes[mid] <= time) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    private final Path path;
+    private final Path indexPath;
+    private final Map<String, ItemIndex> items = new HashMap<>();
+    // Time and offset of every TIME_INDEX_INTERVAL-th movement
+    private long[] indexTimes = new long[64];
+    private long[] indexOffsets = new long[64];
+    private int indexSize;
+    private int movementCount;
+    private long lastTime = Long.MIN_VALUE;
+    // End of the last whole record, and where that record starts
+    private long length;
+    private long lastRecord = -1;
+
+    public InventoryLedger(Path path) {
+        this.path = path;
+        this.indexPath = path.resolveSibling(path.getFileName() + INDEX_SUFFIX);
+        load();
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Starts or re-anchors the item's history with the given stock. Nothing is
+     * written when the ledger already has the item at that stock; when the
+     * write fails the ledger keeps the old stock, so the next call retries.
+     */
+    public synchronized void recordSnapshot(String itemId, int stock) {
+        ItemIndex item = items.get(itemId);
+        if (item != null && item.current == stock) {
+            return;
+        }
+        long time = Math.max(lastTime, System.currentTimeMillis());
+        try {
+            appendSnapshot(itemId, stock, time);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not write inventory ledger snapshot", e);
+        }
+    }
+
+    /**
+     * Appends movements that have just been applied to the stock. Movements of
+     * items without a history (not in the catalog) are kept for range queries
+     * only. Nothing is added to the history when the write fails. The write is
+     * not synced; call {@link #sync()} outside any lock.
+     */
+    public synchronized void record(List<StockMovementLog.Movement> applied) throws IOException {
+        ensureHeader();
+        ByteArrayOutputStream records = new ByteArrayOutputStream(64 * applied.size());
+        DataOutputStream out = new DataOutputStream(records);
+        List<Entry> entries = new ArrayList<>(applied.size());
+        List<Long> offsets = new ArrayList<>(applied.size());
+        // Stock and record offset of items moved earlier in this batch
+        Map<String, Integer> batchStock = new HashMap<>();
+        Map<String, Long> batchOffset = new HashMap<>();
+        long offset = length;
+        long time = lastTime;
+        for (StockMovementLog.Movement movement : applied) {
+            time = Math.max(time, movement.getTimestamp().toEpochMilli());
+            String itemId = movement.getItemId();
+            ItemIndex item = items.get(itemId);
+            int stock = 0;
+            long previous = -1;
+            if (item != null) {
+                stock = batchStock.getOrDefault(itemId, item.current) + movement.getDelta();
+                previous = batchOffset.getOrDefault(itemId, item.lastOffset);
+            }
+            Entry entry = new Entry(MOVEMENT, itemId, movement.getDelta(), stock, movement.getBillNumber(),
+                    time, previous);
+            byte[] payload = encode(entry);
+            Records.write(out, payload);
+            entries.add(entry);
+            offsets.add(offset);
+            batchStock.put(itemId, stock);
+            batchOffset.put(itemId, offset);
+            offset += Records.HEADER_SIZE + payload.length;
+        }
+
+        write(records.toByteArray());
+        Set<String> dueSnapshots = new LinkedHashSet<>();
+        for (int i = 0; i < entries.size(); i++) {
+            if (apply(entries.get(i), offsets.get(i))) {
+                dueSnapshots.add(entries.get(i).itemId());
+            }
+        }
+        for (String itemId : dueSnapshots) {
+            appendSnapshot(itemId, items.get(itemId).current, lastTime);
+        }
+    }
+
+    // fsync the ledger; concurrent requests share one fsync
+    public void sync() throws IOException {
+        if (Files.exists(path)) {
+            FileHandler.syncFile(path);
+        }
+    }
+
+    // Stock of the item at the instant, or empty when the ledger has no history for it by then
+    public synchronized OptionalInt stockAt(String itemId, Instant instant) {
+        ItemIndex item = items.get(itemId);
+        long time = millis(instant);
+        if (item == null || item.snapshots == 0 || time < item.snapshotTimes[0]) {
+            return OptionalInt.empty();
+        }
+        if (time >= item.lastTime) {
+            return OptionalInt.of(item.current);
+        }
+
+        // Back from the first snapshot after the instant to the last event at or before it
+        int next = item.firstSnapshotAfter(time);
+        long offset = next < item.snapshots ? item.snapshotOffsets[next] : item.lastOffset;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (offset >= 0) {
+                byte[] payload = Records.readAt(channel, offset, MAX_RECORD_SIZE);
+                if (payload == null) {
+                    throw new IOException("Damaged inventory ledger record at offset " + offset);
+                }
+                Entry entry = decode(payload);
+                if (entry.time() <= time) {
+                    return OptionalInt.of(entry.stock());
+                }
+                offset = entry.previous();
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not read inventory ledger", e);
+        }
+        return OptionalInt.empty();
+    }
+
+    // Movements with start <= timestamp < end, in time order
+    public synchronized List<StockMovementLog.Movement> stockMovements(Instant start, Instant end) {
+        long from = millis(start);
+        long to = millis(end);
+        List<StockMovementLog.Movement> range = new ArrayList<>();
+        if (indexSize == 0 || from >= to) {
+            return range;
+        }
+
+        // Every movement before the last indexed one earlier than the range is earlier too
+        int block = lastIndexedBefore(from);
+        long position = indexOffsets[Math.max(block, 0)];
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    Channels.newInputStream(channel.position(position))));
+            while (position < length) {
+                byte[] payload = Records.read(in, MAX_RECORD_SIZE);
+                if (payload == null) {
+                    throw new IOException("Damaged inventory ledger record at offset " + position);
+                }
+                position += Records.HEADER_SIZE + payload.length;
+                Entry entry = decode(payload);
+                if (entry.type() != MOVEMENT || entry.time() < from) {
+                    continue;
+                }
+                if (entry.time() >= to) {
+                    break;
+                }
+                range.add(entry.toMovement());
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not read inventory ledger", e);
+        }
+        return range;
+    }
+
+    public synchronized int movementCount() {
+        return movementCount;
+    }
+
+    // Last time index entry before the time, or -1
+    private int lastIndexedBefore(long time) {
+        int low = 0;
+        int high = indexSize - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (indexTimes[mid] < time) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+    // Instant.MIN and Instant.MAX are allowed as open range ends
+    private static long millis(Instant instant) {
+        try {
+            return instant.toEpochMilli();
+        } catch (ArithmeticException e) {
+            return instant.isBefore(Instant.EPOCH) ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+    }
+
+    private void appendSnapshot(String itemId, int stock, long time) throws IOException {
+        ensureHeader();
+        ItemIndex item = items.get(itemId);
+        Entry entry = new Entry(SNAPSHOT, itemId, 0, stock, null, time, item != null ? item.lastOffset : -1);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        Records.write(new DataOutputStream(bytes), encode(entry));
+        long offset = length;
+        write(bytes.toByteArray());
+        apply(entry, offset);
+    }
+
+    // Adds a record that is in the file to the index; returns true when the item is due for a snapshot
+    private boolean apply(Entry entry, long offset) {
+        lastTime = Math.max(lastTime, entry.time());
+        lastRecord = offset;
+        ItemIndex item = items.get(entry.itemId());
+        if (entry.type() == SNAPSHOT) {
+            if (item == null) {
+                item = new ItemIndex();
+                items.put(entry.itemId(), item);
+            }
+            item.addSnapshot(entry.time(), offset);
+            item.sinceSnapshot = 0;
+        } else {
+            if (movementCount % TIME_INDEX_INTERVAL == 0) {
+                addTimeIndex(entry.time(), offset);
+            }
+            movementCount++;
+            if (item == null) {
+                return false;
+            }
+            item.sinceSnapshot++;
+        }
+        item.current = entry.stock();
+        item.lastTime = entry.time();
+        item.lastOffset = offset;
+        return item.sinceSnapshot >= SNAPSHOT_INTERVAL;
+    }
+
+    private void addTimeIndex(long time, long offset) {
+        if (indexSize == indexTimes.length) {
+            indexTimes = Arrays.copyOf(indexTimes, indexSize * 2);
+            indexOffsets = Arrays.copyOf(indexOffsets, indexSize * 2);
+        }
+        indexTimes[indexSize] = time;
+        indexOffsets[indexSize] = offset;
+        indexSize++;
+    }
+
+    private void ensureHeader() throws IOException {
+        if (length >= FILE_HEADER_SIZE && Files.exists(path)) {
+            return;
+        }
+        if (Files.exists(path) && Files.size(path) >= FILE_HEADER_SIZE) {
+            // The file has history that could not be loaded; never write over it
+            throw new IOException("Inventory ledger was not loaded, refusing to write to " + path);
+        }
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).flip();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+        }
+        Files.deleteIfExists(indexPath);
+        reset();
+        length = FILE_HEADER_SIZE;
+    }
+
+    // Writes whole records at the end; a failed write is cut off again so offsets stay right
+    private void write(byte[] records) throws IOException {
+        if (records.length == 0) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(records);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            try {
+                channel.position(length);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } catch (IOException e) {
+                try {
+                    channel.truncate(length);
+                } catch (IOException truncateFailure) {
+                    e.addSuppressed(truncateFailure);
+                }
+                throw e;
+            }
+        }
+        length += records.length;
+    }
+
+    private void reset() {
+        items.clear();
+        indexSize = 0;
+        movementCount = 0;
+        lastTime = Long.MIN_VALUE;
+        length = 0;
+        lastRecord = -1;
+    }
+
+    // Reads the saved index and then the records appended after it, cutting off a torn tail
+    private void load() {
+        if (!Files.exists(path)) {
+            deleteIndex();
+            return;
+        }
+        try {
+            int version = fileVersion();
+            if (version == 1) {
+                migrateVersion1();
+            } else if (version != VERSION && version != NO_HEADER) {
+                setAside(CORRUPT_SUFFIX);
+            }
+        } catch (IOException e) {
+            // Left as it is; ensureHeader refuses to write over it until it is dealt with
+            LOGGER.log(Level.SEVERE, "Could not convert or set aside inventory ledger " + path, e);
+            return;
+        }
+        if (!Files.exists(path)) {
+            return;
+        }
+
+        long validLength;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+            if (channel.read(header, 0) < FILE_HEADER_SIZE) {
+                LOGGER.warning("Inventory ledger is shorter than its header, starting a new one: " + path);
+                validLength = 0;
+            } else if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                // Replaced since the version check; leave it alone, ensureHeader refuses to write over it
+                LOGGER.severe("Inventory ledger has an unexpected header, not loading it: " + path);
+                return;
+            } else {
+                if (!loadIndex(channel)) {
+                    reset();
+                    length = FILE_HEADER_SIZE;
+                }
+                long indexed = length;
+                DataInputStream in = new DataInputStream(new BufferedInputStream(
+                        Channels.newInputStream(channel.position(length))));
+                byte[] payload;
+                while ((payload = Records.read(in, MAX_RECORD_SIZE)) != null) {
+                    apply(decode(payload), length);
+                    length += Records.HEADER_SIZE + payload.length;
+                }
+                validLength = length;
+                if (length > indexed || !Files.exists(indexPath)) {
+                    saveIndex();
+                }
+            }
+        } catch (IOException e) {
+            // Half an index would put the next append over records that were not read
+            LOGGER.log(Level.WARNING, "Inventory ledger scan failed", e);
+            reset();
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            if (channel.size() > validLength) {
+                LOGGER.warning("Truncating torn tail of inventory ledger at offset " + validLength);
+                channel.truncate(validLength);
+                channel.force(true);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not truncate inventory ledger", e);
+        }
+    }
+
+    // Version in the file header, 0 for a foreign file, NO_HEADER when it is shorter than a header
+    private int fileVersion() throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+            if (channel.read(header, 0) < FILE_HEADER_SIZE) {
+                return NO_HEADER;
+            }
+            return header.getInt(0) == MAGIC ? header.getInt(4) : 0;
+        }
+    }
+
+    // Keeps the file for inspection under another name; the ledger starts again with fresh snapshots
+    private void setAside(String suffix) throws IOException {
+        Path aside = path.resolveSibling(path.getFileName() + suffix);
+        if (Files.exists(aside)) {
+            aside = path.resolveSibling(path.getFileName() + suffix + "." + System.currentTimeMillis());
+        }
+        Files.move(path, aside);
+        deleteIndex();
+        LOGGER.severe("Inventory ledger could not be read as version " + VERSION + "; moved it to " + aside);
+    }
+
+    /**
+     * Rewrites a version 1 ledger, whose records had neither the stock after
+     * them nor back pointers, in the current format. The original is kept
+     * next to it with the {@value #VERSION_1_SUFFIX} suffix.
+     */
+    private void migrateVersion1() throws IOException {
+        Path migrating = path.resolveSibling(path.getFileName() + ".migrating");
+        Files.deleteIfExists(migrating);
+        Files.deleteIfExists(migrating.resolveSibling(migrating.getFileName() + INDEX_SUFFIX));
+        InventoryLedger target = new InventoryLedger(migrating);
+        int records = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            in.readInt();
+            in.readInt();
+            List<StockMovementLog.Movement> batch = new ArrayList<>();
+            byte[] payload;
+            while ((payload = Records.read(in, MAX_RECORD_SIZE)) != null) {
+                DataInputStream record = new DataInputStream(new ByteArrayInputStream(payload));
+                byte type = record.readByte();
+                String itemId = record.readUTF();
+                if (type == SNAPSHOT) {
+                    int stock = record.readInt();
+                    long time = record.readLong();
+                    target.record(batch);
+                    batch.clear();
+                    target.appendSnapshot(itemId, stock, Math.max(target.lastTime, time));
+                } else if (type == MOVEMENT) {
+                    int delta = record.readInt();
+                    String billNumber = record.readUTF();
+                    long time = record.readLong();
+                    batch.add(new StockMovementLog.Movement(itemId, delta,
+                            billNumber.isEmpty() ? null : billNumber, Instant.ofEpochMilli(time)));
+                    if (batch.size() >= TIME_INDEX_INTERVAL) {
+                        target.record(batch);
+                        batch.clear();
+                    }
+                } else {
+                    throw new IOException("Unexpected record in version 1 inventory ledger");
+                }
+                records++;
+            }
+            target.record(batch);
+        }
+        FileHandler.syncFile(migrating);
+
+        // Copy first, so there is always a ledger under the real name
+        Path original = path.resolveSibling(path.getFileName() + VERSION_1_SUFFIX);
+        Files.copy(path, original, StandardCopyOption.REPLACE_EXISTING);
+        Files.move(migrating, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.deleteIfExists(migrating.resolveSibling(migrating.getFileName() + INDEX_SUFFIX));
+        deleteIndex();
+        LOGGER.info("Migrated " + records + " inventory ledger records to version " + VERSION
+                + "; the original is kept in " + original);
+    }
+
+    // Restores the index saved by an earlier open; false when there is none or it does not fit the file
+    private boolean loadIndex(FileChannel ledger) {
+        if (!Files.exists(indexPath)) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexPath)))) {
+            if (in.readInt() != INDEX_MAGIC || in.readInt() != VERSION) {
+                return false;
+            }
+            length = in.readLong();
+            lastRecord = in.readLong();
+            lastTime = in.readLong();
+            movementCount = in.readInt();
+            indexSize = in.readInt();
+            indexTimes = new long[Math.max(64, indexSize)];
+            indexOffsets = new long[indexTimes.length];
+            for (int i = 0; i < indexSize; i++) {
+                indexTimes[i] = in.readLong();
+                indexOffsets[i] = in.readLong();
+            }
+            int itemCount = in.readInt();
+            for (int i = 0; i < itemCount; i++) {
+                String itemId = in.readUTF();
+                ItemIndex item = new ItemIndex();
+                item.current = in.readInt();
+                item.lastTime = in.readLong();
+                item.lastOffset = in.readLong();
+                item.sinceSnapshot = in.readInt();
+                int snapshots = in.readInt();
+                item.snapshotTimes = new long[Math.max(4, snapshots)];
+                item.snapshotOffsets = new long[item.snapshotTimes.length];
+                for (int s = 0; s < snapshots; s++) {
+                    item.snapshotTimes[s] = in.readLong();
+                    item.snapshotOffsets[s] = in.readLong();
+                }
+                item.snapshots = snapshots;
+                items.put(itemId, item);
+            }
+            // The last indexed record must still end exactly where the index stopped
+            if (length == FILE_HEADER_SIZE && lastRecord < 0) {
+                return true;
+            }
+            byte[] last = lastRecord >= FILE_HEADER_SIZE
+                    ? Records.readAt(ledger, lastRecord, MAX_RECORD_SIZE) : null;
+            if (last != null && lastRecord + Records.HEADER_SIZE + last.length == length) {
+                return true;
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not read inventory ledger index, rebuilding it", e);
+        }
+        LOGGER.info("Inventory ledger index does not match the ledger, rebuilding it");
+        return false;
+    }
+
+    private void deleteIndex() {
+        try {
+            Files.deleteIfExists(indexPath);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not delete inventory ledger index", e);
+        }
+    }
+
+    private void saveIndex() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + 64 * items.size());
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(length);
+            out.writeLong(lastRecord);
+            out.writeLong(lastTime);
+            out.writeInt(movementCount);
+            out.writeInt(indexSize);
+            for (int i = 0; i < indexSize; i++) {
+                out.writeLong(indexTimes[i]);
+                out.writeLong(indexOffsets[i]);
+            }
+            out.writeInt(items.size());
+            for (Map.Entry<String, ItemIndex> entry : items.entrySet()) {
+                ItemIndex item = entry.getValue();
+                out.writeUTF(entry.getKey());
+                out.writeInt(item.current);
+                out.writeLong(item.lastTime);
+                out.writeLong(item.lastOffset);
+                out.writeInt(item.sinceSnapshot);
+                out.writeInt(item.snapshots);
+                for (int s = 0; s < item.snapshots; s++) {
+                    out.writeLong(item.snapshotTimes[s]);
+                    out.writeLong(item.snapshotOffsets[s]);
+                }
+            }
+            out.flush();
+            FileHandler.writeBytesAtomically(indexPath, bytes.toByteArray());
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not save inventory ledger index", e);
+        }
+    }
+
+    private static byte[] encode(Entry entry) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(entry.type());
+            out.writeUTF(entry.itemId());
+            if (entry.type() == MOVEMENT) {
+                out.writeInt(entry.delta());
+                out.writeUTF(entry.billNumber() != null ? entry.billNumber() : "");
+            }
+            out.writeInt(entry.stock());
+            out.writeLong(entry.time());
+            out.writeLong(entry.previous());
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Entry decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte type = in.readByte();
+        if (type != SNAPSHOT && type != MOVEMENT) {
+            throw new IOException("Unexpected record in inventory ledger");
+        }
+        String itemId = in.readUTF();
+        int delta = 0;
+        String billNumber = null;
+        if (type == MOVEMENT) {
+            delta = in.readInt();
+            String bill = in.readUTF();
+            billNumber = bill.isEmpty() ? null : bill;
+        }
+        int stock = in.readInt();
+        long time = in.readLong();
+        long previous = in.readLong();
+        return new Entry(type, itemId, delta, stock, billNumber, time, previous);
+    }
+}
@@ -0,0 +1,166 @@
+package com.electronicstore.model.persistence;
+
+import com.electronicstore.model.inventory.Item;
+import com.electronicstore.model.inventory.StockReservations;
+import com.electronicstore.model.utils.FileHandler;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.function.BooleanSupplier;
+
+/**
+ * In-memory view of items.dat shared by all controllers.
+ *
+ * Stock changes are not written to items.dat; they are appended to the
+ * {@link StockMovementLog} and replayed on load. Every write of items.dat
+ * folds the log in, and once {@value #COMPACTION_THRESHOLD_PROPERTY}
+ * movements (default 1000) have piled up a write is scheduled for that alone.
+ * Each change is also added to the {@link InventoryLedger}, which keeps the
+ * full stock history; loads and edits that disagree with it re-anchor it.
+ */
+public class ItemRepository extends FileRepository<Item> {
+    public static final String ITEMS_FILE = "items.dat";
+
+    public static final String COMPACTION_THRESHOLD_PROPERTY = "electronicstore.stockCompactionThreshold";
+    private static final int COMPACTION_THRESHOLD = Integer.getInteger(COMPACTION_THRESHOLD_PROPERTY, 1000);
+
+    private static final ItemRepository INSTANCE = new ItemRepository();
+
+    private final StockMovementLog movements;
+    private final InventoryLedger ledger;
+
+    private ItemRepository() {
+        super(ITEMS_FILE, Item::getId);
+        this.movements = new StockMovementLog(FileHandler.resolve(StockMovementLog.LOG_FILE));
+        this.ledger = new InventoryLedger(FileHandler.resolve(InventoryLedger.LEDGER_FILE));
+    }
+
+    public static ItemRepository getInstance() {
+        return INSTANCE;
+    }
+
+    public StockMovementLog getMovementLog() {
+        return movements;
+    }
+
+    public InventoryLedger getLedger() {
+        return ledger;
+    }
+
+    @Override
+    public synchronized void save(Item item) {
+        super.save(item);
+        StockReservations.getInstance().track(item);
+        ledger.recordSnapshot(item.getId(), StockReservations.getInstance().committedStock(item));
+    }
+
+    @Override
+    public synchronized boolean replace(Item item) {
+        if (!super.replace(item)) {
+            return false;
+        }
+        StockReservations.getInstance().track(item);
+        ledger.recordSnapshot(item.getId(), StockReservations.getInstance().committedStock(item));
+        return true;
+    }
+
+    @Override
+    public synchronized boolean delete(String id) {
+        if (!super.delete(id)) {
+            return false;
+        }
+        StockReservations.getInstance().forget(id);
+        return true;
+    }
+
+    /**
+     * Applies a stock change and logs its movements; false (and nothing logged)
+     * if the change fails. When the change was applied but could not be logged,
+     * a write of items.dat is scheduled to persist it before the exception is
+     * rethrown; the change itself stays applied.
+     */
+    public boolean recordStockChange(List<StockMovementLog.Movement> stockMovements, BooleanSupplier change)
+            throws IOException {
+        boolean[] applied = new boolean[1];
+        boolean changed;
+        try {
+            changed = movements.record(stockMovements, () -> {
+                if (!change.getAsBoolean()) {
+                    return false;
+                }
+                applied[0] = true;
+                try {
+                    ledger.record(stockMovements);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return true;
+            });
+        } catch (UncheckedIOException e) {
+            // The ledger failed before the movements were logged
+            requestFlush();
+            throw e.getCause();
+        } catch (IOException e) {
+            if (applied[0]) {
+                requestFlush();
+            }
+            throw e;
+        }
+        if (!changed) {
+            return false;
+        }
+        ledger.sync();
+        if (movements.pendingCount() >= COMPACTION_THRESHOLD) {
+            requestFlush();
+        }
+        return true;
+    }
+
+    @Override
+    protected void afterLoad(Collection<Item> loadedItems, String stamp) {
+        // Files written before items.dat carried a generation were checkpointed on their stamp
+        String generation = FileHandler.readGeneration(FileHandler.resolve(ITEMS_FILE));
+        List<StockMovementLog.Movement> pending = movements.replay(generation != null ? generation : stamp);
+        Map<String, Item> byId = new HashMap<>();
+        for (Item item : loadedItems) {
+            byId.put(item.getId(), item);
+        }
+        for (StockMovementLog.Movement movement : pending) {
+            Item item = byId.get(movement.getItemId());
+            if (item != null) {
+                item.setStockQuantity(item.getStockQuantity() + movement.getDelta());
+            }
+        }
+        for (Item item : loadedItems) {
+            ledger.recordSnapshot(item.getId(), item.getStockQuantity());
+        }
+        // Open bills keep holding their stock on the new instances
+        StockReservations.getInstance().rebase(loadedItems);
+    }
+
+    /**
+     * Compaction: items.dat gets the committed stock, i.e. without what open
+     * bills hold, and a new generation ID that the movement log restarts
+     * with. The ID travels with the file, so a copied or restored store_data
+     * still replays its movements, and a different items.dat never does.
+     */
+    @Override
+    protected String write(List<Item> snapshot) throws IOException {
+        StockReservations reservations = StockReservations.getInstance();
+        String[] stamp = new String[1];
+        movements.compact(() -> {
+            List<Item> committed = new ArrayList<>(snapshot.size());
+            for (Item item : snapshot) {
+                committed.add(new Item(item.getId(), item.getName(), item.getCategory(), item.getSupplier(),
+                        item.getPurchaseDate(), item.getPurchasePrice(), item.getSellingPrice(),
+                        reservations.committedStock(item)));
+            }
+            String generation = UUID.randomUUID().toString();
+            FileHandler.saveListToFile(committed, ITEMS_FILE, generation);
+            stamp[0] = stampOf(FileHandler.resolve(ITEMS_FILE));
+            return generation;
+        });
+        return stamp[0];
+    }
+}
@@ -0,0 +1,43 @@
+package com.electronicstore.model.persistence;
+
+import java.io.*;
+import java.util.List;
+
+/**
+ * Plain Java object serialization, the original store format.
+ *
+ * Kept as the fallback writer for types without a binary codec and as the reader
+ * for files written before the binary format existed.
+ */
+public class JavaObjectSerializer implements StoreSerializer {
+    private static final byte STREAM_MAGIC_HIGH = (byte) 0xAC;
+    private static final byte STREAM_MAGIC_LOW = (byte) 0xED;
+
+    @Override
+    public String getName() {
+        return "java";
+    }
+
+    @Override
+    public boolean canWrite(List<?> list) {
+        return list instanceof Serializable;
+    }
+
+    @Override
+    public boolean canRead(byte[] header) {
+        return header.length >= 2 && header[0] == STREAM_MAGIC_HIGH && header[1] == STREAM_MAGIC_LOW;
+    }
+
+    @Override
+    public void writeList(List<?> list, OutputStream out) throws IOException {
+        ObjectOutputStream oos = new ObjectOutputStream(out);
+        oos.writeObject(list);
+        oos.flush();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> List<T> readList(InputStream in) throws IOException, ClassNotFoundException {
+        return (List<T>) new ObjectInputStream(in).readObject();
+    }
+}
@@ -0,0 +1,222 @@
+package com.electronicstore.model.persistence;
+
+import com.electronicstore.model.sales.Bill;
+import com.electronicstore.model.utils.FileHandler;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * One append-only journal file of finalized bills.
+ *
+ * Layout: an 8 byte header (magic + version) followed by one record per bill,
+ * each record being [int length][int crc32][payload]. Finalizing a bill only
+ * appends its own record, so the cost does not grow with the sales history.
+ * A torn record at the end of the file (crash mid-append) is cut off by the
+ * recovery scan that runs when the journal is opened. An append returns once
+ * the record is fsynced; concurrent appends are group-committed.
+ *
+ * Bill lines are stored by item ID and resolved against the catalog on read,
+ * so all bills share the catalog's Item instances.
+ *
+ * A file whose header is not a journal header is never deleted: recovery
+ * renames it to {@code <name>}{@value #CORRUPT_SUFFIX}, and the segment then
+ * refuses reads and appends for as long as that file is there.
+ */
+public class JournalSegment {
+    private static final Logger LOGGER = Logger.getLogger(JournalSegment.class.getName());
+
+    public static final String CORRUPT_SUFFIX = ".corrupt";
+
+    private static final int MAGIC = 0x45534A31; // "ESJ1"
+    private static final int VERSION = 1;
+    private static final int FILE_HEADER_SIZE = 8;
+    private static final int MAX_RECORD_SIZE = 64 * 1024 * 1024;
+
+    private final Path journalPath;
+    private final Path corruptPath;
+
+    public JournalSegment(Path journalPath) {
+        this.journalPath = journalPath;
+        this.corruptPath = journalPath.resolveSibling(journalPath.getFileName() + CORRUPT_SUFFIX);
+    }
+
+    public Path getPath() {
+        return journalPath;
+    }
+
+    // True while an unreadable copy of this segment is set aside for inspection
+    public boolean isQuarantined() {
+        return Files.exists(corruptPath);
+    }
+
+    // Appends one bill; only the new record is written
+    public void append(Bill bill) throws IOException {
+        appendAll(List.of(bill));
+    }
+
+    // Appends several bills with a single fsync
+    public void appendAll(List<Bill> bills) throws IOException {
+        ByteArrayOutputStream records = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(records);
+        for (Bill bill : bills) {
+            byte[] payload = encode(bill);
+            Records.write(out, payload);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(records.toByteArray());
+
+        synchronized (this) {
+            checkNotQuarantined();
+            ensureHeader();
+            try (FileChannel channel = FileChannel.open(journalPath,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+        }
+
+        // Outside the lock, so tills finalizing at the same moment share one fsync
+        FileHandler.syncFile(journalPath);
+    }
+
+    // Reads every valid record in append order
+    public synchronized List<Bill> readAll(ReferenceResolver resolver) throws IOException {
+        List<Bill> bills = new ArrayList<>();
+        forEach(resolver, bills::add);
+        return bills;
+    }
+
+    /**
+     * Hands the bills to the action one record at a time, without keeping
+     * them. Does not take the segment lock, so appends carry on during a long
+     * export; a record still being appended fails its checksum and ends the
+     * scan like a torn tail.
+     */
+    public void forEach(ReferenceResolver resolver, BillJournal.BillAction action) throws IOException {
+        checkNotQuarantined();
+        if (!Files.exists(journalPath)) {
+            return;
+        }
+
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(journalPath)))) {
+            if (!readHeader(in)) {
+                return;
+            }
+            byte[] payload;
+            while ((payload = Records.read(in, MAX_RECORD_SIZE)) != null) {
+                action.accept(decode(payload, resolver));
+            }
+        }
+    }
+
+    /**
+     * Scans the journal and truncates it after the last complete record.
+     *
+     * @return the number of valid records found
+     */
+    public synchronized int recover() {
+        if (isQuarantined()) {
+            LOGGER.severe("Bill journal segment is quarantined until " + corruptPath + " is dealt with");
+            return 0;
+        }
+        if (!Files.exists(journalPath)) {
+            return 0;
+        }
+
+        int records = 0;
+        long validLength = FILE_HEADER_SIZE;
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(journalPath)))) {
+            if (!readHeader(in)) {
+                if (Files.size(journalPath) < FILE_HEADER_SIZE) {
+                    // Torn while the header was written, so it holds no bills; the next append rewrites it
+                    return 0;
+                }
+                in.close();
+                quarantine();
+                return 0;
+            }
+            byte[] payload;
+            while ((payload = Records.read(in, MAX_RECORD_SIZE)) != null) {
+                validLength += Records.HEADER_SIZE + payload.length;
+                records++;
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Bill journal recovery scan failed", e);
+            return records;
+        }
+
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.WRITE)) {
+            if (channel.size() > validLength) {
+                LOGGER.warning("Truncating torn tail of bill journal at offset " + validLength);
+                channel.truncate(validLength);
+                channel.force(true);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not truncate bill journal", e);
+        }
+        return records;
+    }
+
+    // Keeps the bytes for inspection; only an operator may delete them
+    private void quarantine() throws IOException {
+        Files.move(journalPath, corruptPath);
+        LOGGER.severe("Bill journal segment has an invalid header; moved it to " + corruptPath
+                + " and refusing to read or append bills of its month");
+    }
+
+    private void checkNotQuarantined() throws IOException {
+        if (isQuarantined()) {
+            throw new IOException("Bill journal segment is quarantined: " + corruptPath);
+        }
+    }
+
+    private void ensureHeader() throws IOException {
+        if (Files.exists(journalPath) && Files.size(journalPath) >= FILE_HEADER_SIZE) {
+            return;
+        }
+        Files.createDirectories(journalPath.toAbsolutePath().getParent());
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).flip();
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(header);
+        }
+    }
+
+    private static boolean readHeader(DataInputStream in) throws IOException {
+        try {
+            return in.readInt() == MAGIC && in.readInt() == VERSION;
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    private static byte[] encode(Bill bill) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            ModelCodec.writeBillRecord(out, bill);
+        }
+        return bytes.toByteArray();
+    }
+
+    // Records appended before the binary codec existed hold a Java serialization stream
+    private static Bill decode(byte[] payload, ReferenceResolver resolver) throws IOException {
+        if (payload[0] != (byte) 0xAC) {
+            return ModelCodec.readBillRecord(new DataInputStream(new ByteArrayInputStream(payload)), resolver);
+        }
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(payload))) {
+            return (Bill) ois.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Unreadable bill record", e);
+        }
+    }
+}
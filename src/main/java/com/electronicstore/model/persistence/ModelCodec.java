@@ -0,0 +1,322 @@
+package com.electronicstore.model.persistence;
+
+import com.electronicstore.model.inventory.Category;
+import com.electronicstore.model.inventory.Item;
+import com.electronicstore.model.inventory.Supplier;
+import com.electronicstore.model.sales.Bill;
+import com.electronicstore.model.sales.SaleItem;
+import com.electronicstore.model.users.Administrator;
+import com.electronicstore.model.users.Cashier;
+import com.electronicstore.model.users.Manager;
+import com.electronicstore.model.users.User;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Hand-written binary encoding of the model classes.
+ *
+ * Every record starts with a one byte type tag so lists can be decoded without
+ * class metadata. Only persistent state is written: the back-reference lists kept
+ * on Category, Supplier and the user classes are runtime-only and are rebuilt
+ * empty on load.
+ *
+ * Records are reference-normalized: items point at categories and suppliers
+ * through a per-file ReferenceTable, and bill lines store only the item ID (plus
+ * its name as a fallback label). The inline TAG_ITEM / TAG_BILL forms are still
+ * decoded for data written before normalization.
+ */
+public final class ModelCodec {
+    public static final byte TAG_ITEM = 1;
+    public static final byte TAG_CATEGORY = 2;
+    public static final byte TAG_SUPPLIER = 3;
+    public static final byte TAG_BILL = 4;
+    public static final byte TAG_CASHIER = 5;
+    public static final byte TAG_MANAGER = 6;
+    public static final byte TAG_ADMINISTRATOR = 7;
+    public static final byte TAG_ITEM_REF = 8;
+    public static final byte TAG_BILL_REF = 9;
+
+    private ModelCodec() {}
+
+    // Whether the codec knows how to write this exact object type
+    public static boolean supports(Object value) {
+        return tagOf(value) != 0;
+    }
+
+    public static byte tagOf(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        Class<?> type = value.getClass();
+        if (type == Item.class) return TAG_ITEM_REF;
+        if (type == Category.class) return TAG_CATEGORY;
+        if (type == Supplier.class) return TAG_SUPPLIER;
+        if (type == Bill.class) return TAG_BILL_REF;
+        if (type == Cashier.class) return TAG_CASHIER;
+        if (type == Manager.class) return TAG_MANAGER;
+        if (type == Administrator.class) return TAG_ADMINISTRATOR;
+        return 0;
+    }
+
+    // Writes a tagged record; item category/supplier refs are registered in the table
+    static void write(DataOutput out, Object value, ReferenceTable table) throws IOException {
+        byte tag = tagOf(value);
+        out.writeByte(tag);
+        switch (tag) {
+            case TAG_ITEM_REF -> writeItemRef(out, (Item) value, table);
+            case TAG_CATEGORY -> writeCategory(out, (Category) value);
+            case TAG_SUPPLIER -> writeSupplier(out, (Supplier) value);
+            case TAG_BILL_REF -> writeBillRef(out, (Bill) value);
+            case TAG_CASHIER, TAG_MANAGER, TAG_ADMINISTRATOR -> writeUser(out, (User) value);
+            default -> throw new NotSerializableException(
+                    value == null ? "null" : value.getClass().getName());
+        }
+    }
+
+    // Reads a tagged record; table may be null for streams without item records
+    static Object read(DataInput in, ReferenceTable table, ReferenceResolver resolver) throws IOException {
+        byte tag = in.readByte();
+        return switch (tag) {
+            case TAG_ITEM -> readItem(in);
+            case TAG_ITEM_REF -> readItemRef(in, table);
+            case TAG_CATEGORY -> resolver.category(readCategory(in));
+            case TAG_SUPPLIER -> resolver.supplier(readSupplier(in));
+            case TAG_BILL -> readBill(in);
+            case TAG_BILL_REF -> readBillRef(in, resolver);
+            case TAG_CASHIER, TAG_MANAGER, TAG_ADMINISTRATOR -> readUser(in, tag);
+            default -> throw new StreamCorruptedException("Unknown record tag: " + tag);
+        };
+    }
+
+    // Bill records are self-contained apart from item IDs, so they need no table
+    public static void writeBillRecord(DataOutput out, Bill bill) throws IOException {
+        out.writeByte(TAG_BILL_REF);
+        writeBillRef(out, bill);
+    }
+
+    public static Bill readBillRecord(DataInput in, ReferenceResolver resolver) throws IOException {
+        Object record = read(in, null, resolver);
+        if (!(record instanceof Bill bill)) {
+            throw new StreamCorruptedException("Not a bill record");
+        }
+        return bill;
+    }
+
+    // Inventory
+
+    public static void writeCategory(DataOutput out, Category category) throws IOException {
+        writeString(out, category.getId());
+        writeString(out, category.getName());
+        out.writeInt(category.getMinStockLevel());
+        writeString(out, category.getSector());
+    }
+
+    public static Category readCategory(DataInput in) throws IOException {
+        return new Category(readString(in), readString(in), in.readInt(), readString(in));
+    }
+
+    public static void writeSupplier(DataOutput out, Supplier supplier) throws IOException {
+        writeString(out, supplier.getId());
+        writeString(out, supplier.getName());
+        writeString(out, supplier.getContact());
+    }
+
+    public static Supplier readSupplier(DataInput in) throws IOException {
+        return new Supplier(readString(in), readString(in), readString(in));
+    }
+
+    static void writeItemRef(DataOutput out, Item item, ReferenceTable table) throws IOException {
+        writeString(out, item.getId());
+        writeString(out, item.getName());
+        out.writeInt(table.categoryRef(item.getCategory()));
+        out.writeInt(table.supplierRef(item.getSupplier()));
+        writeDate(out, item.getPurchaseDate());
+        out.writeDouble(item.getPurchasePrice());
+        out.writeDouble(item.getSellingPrice());
+        out.writeInt(item.getStockQuantity());
+    }
+
+    static Item readItemRef(DataInput in, ReferenceTable table) throws IOException {
+        if (table == null) {
+            throw new StreamCorruptedException("Item reference outside of a reference table");
+        }
+        String id = readString(in);
+        String name = readString(in);
+        Category category = table.category(in.readInt());
+        Supplier supplier = table.supplier(in.readInt());
+        LocalDate purchaseDate = readDate(in);
+        double purchasePrice = in.readDouble();
+        double sellingPrice = in.readDouble();
+        int stockQuantity = in.readInt();
+        return new Item(id, name, category, supplier, purchaseDate,
+                purchasePrice, sellingPrice, stockQuantity);
+    }
+
+    // Legacy inline form
+    static Item readItem(DataInput in) throws IOException {
+        String id = readString(in);
+        String name = readString(in);
+        Category category = in.readBoolean() ? readCategory(in) : null;
+        Supplier supplier = in.readBoolean() ? readSupplier(in) : null;
+        LocalDate purchaseDate = readDate(in);
+        double purchasePrice = in.readDouble();
+        double sellingPrice = in.readDouble();
+        int stockQuantity = in.readInt();
+        return new Item(id, name, category, supplier, purchaseDate,
+                purchasePrice, sellingPrice, stockQuantity);
+    }
+
+    // Sales
+
+    static void writeBillRef(DataOutput out, Bill bill) throws IOException {
+        writeString(out, bill.getBillNumber());
+        writeString(out, bill.getCashierId());
+        writeDateTime(out, bill.getDateTime());
+        out.writeDouble(bill.getTotalAmount());
+
+        var items = bill.getItems();
+        out.writeInt(items.size());
+        for (SaleItem saleItem : items) {
+            writeString(out, saleItem.getItemId());
+            writeString(out, saleItem.getItem().getName());
+            out.writeInt(saleItem.getQuantity());
+            out.writeDouble(saleItem.getPrice());
+            out.writeDouble(saleItem.getUnitCost());
+        }
+    }
+
+    static Bill readBillRef(DataInput in, ReferenceResolver resolver) throws IOException {
+        String billNumber = readString(in);
+        String cashierId = readString(in);
+        LocalDateTime date = readDateTime(in);
+        double totalAmount = in.readDouble();
+
+        Bill bill = new Bill(billNumber, cashierId, date, totalAmount);
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            String itemId = readString(in);
+            String itemName = readString(in);
+            int quantity = in.readInt();
+            double price = in.readDouble();
+            double unitCost = in.readDouble();
+            Item item = resolver.item(itemId, itemName, price, unitCost);
+            bill.addItem(new SaleItem(item, quantity, price, unitCost));
+        }
+        return bill;
+    }
+
+    // Legacy inline form: every line embeds a full copy of its item
+    static Bill readBill(DataInput in) throws IOException {
+        String billNumber = readString(in);
+        String cashierId = readString(in);
+        LocalDateTime date = readDateTime(in);
+        double totalAmount = in.readDouble();
+
+        Bill bill = new Bill(billNumber, cashierId, date, totalAmount);
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            Item item = readItem(in);
+            int quantity = in.readInt();
+            double price = in.readDouble();
+            bill.addItem(new SaleItem(item, quantity, price, item.getPurchasePrice()));
+        }
+        return bill;
+    }
+
+    // Users
+
+    public static void writeUser(DataOutput out, User user) throws IOException {
+        writeString(out, user.getId());
+        writeString(out, user.getUsername());
+        writeString(out, user.getPassword());
+        writeString(out, user.getName());
+        writeString(out, user.getEmail());
+        writeString(out, user.getPhone());
+        out.writeBoolean(user.isActive());
+
+        if (user instanceof Cashier cashier) {
+            writeString(out, cashier.getSector());
+        } else if (user instanceof Manager manager) {
+            out.writeInt(manager.getManagedSectors().size());
+            for (String sector : manager.getManagedSectors()) {
+                writeString(out, sector);
+            }
+        }
+    }
+
+    public static User readUser(DataInput in, byte tag) throws IOException {
+        String id = readString(in);
+        String username = readString(in);
+        String password = readString(in);
+        String name = readString(in);
+        String email = readString(in);
+        String phone = readString(in);
+        boolean active = in.readBoolean();
+
+        User user = switch (tag) {
+            case TAG_CASHIER -> new Cashier(id, username, password, name, email, phone, readString(in));
+            case TAG_MANAGER -> {
+                Manager manager = new Manager(id, username, password, name, email, phone);
+                int sectors = in.readInt();
+                for (int i = 0; i < sectors; i++) {
+                    manager.addManagedSector(readString(in));
+                }
+                yield manager;
+            }
+            case TAG_ADMINISTRATOR -> new Administrator(id, username, password, name, email, phone);
+            default -> throw new StreamCorruptedException("Unknown user tag: " + tag);
+        };
+        user.setActive(active);
+        return user;
+    }
+
+    // Primitives
+
+    public static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static void writeDate(DataOutput out, LocalDate date) throws IOException {
+        out.writeLong(date == null ? Long.MIN_VALUE : date.toEpochDay());
+    }
+
+    public static LocalDate readDate(DataInput in) throws IOException {
+        long epochDay = in.readLong();
+        return epochDay == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    public static void writeDateTime(DataOutput out, LocalDateTime dateTime) throws IOException {
+        out.writeBoolean(dateTime != null);
+        if (dateTime != null) {
+            out.writeLong(dateTime.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(dateTime.getNano());
+        }
+    }
+
+    public static LocalDateTime readDateTime(DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+    }
+}
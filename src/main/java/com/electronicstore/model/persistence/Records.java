@@ -0,0 +1,81 @@
+package com.electronicstore.model.persistence;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+// [int length][int crc32][payload] framing shared by the append-only files
+final class Records {
+    static final int HEADER_SIZE = 8;
+
+    private Records() {
+    }
+
+    static void write(DataOutputStream out, byte[] payload) throws IOException {
+        out.writeInt(payload.length);
+        out.writeInt(checksum(payload));
+        out.write(payload);
+    }
+
+    // Returns the next payload, or null at end of file or at the first damaged record
+    static byte[] read(DataInputStream in, int maxSize) throws IOException {
+        int length;
+        int crc;
+        try {
+            length = in.readInt();
+            crc = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (length <= 0 || length > maxSize) {
+            return null;
+        }
+
+        byte[] payload = new byte[length];
+        try {
+            in.readFully(payload);
+        } catch (EOFException e) {
+            return null;
+        }
+        return checksum(payload) == crc ? payload : null;
+    }
+
+    // Payload of the record starting at the offset, or null when there is no whole, intact record there
+    static byte[] readAt(FileChannel channel, long offset, int maxSize) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        if (!readFully(channel, header, offset)) {
+            return null;
+        }
+        int length = header.getInt(0);
+        int crc = header.getInt(4);
+        if (length <= 0 || length > maxSize) {
+            return null;
+        }
+
+        ByteBuffer payload = ByteBuffer.allocate(length);
+        if (!readFully(channel, payload, offset + HEADER_SIZE)) {
+            return null;
+        }
+        return checksum(payload.array()) == crc ? payload.array() : null;
+    }
+
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,56 @@
+package com.electronicstore.model.persistence;
+
+import com.electronicstore.model.inventory.Category;
+import com.electronicstore.model.inventory.Item;
+import com.electronicstore.model.inventory.Supplier;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps the foreign-key IDs stored on disk back to shared object instances.
+ *
+ * Each ID resolves to exactly one instance per resolver, so a bill history that
+ * sells the same item a million times holds one Item on the heap instead of a
+ * million copies. A resolver seeded from the catalog hands out the live items;
+ * IDs it does not know (e.g. deleted items) get a lightweight placeholder built
+ * from the label stored next to the ID.
+ */
+public class ReferenceResolver {
+    private final Map<String, Category> categories = new HashMap<>();
+    private final Map<String, Supplier> suppliers = new HashMap<>();
+    private final Map<String, Item> items = new HashMap<>();
+
+    // Resolver whose canonical items are the given catalog entries
+    public static ReferenceResolver forCatalog(Collection<Item> catalog) {
+        ReferenceResolver resolver = new ReferenceResolver();
+        for (Item item : catalog) {
+            resolver.items.putIfAbsent(item.getId(), item);
+            if (item.getCategory() != null) {
+                resolver.categories.putIfAbsent(item.getCategory().getId(), item.getCategory());
+            }
+            if (item.getSupplier() != null) {
+                resolver.suppliers.putIfAbsent(item.getSupplier().getId(), item.getSupplier());
+            }
+        }
+        return resolver;
+    }
+
+    // Returns the canonical instance for the decoded category's ID
+    public Category category(Category decoded) {
+        Category existing = categories.putIfAbsent(decoded.getId(), decoded);
+        return existing != null ? existing : decoded;
+    }
+
+    public Supplier supplier(Supplier decoded) {
+        Supplier existing = suppliers.putIfAbsent(decoded.getId(), decoded);
+        return existing != null ? existing : decoded;
+    }
+
+    // Returns the canonical item, or a shared placeholder when the ID is unknown
+    public Item item(String id, String name, double sellingPrice, double purchasePrice) {
+        return items.computeIfAbsent(id, key ->
+                new Item(key, name, null, null, null, purchasePrice, sellingPrice, 0));
+    }
+}
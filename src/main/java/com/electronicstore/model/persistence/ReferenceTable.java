@@ -0,0 +1,105 @@
+package com.electronicstore.model.persistence;
+
+import com.electronicstore.model.inventory.Category;
+import com.electronicstore.model.inventory.Item;
+import com.electronicstore.model.inventory.Supplier;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-file dictionary of the categories and suppliers referenced by items.
+ *
+ * Written once ahead of the records; item records then store an int index
+ * instead of a copy of the category and supplier.
+ */
+final class ReferenceTable {
+    static final int NO_REF = -1;
+
+    private final List<Category> categories = new ArrayList<>();
+    private final List<Supplier> suppliers = new ArrayList<>();
+    private final Map<String, Integer> categoryIndex = new HashMap<>();
+    private final Map<String, Integer> supplierIndex = new HashMap<>();
+
+    // Builds the table from every item in the list
+    static ReferenceTable collect(List<?> records) {
+        ReferenceTable table = new ReferenceTable();
+        for (Object record : records) {
+            if (record instanceof Item item) {
+                table.categoryRef(item.getCategory());
+                table.supplierRef(item.getSupplier());
+            }
+        }
+        return table;
+    }
+
+    int categoryRef(Category category) {
+        if (category == null) {
+            return NO_REF;
+        }
+        return categoryIndex.computeIfAbsent(category.getId(), id -> {
+            categories.add(category);
+            return categories.size() - 1;
+        });
+    }
+
+    int supplierRef(Supplier supplier) {
+        if (supplier == null) {
+            return NO_REF;
+        }
+        return supplierIndex.computeIfAbsent(supplier.getId(), id -> {
+            suppliers.add(supplier);
+            return suppliers.size() - 1;
+        });
+    }
+
+    Category category(int ref) throws IOException {
+        if (ref == NO_REF) {
+            return null;
+        }
+        if (ref < 0 || ref >= categories.size()) {
+            throw new StreamCorruptedException("Invalid category reference: " + ref);
+        }
+        return categories.get(ref);
+    }
+
+    Supplier supplier(int ref) throws IOException {
+        if (ref == NO_REF) {
+            return null;
+        }
+        if (ref < 0 || ref >= suppliers.size()) {
+            throw new StreamCorruptedException("Invalid supplier reference: " + ref);
+        }
+        return suppliers.get(ref);
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.writeInt(categories.size());
+        for (Category category : categories) {
+            ModelCodec.writeCategory(out, category);
+        }
+        out.writeInt(suppliers.size());
+        for (Supplier supplier : suppliers) {
+            ModelCodec.writeSupplier(out, supplier);
+        }
+    }
+
+    static ReferenceTable read(DataInput in, ReferenceResolver resolver) throws IOException {
+        ReferenceTable table = new ReferenceTable();
+        int categoryCount = in.readInt();
+        for (int i = 0; i < categoryCount; i++) {
+            table.categories.add(resolver.category(ModelCodec.readCategory(in)));
+        }
+        int supplierCount = in.readInt();
+        for (int i = 0; i < supplierCount; i++) {
+            table.suppliers.add(resolver.supplier(ModelCodec.readSupplier(in)));
+        }
+        return table;
+    }
+}
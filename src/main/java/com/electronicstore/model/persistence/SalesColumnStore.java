@@ -0,0 +1,490 @@
+package com.electronicstore.model.persistence;
+
+import com.electronicstore.model.sales.Bill;
+import com.electronicstore.model.sales.SaleItem;
+import com.electronicstore.model.utils.ReportEvent;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-optimized copy of the sales history for reports, one file per column.
+ *
+ * The bill table holds day, cashier and total; the line table holds day,
+ * cashier, item, quantity, price and unit cost (day and cashier are repeated
+ * so a line scan needs no join). Cashier and item IDs are dictionary-encoded
+ * as small ints, and money columns hold cents as longs. Columns are scanned through memory-mapped buffers and handed
+ * to the visitor as primitives, so a scan allocates nothing per bill. Each
+ * column is mapped in chunks of {@value #CHUNK_ROWS} rows, so files past the
+ * 2 GB limit of one mapping are read the same way.
+ *
+ * The store is derived data: it is not fsynced and the bill journal rebuilds
+ * it when its row count does not match the journal.
+ */
+public class SalesColumnStore {
+
+    public static final String DICTIONARY_FILE = "dictionary.txt";
+
+    // Rows per mapped chunk: 512 MB of a long column
+    static final int CHUNK_ROWS = 1 << 26;
+    private static final int CHUNK_SHIFT = 26;
+    private static final int CHUNK_MASK = CHUNK_ROWS - 1;
+
+    // Money columns of the first layout, which held doubles; their tables are rebuilt from the journal
+    private static final List<String> LEGACY_COLUMNS = List.of("bill.total", "line.price", "line.cost");
+
+    // Receives one bill row per call
+    @FunctionalInterface
+    public interface BillVisitor {
+        void visit(int epochDay, int cashier, long totalCents);
+    }
+
+    // Receives one bill line per call
+    @FunctionalInterface
+    public interface LineVisitor {
+        void visit(int epochDay, int cashier, int item, int quantity, long priceCents, long unitCostCents);
+    }
+
+    private final Path directory;
+
+    private final Column billDay;
+    private final Column billCashier;
+    private final Column billTotal;
+    private final Column lineDay;
+    private final Column lineCashier;
+    private final Column lineItem;
+    private final Column lineQuantity;
+    private final Column linePrice;
+    private final Column lineCost;
+    private final List<Column> billColumns;
+    private final List<Column> lineColumns;
+
+    private final List<String> cashierIds = new ArrayList<>();
+    private final Map<String, Integer> cashierRefs = new HashMap<>();
+    private final List<String> itemIds = new ArrayList<>();
+    private final List<String> itemNames = new ArrayList<>();
+    private final Map<String, Integer> itemRefs = new HashMap<>();
+
+    private int billRows;
+    private int lineRows;
+    // Set when a failed append could not be rolled back
+    private boolean broken;
+
+    public SalesColumnStore(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        for (String legacy : LEGACY_COLUMNS) {
+            Files.deleteIfExists(directory.resolve(legacy));
+        }
+
+        billDay = new Column(directory.resolve("bill.day"), Integer.BYTES);
+        billCashier = new Column(directory.resolve("bill.cashier"), Integer.BYTES);
+        billTotal = new Column(directory.resolve("bill.total_cents"), Long.BYTES);
+        lineDay = new Column(directory.resolve("line.day"), Integer.BYTES);
+        lineCashier = new Column(directory.resolve("line.cashier"), Integer.BYTES);
+        lineItem = new Column(directory.resolve("line.item"), Integer.BYTES);
+        lineQuantity = new Column(directory.resolve("line.quantity"), Integer.BYTES);
+        linePrice = new Column(directory.resolve("line.price_cents"), Long.BYTES);
+        lineCost = new Column(directory.resolve("line.cost_cents"), Long.BYTES);
+        billColumns = List.of(billDay, billCashier, billTotal);
+        lineColumns = List.of(lineDay, lineCashier, lineItem, lineQuantity, linePrice, lineCost);
+
+        loadDictionary();
+        // A crash may leave the columns of one table at different lengths
+        billRows = alignRows(billColumns);
+        lineRows = alignRows(lineColumns);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public synchronized int billCount() {
+        return billRows;
+    }
+
+    public synchronized int lineCount() {
+        return lineRows;
+    }
+
+    // Consistent view of the rows and dictionary written so far; later appends are not visible
+    public synchronized Snapshot snapshot() throws IOException {
+        return new Snapshot(billRows, lineRows,
+                billDay.map(billRows), billCashier.map(billRows), billTotal.map(billRows),
+                lineDay.map(lineRows), lineCashier.map(lineRows), lineItem.map(lineRows),
+                lineQuantity.map(lineRows), linePrice.map(lineRows), lineCost.map(lineRows),
+                List.copyOf(cashierIds), List.copyOf(itemIds), List.copyOf(itemNames));
+    }
+
+    public synchronized void append(Bill bill) throws IOException {
+        appendAll(List.of(bill));
+    }
+
+    // Callers pass bounded batches; the buffers for one call are allocated whole
+    public synchronized void appendAll(List<Bill> bills) throws IOException {
+        if (broken) {
+            throw new IOException("Sales columns are out of step with the journal until it is reopened");
+        }
+        long lineCount = 0;
+        for (Bill bill : bills) {
+            lineCount += bill.getItems().size();
+        }
+        // Fails before anything is written when the batch or the tables would outgrow int row numbers
+        int newBillRows = Math.addExact(billRows, bills.size());
+        int newLineRows = Math.toIntExact(lineRows + lineCount);
+        int lines = (int) lineCount;
+
+        ByteBuffer days = ByteBuffer.allocate(bytes(bills.size(), Integer.BYTES));
+        ByteBuffer cashiers = ByteBuffer.allocate(bytes(bills.size(), Integer.BYTES));
+        ByteBuffer totals = ByteBuffer.allocate(bytes(bills.size(), Long.BYTES));
+        ByteBuffer lineDays = ByteBuffer.allocate(bytes(lines, Integer.BYTES));
+        ByteBuffer lineCashiers = ByteBuffer.allocate(bytes(lines, Integer.BYTES));
+        ByteBuffer items = ByteBuffer.allocate(bytes(lines, Integer.BYTES));
+        ByteBuffer quantities = ByteBuffer.allocate(bytes(lines, Integer.BYTES));
+        ByteBuffer prices = ByteBuffer.allocate(bytes(lines, Long.BYTES));
+        ByteBuffer costs = ByteBuffer.allocate(bytes(lines, Long.BYTES));
+
+        for (Bill bill : bills) {
+            int day = (int) (bill.getDate() != null ? bill.getDate() : LocalDate.now()).toEpochDay();
+            int cashier = cashierRef(bill.getCashierId());
+            days.putInt(day);
+            cashiers.putInt(cashier);
+            totals.putLong(bill.getTotalCents());
+
+            for (SaleItem line : bill.getItems()) {
+                lineDays.putInt(day);
+                lineCashiers.putInt(cashier);
+                items.putInt(itemRef(line));
+                quantities.putInt(line.getQuantity());
+                prices.putLong(line.getPriceCents());
+                costs.putLong(line.getUnitCostCents());
+            }
+        }
+
+        // Dictionary entries go out first so that no row refers to an unknown ID
+        try {
+            billDay.append(days);
+            billCashier.append(cashiers);
+            billTotal.append(totals);
+            lineDay.append(lineDays);
+            lineCashier.append(lineCashiers);
+            lineItem.append(items);
+            lineQuantity.append(quantities);
+            linePrice.append(prices);
+            lineCost.append(costs);
+        } catch (IOException e) {
+            rollBack();
+            throw e;
+        }
+        billRows = newBillRows;
+        lineRows = newLineRows;
+    }
+
+    /**
+     * Cuts every column back to the rows before a failed append, so that the
+     * columns of a table never disagree on a row. When even that fails the
+     * store takes no more appends; the journal rebuilds it when it is reopened.
+     */
+    private void rollBack() {
+        try {
+            for (Column column : billColumns) {
+                column.truncate(billRows);
+            }
+            for (Column column : lineColumns) {
+                column.truncate(lineRows);
+            }
+        } catch (IOException e) {
+            broken = true;
+        }
+    }
+
+    // Empties the store before it is refilled from the journal; only used before the store is shared
+    synchronized void clear() throws IOException {
+        for (Column column : billColumns) {
+            column.truncate(0);
+        }
+        for (Column column : lineColumns) {
+            column.truncate(0);
+        }
+        billRows = 0;
+        lineRows = 0;
+        cashierIds.clear();
+        cashierRefs.clear();
+        itemIds.clear();
+        itemNames.clear();
+        itemRefs.clear();
+        Files.deleteIfExists(directory.resolve(DICTIONARY_FILE));
+        broken = false;
+    }
+
+    private static int bytes(int rows, int width) {
+        return Math.toIntExact((long) rows * width);
+    }
+
+    private int cashierRef(String cashierId) throws IOException {
+        String key = cashierId != null ? cashierId : "";
+        Integer ref = cashierRefs.get(key);
+        if (ref == null) {
+            ref = cashierIds.size();
+            appendDictionary("C\t" + clean(key));
+            cashierIds.add(key);
+            cashierRefs.put(key, ref);
+        }
+        return ref;
+    }
+
+    private int itemRef(SaleItem line) throws IOException {
+        String key = line.getItemId() != null ? line.getItemId() : "";
+        Integer ref = itemRefs.get(key);
+        if (ref == null) {
+            String name = line.getItem() != null ? line.getItem().getName() : key;
+            ref = itemIds.size();
+            appendDictionary("I\t" + clean(key) + "\t" + clean(name));
+            itemIds.add(key);
+            itemNames.add(name);
+            itemRefs.put(key, ref);
+        }
+        return ref;
+    }
+
+    private void appendDictionary(String entry) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(directory.resolve(DICTIONARY_FILE),
+                StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            writer.write(entry);
+            writer.newLine();
+        }
+    }
+
+    private void loadDictionary() throws IOException {
+        Path file = directory.resolve(DICTIONARY_FILE);
+        if (!Files.exists(file)) {
+            return;
+        }
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            String[] parts = line.split("\t", -1);
+            if (parts.length == 2 && parts[0].equals("C")) {
+                cashierRefs.put(parts[1], cashierIds.size());
+                cashierIds.add(parts[1]);
+            } else if (parts.length == 3 && parts[0].equals("I")) {
+                itemRefs.put(parts[1], itemIds.size());
+                itemIds.add(parts[1]);
+                itemNames.add(parts[2]);
+            }
+        }
+    }
+
+    // Tabs and line breaks would break the dictionary format
+    private static String clean(String value) {
+        return value == null ? "" : value.replaceAll("[\\t\\r\\n]", " ");
+    }
+
+    private static int alignRows(List<Column> columns) throws IOException {
+        long rows = Long.MAX_VALUE;
+        for (Column column : columns) {
+            rows = Math.min(rows, column.rows());
+        }
+        for (Column column : columns) {
+            column.truncate(rows);
+        }
+        return (int) rows;
+    }
+
+    /**
+     * Rows and dictionary of the store at one point in time. Refs passed to the
+     * visitors are always below {@link #cashierCount()} and {@link #itemCount()},
+     * so they can index plain arrays sized from those counts.
+     */
+    public static final class Snapshot {
+        private final int billRows;
+        private final int lineRows;
+        private final MappedByteBuffer[] billDays;
+        private final MappedByteBuffer[] billCashiers;
+        private final MappedByteBuffer[] billTotals;
+        private final MappedByteBuffer[] lineDays;
+        private final MappedByteBuffer[] lineCashiers;
+        private final MappedByteBuffer[] lineItems;
+        private final MappedByteBuffer[] lineQuantities;
+        private final MappedByteBuffer[] linePrices;
+        private final MappedByteBuffer[] lineCosts;
+        private final List<String> cashierIds;
+        private final List<String> itemIds;
+        private final List<String> itemNames;
+
+        private Snapshot(int billRows, int lineRows,
+                         MappedByteBuffer[] billDays, MappedByteBuffer[] billCashiers, MappedByteBuffer[] billTotals,
+                         MappedByteBuffer[] lineDays, MappedByteBuffer[] lineCashiers, MappedByteBuffer[] lineItems,
+                         MappedByteBuffer[] lineQuantities, MappedByteBuffer[] linePrices, MappedByteBuffer[] lineCosts,
+                         List<String> cashierIds, List<String> itemIds, List<String> itemNames) {
+            this.billRows = billRows;
+            this.lineRows = lineRows;
+            this.billDays = billDays;
+            this.billCashiers = billCashiers;
+            this.billTotals = billTotals;
+            this.lineDays = lineDays;
+            this.lineCashiers = lineCashiers;
+            this.lineItems = lineItems;
+            this.lineQuantities = lineQuantities;
+            this.linePrices = linePrices;
+            this.lineCosts = lineCosts;
+            this.cashierIds = cashierIds;
+            this.itemIds = itemIds;
+            this.itemNames = itemNames;
+        }
+
+        public int billCount() {
+            return billRows;
+        }
+
+        public int lineCount() {
+            return lineRows;
+        }
+
+        public int cashierCount() {
+            return cashierIds.size();
+        }
+
+        public int itemCount() {
+            return itemIds.size();
+        }
+
+        public String cashierId(int cashier) {
+            return cashierIds.get(cashier);
+        }
+
+        public String itemId(int item) {
+            return itemIds.get(item);
+        }
+
+        // Item name as of the first sale; callers prefer the catalog's current name
+        public String itemName(int item) {
+            return itemNames.get(item);
+        }
+
+        // Visits every bill issued between the two dates (inclusive)
+        public void scanBills(LocalDate startDate, LocalDate endDate, BillVisitor visitor) {
+            scanBills(startDate, endDate, 0, billRows, visitor);
+            ReportEvent.countRows(billRows);
+        }
+
+        // Same for the bill rows from fromRow (inclusive) to toRow (exclusive); segments may be scanned concurrently
+        public void scanBills(LocalDate startDate, LocalDate endDate, int fromRow, int toRow, BillVisitor visitor) {
+            int from = (int) startDate.toEpochDay();
+            int to = (int) endDate.toEpochDay();
+            for (int row = fromRow; row < toRow; ) {
+                int chunk = row >>> CHUNK_SHIFT;
+                int end = chunkEnd(chunk, toRow);
+                MappedByteBuffer days = billDays[chunk];
+                MappedByteBuffer cashiers = billCashiers[chunk];
+                MappedByteBuffer totals = billTotals[chunk];
+                for (; row < end; row++) {
+                    // Offsets within a chunk stay far below Integer.MAX_VALUE
+                    int index = row & CHUNK_MASK;
+                    int day = days.getInt(index * Integer.BYTES);
+                    if (day >= from && day <= to) {
+                        visitor.visit(day, cashiers.getInt(index * Integer.BYTES), totals.getLong(index * Long.BYTES));
+                    }
+                }
+            }
+        }
+
+        // Visits every line of the bills issued between the two dates (inclusive)
+        public void scanLines(LocalDate startDate, LocalDate endDate, LineVisitor visitor) {
+            scanLines(startDate, endDate, 0, lineRows, visitor);
+            ReportEvent.countRows(lineRows);
+        }
+
+        public void scanLines(LocalDate startDate, LocalDate endDate, int fromRow, int toRow, LineVisitor visitor) {
+            int from = (int) startDate.toEpochDay();
+            int to = (int) endDate.toEpochDay();
+            for (int row = fromRow; row < toRow; ) {
+                int chunk = row >>> CHUNK_SHIFT;
+                int end = chunkEnd(chunk, toRow);
+                MappedByteBuffer days = lineDays[chunk];
+                MappedByteBuffer cashiers = lineCashiers[chunk];
+                MappedByteBuffer items = lineItems[chunk];
+                MappedByteBuffer quantities = lineQuantities[chunk];
+                MappedByteBuffer prices = linePrices[chunk];
+                MappedByteBuffer costs = lineCosts[chunk];
+                for (; row < end; row++) {
+                    int index = row & CHUNK_MASK;
+                    int day = days.getInt(index * Integer.BYTES);
+                    if (day >= from && day <= to) {
+                        int intOffset = index * Integer.BYTES;
+                        int longOffset = index * Long.BYTES;
+                        visitor.visit(day, cashiers.getInt(intOffset), items.getInt(intOffset),
+                                quantities.getInt(intOffset), prices.getLong(longOffset), costs.getLong(longOffset));
+                    }
+                }
+            }
+        }
+
+        // First row after the chunk, or toRow when that comes first
+        private static int chunkEnd(int chunk, int toRow) {
+            return (int) Math.min(toRow, ((long) chunk + 1) << CHUNK_SHIFT);
+        }
+    }
+
+    // One fixed-width column file, appended through a channel and read through mapped chunks
+    private static final class Column {
+        private final int width;
+        private final FileChannel channel;
+        private long size;
+        private MappedByteBuffer[] mapped = new MappedByteBuffer[0];
+
+        Column(Path path, int width) throws IOException {
+            this.width = width;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.size = channel.size();
+        }
+
+        long rows() {
+            return size / width;
+        }
+
+        void append(ByteBuffer values) throws IOException {
+            values.flip();
+            while (values.hasRemaining()) {
+                size += channel.write(values, size);
+            }
+        }
+
+        void truncate(long rows) throws IOException {
+            long length = rows * width;
+            if (channel.size() > length) {
+                channel.truncate(length);
+            }
+            size = length;
+            mapped = new MappedByteBuffer[0];
+        }
+
+        // Chunks that cover at least the given number of rows; only chunks the file grew into are remapped
+        MappedByteBuffer[] map(int rows) throws IOException {
+            int chunks = (int) (((long) rows + CHUNK_ROWS - 1) >>> CHUNK_SHIFT);
+            // A new array each time: snapshots keep the one they were given
+            MappedByteBuffer[] chunked = Arrays.copyOf(mapped, Math.max(chunks, mapped.length));
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                long firstRow = (long) chunk << CHUNK_SHIFT;
+                long length = (Math.min(rows, firstRow + CHUNK_ROWS) - firstRow) * width;
+                if (chunked[chunk] == null || chunked[chunk].capacity() < length) {
+                    chunked[chunk] = channel.map(FileChannel.MapMode.READ_ONLY, firstRow * width, length);
+                }
+            }
+            mapped = chunked;
+            return chunked;
+        }
+    }
+}
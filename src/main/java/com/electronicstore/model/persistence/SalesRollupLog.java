@@ -0,0 +1,219 @@
+package com.electronicstore.model.persistence;
+
+import com.electronicstore.model.sales.DailySales;
+import com.electronicstore.model.sales.SalesTotals;
+import com.electronicstore.model.utils.FileHandler;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * What each finalized bill added to the sales rollups since sales_rollups.dat
+ * was last written: one small record per bill instead of a rewrite of every
+ * day. The log starts with a checkpoint holding the number of bills the
+ * snapshot accounts for; a snapshot with another count (written after the log
+ * was, or copied in from elsewhere) does not get the deltas replayed on top of
+ * it, and the log restarts for it.
+ *
+ * Appends are not synced: the rollups are derived from the bill journal, and
+ * bills lost with an unsynced tail are put back by the reconcile on startup.
+ * Records use the journal's [int length][int crc32][payload] framing; a torn
+ * tail is cut off on replay.
+ */
+public class SalesRollupLog {
+    private static final Logger LOGGER = Logger.getLogger(SalesRollupLog.class.getName());
+
+    public static final String LOG_FILE = "sales_rollups.log";
+
+    private static final int MAGIC = 0x45535231; // "ESR1"
+    private static final int VERSION = 1;
+    private static final int FILE_HEADER_SIZE = 8;
+    private static final int MAX_RECORD_SIZE = 1024 * 1024;
+    // Checkpoint of a log whose snapshot is unknown; never matches
+    private static final long NO_SNAPSHOT = -1;
+
+    private static final byte CHECKPOINT = 1;
+    private static final byte DELTA = 2;
+
+    private final Path path;
+    private int pending;
+
+    public SalesRollupLog(Path path) {
+        this.path = path;
+    }
+
+    // Number of bills not yet folded into the snapshot
+    public synchronized int pendingCount() {
+        return pending;
+    }
+
+    public synchronized void append(LocalDate date, DailySales.BillSales sales) throws IOException {
+        ByteArrayOutputStream record = new ByteArrayOutputStream(128);
+        Records.write(new DataOutputStream(record), encodeDelta(date, sales));
+        ByteBuffer buffer = ByteBuffer.wrap(record.toByteArray());
+
+        ensureHeader();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        pending++;
+    }
+
+    /**
+     * Hands the deltas recorded against a snapshot of the given number of bills
+     * to the action, in order. When the log belongs to another snapshot (or
+     * there is no valid log) it is restarted for this one and nothing is replayed.
+     */
+    public synchronized void replay(long snapshotBills, BiConsumer<LocalDate, DailySales.BillSales> action) {
+        int deltas = 0;
+        long validLength = FILE_HEADER_SIZE;
+        long checkpoint = NO_SNAPSHOT;
+        try (DataInputStream in = open()) {
+            byte[] payload = in != null ? Records.read(in, MAX_RECORD_SIZE) : null;
+            checkpoint = payload != null ? decodeCheckpoint(payload) : NO_SNAPSHOT;
+            if (checkpoint != NO_SNAPSHOT && checkpoint == snapshotBills) {
+                validLength += Records.HEADER_SIZE + payload.length;
+                while ((payload = Records.read(in, MAX_RECORD_SIZE)) != null) {
+                    if (!decodeDelta(payload, action)) {
+                        break;
+                    }
+                    validLength += Records.HEADER_SIZE + payload.length;
+                    deltas++;
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not read sales rollup log", e);
+            checkpoint = NO_SNAPSHOT;
+        }
+
+        if (checkpoint == NO_SNAPSHOT || checkpoint != snapshotBills) {
+            if (checkpoint != NO_SNAPSHOT) {
+                LOGGER.info("Sales rollups were replaced; discarding the deltas recorded against the previous ones");
+            }
+            try {
+                restart(snapshotBills);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not restart sales rollup log", e);
+            }
+            return;
+        }
+
+        pending = deltas;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            if (channel.size() > validLength) {
+                LOGGER.warning("Truncating torn tail of sales rollup log at offset " + validLength);
+                channel.truncate(validLength);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not truncate sales rollup log", e);
+        }
+    }
+
+    // Starts an empty log for the snapshot that was just written
+    public synchronized void restart(long snapshotBills) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        Records.write(out, encodeCheckpoint(snapshotBills));
+        FileHandler.writeBytesAtomically(path, bytes.toByteArray());
+        pending = 0;
+    }
+
+    // Positioned after the header, or null when there is no valid log
+    private DataInputStream open() throws IOException {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)));
+        try {
+            if (in.readInt() == MAGIC && in.readInt() == VERSION) {
+                return in;
+            }
+        } catch (EOFException e) {
+            // Shorter than a header
+        }
+        in.close();
+        return null;
+    }
+
+    // A log that vanished under us can no longer be matched to the snapshot
+    private void ensureHeader() throws IOException {
+        if (Files.exists(path) && Files.size(path) >= FILE_HEADER_SIZE) {
+            return;
+        }
+        restart(NO_SNAPSHOT);
+    }
+
+    private static byte[] encodeCheckpoint(long snapshotBills) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(CHECKPOINT);
+            out.writeLong(snapshotBills);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static long decodeCheckpoint(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        return in.readByte() == CHECKPOINT ? in.readLong() : NO_SNAPSHOT;
+    }
+
+    private static byte[] encodeDelta(LocalDate date, DailySales.BillSales sales) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(DELTA);
+            out.writeLong(date.toEpochDay());
+            out.writeUTF(sales.cashierId());
+            writeTotals(out, sales.total());
+            out.writeInt(sales.byItem().size());
+            for (Map.Entry<String, SalesTotals> item : sales.byItem().entrySet()) {
+                out.writeUTF(item.getKey());
+                writeTotals(out, item.getValue());
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    // False for a record that is not a delta; the log is cut off there like at a torn tail
+    private static boolean decodeDelta(byte[] payload, BiConsumer<LocalDate, DailySales.BillSales> action)
+            throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        if (in.readByte() != DELTA) {
+            return false;
+        }
+        LocalDate date = LocalDate.ofEpochDay(in.readLong());
+        String cashierId = in.readUTF();
+        SalesTotals total = readTotals(in);
+        int items = in.readInt();
+        Map<String, SalesTotals> byItem = new LinkedHashMap<>();
+        for (int i = 0; i < items; i++) {
+            byItem.put(in.readUTF(), readTotals(in));
+        }
+        action.accept(date, new DailySales.BillSales(cashierId, total, byItem));
+        return true;
+    }
+
+    private static void writeTotals(DataOutputStream out, SalesTotals totals) throws IOException {
+        out.writeLong(totals.getRevenueCents());
+        out.writeLong(totals.getCostCents());
+        out.writeInt(totals.getBillCount());
+        out.writeInt(totals.getUnits());
+    }
+
+    private static SalesTotals readTotals(DataInputStream in) throws IOException {
+        return new SalesTotals(in.readLong(), in.readLong(), in.readInt(), in.readInt());
+    }
+}
@@ -0,0 +1,150 @@
+package com.electronicstore.model.persistence;
+
+import com.electronicstore.model.sales.Bill;
+import com.electronicstore.model.sales.DailySales;
+import com.electronicstore.model.utils.FileHandler;
+import com.electronicstore.model.utils.ReportEvent;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Per-day sales rollups kept in sales_rollups.dat, updated as bills are
+ * finalized so that daily and monthly figures cost O(days) instead of a scan
+ * over every bill. A finalized bill updates its day in place and appends its
+ * delta to the {@link SalesRollupLog}; the file itself is only rewritten, and
+ * the log folded in, once {@value #COMPACTION_THRESHOLD_PROPERTY} bills
+ * (default 10000) have piled up or after a rebuild. The bill journal remains
+ * the record, and the rollups are rebuilt from it on startup when they do not
+ * account for exactly the journaled bills.
+ */
+public class SalesRollupRepository extends FileRepository<DailySales> {
+    private static final Logger LOGGER = Logger.getLogger(SalesRollupRepository.class.getName());
+
+    public static final String ROLLUPS_FILE = "sales_rollups.dat";
+
+    public static final String COMPACTION_THRESHOLD_PROPERTY = "electronicstore.rollupCompactionThreshold";
+    private static final int COMPACTION_THRESHOLD = Integer.getInteger(COMPACTION_THRESHOLD_PROPERTY, 10000);
+
+    private static final SalesRollupRepository INSTANCE = new SalesRollupRepository();
+
+    private final SalesRollupLog deltas;
+
+    private SalesRollupRepository() {
+        super(ROLLUPS_FILE, DailySales::getId);
+        this.deltas = new SalesRollupLog(FileHandler.resolve(SalesRollupLog.LOG_FILE));
+    }
+
+    public static SalesRollupRepository getInstance() {
+        return INSTANCE;
+    }
+
+    // Adds a finalized bill to the rollup of its day
+    public synchronized void record(Bill bill) {
+        LocalDate date = dateOf(bill);
+        DailySales.BillSales sales = DailySales.BillSales.of(bill);
+        dayOf(date).add(sales);
+        try {
+            deltas.append(date, sales);
+        } catch (IOException e) {
+            // The day already has the bill; write the whole file so it is not lost
+            LOGGER.log(Level.WARNING, "Could not log sales rollup delta", e);
+            requestFlush();
+            return;
+        }
+        if (deltas.pendingCount() >= COMPACTION_THRESHOLD) {
+            requestFlush();
+        }
+    }
+
+    public Optional<DailySales> forDay(LocalDate date) {
+        Optional<DailySales> day = findById(date.toString());
+        ReportEvent.countRows(day.isPresent() ? 1 : 0);
+        return day;
+    }
+
+    // Rollups of the days in the range that had sales, in date order
+    public List<DailySales> forRange(LocalDate startDate, LocalDate endDate) {
+        List<DailySales> days = new ArrayList<>();
+        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+            forDay(date).ifPresent(days::add);
+        }
+        return days;
+    }
+
+    // Number of bills accounted for by all rollups
+    public synchronized int billCount() {
+        int bills = 0;
+        for (DailySales day : findAll()) {
+            bills += day.getTotal().getBillCount();
+        }
+        return bills;
+    }
+
+    // Rebuilds the rollups from the journal when they do not account for exactly its bills
+    synchronized void reconcile(BillJournal journal) {
+        if (billCount() == journal.billCount()) {
+            return;
+        }
+        try {
+            LOGGER.info("Rebuilding sales rollups from " + journal.billCount() + " journaled bills");
+            rebuild(journal);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not rebuild sales rollups", e);
+        }
+    }
+
+    // Streams the journal into one accumulator per day; only the rollups are held, never the bills
+    public synchronized void rebuild(BillJournal journal) throws IOException {
+        Map<LocalDate, DailySales> days = new TreeMap<>();
+        journal.forEach(ReferenceResolver.forCatalog(List.of()),
+                bill -> days.computeIfAbsent(dateOf(bill), DailySales::new).add(bill));
+        replaceAll(days.values());
+    }
+
+    @Override
+    protected void afterLoad(Collection<DailySales> loadedDays, String stamp) {
+        Map<LocalDate, DailySales> days = new HashMap<>();
+        for (DailySales day : loadedDays) {
+            days.put(day.getDate(), day);
+        }
+        deltas.replay(billCount(loadedDays), (date, sales) -> days.computeIfAbsent(date, newDate -> {
+            DailySales day = new DailySales(newDate);
+            cache(day);
+            return day;
+        }).add(sales));
+    }
+
+    // Compaction: the file gets every day as it is now, and the log restarts for it
+    @Override
+    protected String write(List<DailySales> snapshot) throws IOException {
+        String stamp = super.write(snapshot);
+        deltas.restart(billCount(snapshot));
+        return stamp;
+    }
+
+    // The day's rollup, added (unwritten) when the day had no sales yet; called with the lock held
+    private DailySales dayOf(LocalDate date) {
+        DailySales day = findById(date.toString()).orElse(null);
+        if (day == null) {
+            day = new DailySales(date);
+            cache(day);
+        }
+        return day;
+    }
+
+    private static long billCount(Collection<DailySales> days) {
+        long bills = 0;
+        for (DailySales day : days) {
+            bills += day.getTotal().getBillCount();
+        }
+        return bills;
+    }
+
+    private static LocalDate dateOf(Bill bill) {
+        return bill.getDate() != null ? bill.getDate() : LocalDate.now();
+    }
+}
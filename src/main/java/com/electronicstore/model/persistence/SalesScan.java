@@ -0,0 +1,482 @@
+package com.electronicstore.model.persistence;
+
+import com.electronicstore.model.utils.ReportEvent;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * One pass over the sales columns of a date range that feeds any number of
+ * accumulators, so a bundle of reports costs one scan of each table instead
+ * of one or two per report.
+ *
+ * Accumulators are registered before {@link #run()}; the accessors for the
+ * standard ones return the instance already registered, so reports rendered
+ * from the same scan share it. The line table is only read when a
+ * registered accumulator uses it.
+ *
+ * A table with at least the number of rows set by
+ * {@value #PARALLEL_THRESHOLD_PROPERTY} (default
+ * {@value #DEFAULT_PARALLEL_THRESHOLD}) is split into row segments scanned
+ * on the common fork/join pool. Each segment fills its own empty copies of
+ * the accumulators, which are merged pairwise as the segments join, so no
+ * accumulator is shared between threads. Smaller tables, and scans with an
+ * accumulator that cannot be copied, stay on the calling thread.
+ */
+public class SalesScan {
+    public static final String PARALLEL_THRESHOLD_PROPERTY = "electronicstore.parallelScanRows";
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 200_000;
+
+    // A segment is a quarter of the threshold, so a parallel scan has at least four
+    private static final int SEGMENTS_PER_THRESHOLD = 4;
+
+    // Receives the bill and line rows of the scanned range
+    public interface Accumulator extends SalesColumnStore.BillVisitor, SalesColumnStore.LineVisitor {
+        default boolean usesBills() {
+            return true;
+        }
+
+        default boolean usesLines() {
+            return true;
+        }
+
+        @Override
+        default void visit(int epochDay, int cashier, long totalCents) {
+        }
+
+        @Override
+        default void visit(int epochDay, int cashier, int item, int quantity, long priceCents, long unitCostCents) {
+        }
+
+        // Empty accumulator of the same shape for one segment of a parallel scan; null if it cannot be split
+        default Accumulator emptyCopy() {
+            return null;
+        }
+
+        // Adds the figures of a copy made by emptyCopy() to this one
+        default void merge(Accumulator other) {
+        }
+    }
+
+    private final SalesColumnStore.Snapshot sales;
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+    private final List<Accumulator> accumulators = new ArrayList<>();
+    private int parallelThreshold = Integer.getInteger(PARALLEL_THRESHOLD_PROPERTY, DEFAULT_PARALLEL_THRESHOLD);
+    private boolean done;
+
+    private Totals totals;
+    private ByDay byDay;
+    private ByCashier byCashier;
+    private ByItem byItem;
+
+    public SalesScan(SalesColumnStore.Snapshot sales, LocalDate startDate, LocalDate endDate) {
+        this.sales = sales;
+        this.startDate = startDate;
+        this.endDate = endDate;
+    }
+
+    public SalesColumnStore.Snapshot getSales() {
+        return sales;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    // Rows a table needs for a parallel scan; Integer.MAX_VALUE keeps every scan sequential
+    public void setParallelThreshold(int rows) {
+        this.parallelThreshold = Math.max(1, rows);
+    }
+
+    public <A extends Accumulator> A add(A accumulator) {
+        if (done) {
+            throw new IllegalStateException("The scan has already run");
+        }
+        accumulators.add(accumulator);
+        return accumulator;
+    }
+
+    public Totals totals() {
+        if (totals == null) {
+            totals = add(new Totals());
+        }
+        return totals;
+    }
+
+    // Per-day revenue and bill counts; with cost, also the purchase cost of each day's lines
+    public ByDay byDay(boolean withCost) {
+        if (byDay == null) {
+            byDay = add(new ByDay(startDate, endDate));
+        }
+        if (withCost && !byDay.withCost) {
+            if (done) {
+                throw new IllegalStateException("The scan has already run");
+            }
+            byDay.withCost = true;
+        }
+        return byDay;
+    }
+
+    public ByCashier byCashier() {
+        if (byCashier == null) {
+            byCashier = add(new ByCashier(sales.cashierCount()));
+        }
+        return byCashier;
+    }
+
+    public ByItem byItem() {
+        if (byItem == null) {
+            byItem = add(new ByItem(sales.itemCount()));
+        }
+        return byItem;
+    }
+
+    // Reads each table needed by the registered accumulators once; runs at most once
+    public void run() {
+        if (done) {
+            return;
+        }
+        done = true;
+
+        Accumulator[] billUsers = accumulators.stream().filter(Accumulator::usesBills).toArray(Accumulator[]::new);
+        Accumulator[] lineUsers = accumulators.stream().filter(Accumulator::usesLines).toArray(Accumulator[]::new);
+        if (billUsers.length > 0) {
+            if (splittable(billUsers, sales.billCount())) {
+                merge(billUsers, ForkJoinPool.commonPool().invoke(
+                        new Segment(billUsers, true, 0, sales.billCount(), segmentRows())));
+                ReportEvent.countRows(sales.billCount());
+            } else {
+                sales.scanBills(startDate, endDate, (day, cashier, totalCents) -> {
+                    for (Accumulator accumulator : billUsers) {
+                        accumulator.visit(day, cashier, totalCents);
+                    }
+                });
+            }
+        }
+        if (lineUsers.length > 0) {
+            if (splittable(lineUsers, sales.lineCount())) {
+                merge(lineUsers, ForkJoinPool.commonPool().invoke(
+                        new Segment(lineUsers, false, 0, sales.lineCount(), segmentRows())));
+                ReportEvent.countRows(sales.lineCount());
+            } else {
+                sales.scanLines(startDate, endDate, (day, cashier, item, quantity, priceCents, unitCostCents) -> {
+                    for (Accumulator accumulator : lineUsers) {
+                        accumulator.visit(day, cashier, item, quantity, priceCents, unitCostCents);
+                    }
+                });
+            }
+        }
+    }
+
+    private boolean splittable(Accumulator[] users, int rows) {
+        if (rows < parallelThreshold) {
+            return false;
+        }
+        for (Accumulator accumulator : users) {
+            if (accumulator.emptyCopy() == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int segmentRows() {
+        return Math.max(1, parallelThreshold / SEGMENTS_PER_THRESHOLD);
+    }
+
+    private static void merge(Accumulator[] into, Accumulator[] from) {
+        for (int i = 0; i < into.length; i++) {
+            into[i].merge(from[i]);
+        }
+    }
+
+    // Rows [fromRow, toRow) of one table, scanned into fresh copies of the accumulators; never serialized
+    @SuppressWarnings("serial")
+    private final class Segment extends RecursiveTask<Accumulator[]> {
+        private final Accumulator[] users;
+        private final boolean bills;
+        private final int fromRow;
+        private final int toRow;
+        private final int segmentRows;
+
+        Segment(Accumulator[] users, boolean bills, int fromRow, int toRow, int segmentRows) {
+            this.users = users;
+            this.bills = bills;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+            this.segmentRows = segmentRows;
+        }
+
+        @Override
+        protected Accumulator[] compute() {
+            if (toRow - fromRow > segmentRows) {
+                int middle = (fromRow + toRow) >>> 1;
+                Segment left = new Segment(users, bills, fromRow, middle, segmentRows);
+                left.fork();
+                Accumulator[] right = new Segment(users, bills, middle, toRow, segmentRows).compute();
+                Accumulator[] merged = left.join();
+                merge(merged, right);
+                return merged;
+            }
+
+            Accumulator[] copies = new Accumulator[users.length];
+            for (int i = 0; i < users.length; i++) {
+                copies[i] = users[i].emptyCopy();
+            }
+            if (bills) {
+                sales.scanBills(startDate, endDate, fromRow, toRow, (day, cashier, totalCents) -> {
+                    for (Accumulator accumulator : copies) {
+                        accumulator.visit(day, cashier, totalCents);
+                    }
+                });
+            } else {
+                sales.scanLines(startDate, endDate, fromRow, toRow,
+                        (day, cashier, item, quantity, priceCents, unitCostCents) -> {
+                            for (Accumulator accumulator : copies) {
+                                accumulator.visit(day, cashier, item, quantity, priceCents, unitCostCents);
+                            }
+                        });
+            }
+            return copies;
+        }
+    }
+
+    // Revenue, purchase cost, bills and units of the whole range
+    public static final class Totals implements Accumulator {
+        private long revenueCents;
+        private long costCents;
+        private int bills;
+        private long units;
+
+        @Override
+        public void visit(int epochDay, int cashier, long totalCents) {
+            revenueCents += totalCents;
+            bills++;
+        }
+
+        @Override
+        public void visit(int epochDay, int cashier, int item, int quantity, long priceCents, long unitCostCents) {
+            costCents += unitCostCents * quantity;
+            units += quantity;
+        }
+
+        @Override
+        public Accumulator emptyCopy() {
+            return new Totals();
+        }
+
+        @Override
+        public void merge(Accumulator other) {
+            Totals totals = (Totals) other;
+            revenueCents += totals.revenueCents;
+            costCents += totals.costCents;
+            bills += totals.bills;
+            units += totals.units;
+        }
+
+        public long getRevenueCents() {
+            return revenueCents;
+        }
+
+        public long getCostCents() {
+            return costCents;
+        }
+
+        public int getBillCount() {
+            return bills;
+        }
+
+        public long getUnits() {
+            return units;
+        }
+    }
+
+    // Figures per day of the range, indexed by the offset from its first day
+    public static final class ByDay implements Accumulator {
+        private final int firstDay;
+        private final long[] revenueCents;
+        private final long[] costCents;
+        private final int[] bills;
+        private boolean withCost;
+
+        ByDay(LocalDate startDate, LocalDate endDate) {
+            this((int) startDate.toEpochDay(),
+                    endDate.isBefore(startDate) ? 0 : (int) ChronoUnit.DAYS.between(startDate, endDate) + 1);
+        }
+
+        private ByDay(int firstDay, int days) {
+            this.firstDay = firstDay;
+            this.revenueCents = new long[days];
+            this.costCents = new long[days];
+            this.bills = new int[days];
+        }
+
+        @Override
+        public boolean usesLines() {
+            return withCost;
+        }
+
+        @Override
+        public void visit(int epochDay, int cashier, long totalCents) {
+            revenueCents[epochDay - firstDay] += totalCents;
+            bills[epochDay - firstDay]++;
+        }
+
+        @Override
+        public void visit(int epochDay, int cashier, int item, int quantity, long priceCents, long unitCostCents) {
+            costCents[epochDay - firstDay] += unitCostCents * quantity;
+        }
+
+        @Override
+        public Accumulator emptyCopy() {
+            ByDay copy = new ByDay(firstDay, bills.length);
+            copy.withCost = withCost;
+            return copy;
+        }
+
+        @Override
+        public void merge(Accumulator other) {
+            ByDay days = (ByDay) other;
+            add(revenueCents, days.revenueCents);
+            add(costCents, days.costCents);
+            add(bills, days.bills);
+        }
+
+        public int days() {
+            return bills.length;
+        }
+
+        public long getRevenueCents(int offset) {
+            return revenueCents[offset];
+        }
+
+        public long getCostCents(int offset) {
+            return costCents[offset];
+        }
+
+        public int getBillCount(int offset) {
+            return bills[offset];
+        }
+    }
+
+    // Revenue and bills per cashier ref of the snapshot
+    public static final class ByCashier implements Accumulator {
+        private final long[] revenueCents;
+        private final int[] bills;
+
+        ByCashier(int cashiers) {
+            this.revenueCents = new long[cashiers];
+            this.bills = new int[cashiers];
+        }
+
+        @Override
+        public boolean usesLines() {
+            return false;
+        }
+
+        @Override
+        public void visit(int epochDay, int cashier, long totalCents) {
+            revenueCents[cashier] += totalCents;
+            bills[cashier]++;
+        }
+
+        @Override
+        public Accumulator emptyCopy() {
+            return new ByCashier(bills.length);
+        }
+
+        @Override
+        public void merge(Accumulator other) {
+            ByCashier cashiers = (ByCashier) other;
+            add(revenueCents, cashiers.revenueCents);
+            add(bills, cashiers.bills);
+        }
+
+        public int cashiers() {
+            return bills.length;
+        }
+
+        public long getRevenueCents(int cashier) {
+            return revenueCents[cashier];
+        }
+
+        public int getBillCount(int cashier) {
+            return bills[cashier];
+        }
+    }
+
+    // Units, revenue and purchase cost per item ref of the snapshot
+    public static final class ByItem implements Accumulator {
+        private final int[] units;
+        private final long[] revenueCents;
+        private final long[] costCents;
+
+        ByItem(int items) {
+            this.units = new int[items];
+            this.revenueCents = new long[items];
+            this.costCents = new long[items];
+        }
+
+        @Override
+        public boolean usesBills() {
+            return false;
+        }
+
+        @Override
+        public void visit(int epochDay, int cashier, int item, int quantity, long priceCents, long unitCostCents) {
+            units[item] += quantity;
+            revenueCents[item] += priceCents * quantity;
+            costCents[item] += unitCostCents * quantity;
+        }
+
+        @Override
+        public Accumulator emptyCopy() {
+            return new ByItem(units.length);
+        }
+
+        @Override
+        public void merge(Accumulator other) {
+            ByItem items = (ByItem) other;
+            add(units, items.units);
+            add(revenueCents, items.revenueCents);
+            add(costCents, items.costCents);
+        }
+
+        public int items() {
+            return units.length;
+        }
+
+        public int getUnits(int item) {
+            return units[item];
+        }
+
+        public long getRevenueCents(int item) {
+            return revenueCents[item];
+        }
+
+        public long getCostCents(int item) {
+            return costCents[item];
+        }
+    }
+
+    private static void add(long[] into, long[] from) {
+        for (int i = 0; i < into.length; i++) {
+            into[i] += from[i];
+        }
+    }
+
+    private static void add(int[] into, int[] from) {
+        for (int i = 0; i < into.length; i++) {
+            into[i] += from[i];
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package com.electronicstore.model.persistence;
+
+import com.electronicstore.model.utils.FileHandler;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Stock changes recorded since items.dat was last written.
+ *
+ * A sale appends one small record per bill line (item ID, delta, bill number,
+ * time) instead of rewriting the whole catalog. The log starts with a
+ * checkpoint naming the generation of items.dat it applies to, an ID written
+ * into the file itself; when the item repository loads that file it replays
+ * the movements on top of it, and when it writes items.dat again (compaction)
+ * the log is restarted with the new file's generation. If items.dat was
+ * replaced by another file the checkpoint no longer matches and the log is
+ * discarded: the new file's stock wins for every item the repository has no
+ * unflushed save of. Copying or restoring the data directory keeps both.
+ *
+ * Records use the same [int length][int crc32][payload] framing as the bill
+ * journal; a torn tail is cut off when the log is opened.
+ */
+public class StockMovementLog {
+    private static final Logger LOGGER = Logger.getLogger(StockMovementLog.class.getName());
+
+    public static final String LOG_FILE = "stock_movements.log";
+
+    private static final int MAGIC = 0x45534D31; // "ESM1"
+    private static final int VERSION = 1;
+    private static final int FILE_HEADER_SIZE = 8;
+    private static final int MAX_RECORD_SIZE = 64 * 1024;
+
+    private static final byte CHECKPOINT = 1;
+    private static final byte MOVEMENT = 2;
+
+    // One stock change of one item
+    public static final class Movement {
+        private final String itemId;
+        private final int delta;
+        private final String billNumber;
+        private final Instant timestamp;
+
+        public Movement(String itemId, int delta, String billNumber, Instant timestamp) {
+            this.itemId = itemId;
+            this.delta = delta;
+            this.billNumber = billNumber;
+            this.timestamp = timestamp;
+        }
+
+        public String getItemId() {
+            return itemId;
+        }
+
+        public int getDelta() {
+            return delta;
+        }
+
+        // Null for changes made outside a bill
+        public String getBillNumber() {
+            return billNumber;
+        }
+
+        public Instant getTimestamp() {
+            return timestamp;
+        }
+    }
+
+    // Writes the snapshot the log is folded into and returns its generation
+    @FunctionalInterface
+    public interface SnapshotWriter {
+        String write() throws IOException;
+    }
+
+    private final Path path;
+    private int pending;
+
+    public StockMovementLog(Path path) {
+        this.path = path;
+        this.pending = recover();
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    // Number of movements not yet folded into the snapshot
+    public synchronized int pendingCount() {
+        return pending;
+    }
+
+    /**
+     * Applies a stock change and logs its movements as one step, so a
+     * compaction never sees the one without the other. Nothing is logged when
+     * the change reports failure.
+     *
+     * @return the result of the change
+     */
+    public boolean record(List<Movement> movements, BooleanSupplier change) throws IOException {
+        ByteArrayOutputStream records = new ByteArrayOutputStream(64 * movements.size());
+        DataOutputStream out = new DataOutputStream(records);
+        for (Movement movement : movements) {
+            Records.write(out, encodeMovement(movement));
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(records.toByteArray());
+
+        synchronized (this) {
+            if (!change.getAsBoolean()) {
+                return false;
+            }
+            if (!movements.isEmpty()) {
+                ensureHeader();
+                try (FileChannel channel = FileChannel.open(path,
+                        StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                }
+                pending += movements.size();
+            }
+        }
+
+        // Outside the lock, so tills finalizing at the same moment share one fsync
+        if (!movements.isEmpty()) {
+            FileHandler.syncFile(path);
+        }
+        return true;
+    }
+
+    /**
+     * Movements recorded against the snapshot of the given generation, in
+     * order. When the log belongs to another snapshot (or there is no log) it
+     * is restarted for this one and the result is empty.
+     */
+    public synchronized List<Movement> replay(String generation) {
+        List<Movement> movements = new ArrayList<>();
+        String checkpoint = null;
+        try (DataInputStream in = open()) {
+            if (in != null) {
+                byte[] payload = Records.read(in, MAX_RECORD_SIZE);
+                checkpoint = payload != null ? decodeCheckpoint(payload) : null;
+                if (Objects.equals(checkpoint, generationText(generation))) {
+                    while ((payload = Records.read(in, MAX_RECORD_SIZE)) != null) {
+                        movements.add(decodeMovement(payload));
+                    }
+                    return movements;
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not read stock movement log", e);
+        }
+
+        if (checkpoint != null) {
+            LOGGER.info("Snapshot was replaced; discarding stock movements recorded against the previous one");
+        }
+        try {
+            restart(generation);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not restart stock movement log", e);
+        }
+        return movements;
+    }
+
+    /**
+     * Folds the log into a new snapshot: the writer runs while no stock change
+     * can be logged, and the log then restarts empty for the file it wrote.
+     *
+     * @return the generation of the new snapshot
+     */
+    public synchronized String compact(SnapshotWriter writer) throws IOException {
+        String generation = writer.write();
+        restart(generation);
+        return generation;
+    }
+
+    private void restart(String generation) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        Records.write(out, encodeCheckpoint(generation));
+        FileHandler.writeBytesAtomically(path, bytes.toByteArray());
+        pending = 0;
+    }
+
+    // Cuts off a torn tail and counts the movements after the checkpoint
+    private synchronized int recover() {
+        int records = 0;
+        long validLength = FILE_HEADER_SIZE;
+        try (DataInputStream in = open()) {
+            if (in == null) {
+                return 0;
+            }
+            byte[] payload;
+            while ((payload = Records.read(in, MAX_RECORD_SIZE)) != null) {
+                validLength += Records.HEADER_SIZE + payload.length;
+                records++;
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Stock movement log recovery scan failed", e);
+            return 0;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            if (channel.size() > validLength) {
+                LOGGER.warning("Truncating torn tail of stock movement log at offset " + validLength);
+                channel.truncate(validLength);
+                channel.force(true);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not truncate stock movement log", e);
+        }
+        return Math.max(0, records - 1);
+    }
+
+    // Positioned after the header, or null when there is no valid log
+    private DataInputStream open() throws IOException {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)));
+        try {
+            if (in.readInt() == MAGIC && in.readInt() == VERSION) {
+                return in;
+            }
+        } catch (EOFException e) {
+            // Shorter than a header
+        }
+        in.close();
+        return null;
+    }
+
+    private void ensureHeader() throws IOException {
+        if (Files.exists(path) && Files.size(path) >= FILE_HEADER_SIZE) {
+            return;
+        }
+        restart(null);
+    }
+
+    // A missing snapshot file has no generation
+    private static String generationText(String generation) {
+        return generation != null ? generation : "";
+    }
+
+    private static byte[] encodeCheckpoint(String generation) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(CHECKPOINT);
+            out.writeUTF(generationText(generation));
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String decodeCheckpoint(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        return in.readByte() == CHECKPOINT ? in.readUTF() : null;
+    }
+
+    private static byte[] encodeMovement(Movement movement) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(48);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(MOVEMENT);
+            out.writeUTF(movement.itemId);
+            out.writeInt(movement.delta);
+            out.writeUTF(movement.billNumber != null ? movement.billNumber : "");
+            out.writeLong(movement.timestamp.toEpochMilli());
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Movement decodeMovement(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        if (in.readByte() != MOVEMENT) {
+            throw new IOException("Unexpected record in stock movement log");
+        }
+        String itemId = in.readUTF();
+        int delta = in.readInt();
+        String billNumber = in.readUTF();
+        Instant timestamp = Instant.ofEpochMilli(in.readLong());
+        return new Movement(itemId, delta, billNumber.isEmpty() ? null : billNumber, timestamp);
+    }
+}
@@ -0,0 +1,28 @@
+package com.electronicstore.model.persistence;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Pluggable on-disk format used by FileHandler for list files.
+ *
+ * Writers are chosen by content (first serializer that accepts the list wins),
+ * readers by the leading bytes of the file, so files written by an older format
+ * stay readable after a newer one is registered.
+ */
+public interface StoreSerializer {
+    // Number of leading bytes inspected by canRead
+    int HEADER_PROBE_SIZE = 4;
+
+    String getName();
+
+    boolean canWrite(List<?> list);
+
+    boolean canRead(byte[] header);
+
+    void writeList(List<?> list, OutputStream out) throws IOException;
+
+    <T> List<T> readList(InputStream in) throws IOException, ClassNotFoundException;
+}
@@ -0,0 +1,18 @@
+package com.electronicstore.model.persistence;
+
+import com.electronicstore.model.inventory.Supplier;
+
+// In-memory view of suppliers.dat shared by all controllers
+public class SupplierRepository extends FileRepository<Supplier> {
+    public static final String SUPPLIERS_FILE = "suppliers.dat";
+
+    private static final SupplierRepository INSTANCE = new SupplierRepository();
+
+    private SupplierRepository() {
+        super(SUPPLIERS_FILE, Supplier::getId);
+    }
+
+    public static SupplierRepository getInstance() {
+        return INSTANCE;
+    }
+}
@@ -0,0 +1,40 @@
+package com.electronicstore.model.persistence;
+
+import com.electronicstore.model.users.User;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+// In-memory view of users.dat, indexed by ID and by username
+public class UserRepository extends FileRepository<User> {
+    public static final String USERS_FILE = "users.dat";
+
+    private static final UserRepository INSTANCE = new UserRepository();
+
+    private Map<String, User> byUsername = new HashMap<>();
+    private long indexedModCount = -1;
+
+    private UserRepository() {
+        super(USERS_FILE, User::getId);
+    }
+
+    public static UserRepository getInstance() {
+        return INSTANCE;
+    }
+
+    // The index is rebuilt only after the user list changed
+    public synchronized Optional<User> findByUsername(String username) {
+        long current = modCount();
+        if (current != indexedModCount) {
+            Map<String, User> index = new HashMap<>();
+            for (User user : findAll()) {
+                // First one wins, as with the old linear scan
+                index.putIfAbsent(user.getUsername(), user);
+            }
+            byUsername = index;
+            indexedModCount = current;
+        }
+        return Optional.ofNullable(byUsername.get(username));
+    }
+}
@@ -1,10 +1,13 @@
 package com.electronicstore.model.sales;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class Bill implements Serializable {
@@ -15,6 +18,9 @@ public class Bill implements Serializable {
     private String cashierId;
     private List<SaleItem> items;
     private double totalAmount;
+    private long totalCents;
+    // Read-only view handed out by getItems; created once per instance
+    private transient List<SaleItem> itemsView;
 
     public Bill(String billNumber, String cashierId) {
         this.billNumber = billNumber;
@@ -30,6 +36,7 @@ public class Bill implements Serializable {
         this.date = date;
         this.items = new ArrayList<>();
         this.totalAmount = totalAmount;
+        this.totalCents = Money.toCents(totalAmount);
     }
 
     // Getters and Setters
@@ -57,29 +64,51 @@ public class Bill implements Serializable {
         this.cashierId = cashierId;
     }
 
+    // Read-only live view of the lines; copy it to keep a snapshot
     public List<SaleItem> getItems() {
-        return new ArrayList<>(items);
+        if (itemsView == null) {
+            itemsView = Collections.unmodifiableList(items);
+        }
+        return itemsView;
     }
 
     public double getTotalAmount() {
         return totalAmount;
     }
 
+    public long getTotalCents() {
+        return totalCents;
+    }
+
     // Business Methods
+    // The total is kept up to date line by line; a line must not change while it is on the bill
     public void addItem(SaleItem item) {
+        if (items.isEmpty()) {
+            // A total read from storage is replaced by the sum of the lines, as before
+            totalCents = 0;
+        }
         items.add(item);
-        calculateTotal();
+        updateTotal(totalCents + item.calculateSubtotalCents());
     }
 
     public void removeItem(SaleItem item) {
-        items.remove(item);
-        calculateTotal();
+        if (items.remove(item)) {
+            updateTotal(items.isEmpty() ? 0 : totalCents - item.calculateSubtotalCents());
+        }
     }
 
+    // Full recomputation, e.g. after lines were changed in place
     public void calculateTotal() {
-        this.totalAmount = items.stream()
-                .mapToDouble(SaleItem::calculateSubtotal)
-                .sum();
+        long cents = 0;
+        for (SaleItem item : items) {
+            cents += item.calculateSubtotalCents();
+        }
+        updateTotal(cents);
+    }
+
+    private void updateTotal(long cents) {
+        this.totalCents = cents;
+        this.totalAmount = Money.toAmount(cents);
     }
 
     // ✅ FIXED: proper printable format with real new lines
@@ -102,13 +131,13 @@ public class Bill implements Serializable {
             sb.append(item.getItem().getName())
               .append(" x").append(item.getQuantity())
               .append(" = $")
-              .append(String.format("%.2f", item.calculateSubtotal()))
+              .append(Money.format(item.calculateSubtotalCents()))
               .append(nl);
         }
 
         sb.append("---------------------------------").append(nl);
         sb.append("Total Amount: $")
-          .append(String.format("%.2f", totalAmount))
+          .append(Money.format(totalCents))
           .append(nl);
         sb.append("=================================").append(nl);
         sb.append("Thank you for shopping with us!").append(nl);
@@ -116,6 +145,14 @@ public class Bill implements Serializable {
         return sb.toString();
     }
 
+    // Bills saved before totals were kept in cents
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (totalCents == 0 && totalAmount != 0.0) {
+            totalCents = Money.toCents(totalAmount);
+        }
+    }
+
     @Override
     public String toString() {
         return String.format(
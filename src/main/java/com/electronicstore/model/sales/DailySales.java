@@ -0,0 +1,111 @@
+package com.electronicstore.model.sales;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sales totals of one day, overall and broken down by cashier and by item.
+ * {@link #add(Bill)} updates a rollup in place, so a finalized bill costs
+ * the few entries it touches; {@link #plus(Bill)} returns an updated copy and
+ * leaves the original alone. Additions are serialized per day, and the maps
+ * can be read while a till is adding to them.
+ */
+public final class DailySales implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    // What one bill adds to its day; item totals carry no bill count, the day counts one per item
+    public record BillSales(String cashierId, SalesTotals total, Map<String, SalesTotals> byItem) {
+        public static BillSales of(Bill bill) {
+            long costCents = 0;
+            int units = 0;
+            Map<String, SalesTotals> items = new LinkedHashMap<>();
+            for (SaleItem line : bill.getItems()) {
+                costCents += line.calculateCostCents();
+                units += line.getQuantity();
+                SalesTotals lineTotals = new SalesTotals(line.calculateSubtotalCents(),
+                        line.calculateCostCents(), 0, line.getQuantity());
+                items.merge(line.getItemId(), lineTotals, SalesTotals::plus);
+            }
+            return new BillSales(String.valueOf(bill.getCashierId()),
+                    new SalesTotals(bill.getTotalCents(), costCents, 1, units), items);
+        }
+    }
+
+    private static final SalesTotals ONE_BILL = new SalesTotals(0L, 0L, 1, 0);
+
+    private final LocalDate date;
+    private volatile SalesTotals total;
+    private final Map<String, SalesTotals> byCashier;
+    private final Map<String, SalesTotals> byItem;
+
+    public DailySales(LocalDate date) {
+        this(date, SalesTotals.ZERO, new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+    }
+
+    private DailySales(LocalDate date, SalesTotals total,
+                       Map<String, SalesTotals> byCashier, Map<String, SalesTotals> byItem) {
+        this.date = date;
+        this.total = total;
+        this.byCashier = byCashier;
+        this.byItem = byItem;
+    }
+
+    // Key of the rollup in its repository
+    public String getId() {
+        return date.toString();
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public SalesTotals getTotal() {
+        return total;
+    }
+
+    public Map<String, SalesTotals> getByCashier() {
+        return Collections.unmodifiableMap(byCashier);
+    }
+
+    // Item IDs to totals; an item's bill count is the number of bills it appears on
+    public Map<String, SalesTotals> getByItem() {
+        return Collections.unmodifiableMap(byItem);
+    }
+
+    // Adds the bill to this rollup
+    public void add(Bill bill) {
+        add(BillSales.of(bill));
+    }
+
+    public synchronized void add(BillSales sales) {
+        byCashier.merge(sales.cashierId(), sales.total(), SalesTotals::plus);
+        sales.byItem().forEach((itemId, lineTotals) ->
+                byItem.merge(itemId, lineTotals.plus(ONE_BILL), SalesTotals::plus));
+        total = total.plus(sales.total());
+    }
+
+    // Copy of this rollup with the bill added
+    public DailySales plus(Bill bill) {
+        return plusAll(List.of(bill));
+    }
+
+    // Copy of this rollup with all the bills added; the maps are copied once, not per bill
+    public synchronized DailySales plusAll(List<Bill> bills) {
+        DailySales copy = new DailySales(date, total, new ConcurrentHashMap<>(byCashier),
+                new ConcurrentHashMap<>(byItem));
+        for (Bill bill : bills) {
+            copy.add(bill);
+        }
+        return copy;
+    }
+
+    // Files written before rollups were updated in place hold plain hash maps
+    private Object readResolve() {
+        return new DailySales(date, total, new ConcurrentHashMap<>(byCashier), new ConcurrentHashMap<>(byItem));
+    }
+}
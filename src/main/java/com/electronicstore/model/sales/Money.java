@@ -0,0 +1,31 @@
+package com.electronicstore.model.sales;
+
+/**
+ * Money as a whole number of cents.
+ *
+ * Prices are still entered and shown as decimal amounts, but every total is
+ * summed in cents, so adding up any number of lines gives the exact result
+ * instead of accumulating floating-point error.
+ */
+public final class Money {
+    public static final int CENTS_PER_UNIT = 100;
+
+    private Money() {
+    }
+
+    // Nearest cent of a decimal amount
+    public static long toCents(double amount) {
+        return Math.round(amount * CENTS_PER_UNIT);
+    }
+
+    public static double toAmount(long cents) {
+        return cents / (double) CENTS_PER_UNIT;
+    }
+
+    // Two-decimal text of the amount, e.g. "-12.05", without a detour through double
+    public static String format(long cents) {
+        long units = Math.abs(cents / CENTS_PER_UNIT);
+        long rest = Math.abs(cents % CENTS_PER_UNIT);
+        return String.format("%s%d.%02d", cents < 0 ? "-" : "", units, rest);
+    }
+}
@@ -2,6 +2,8 @@ package com.electronicstore.model.sales;
 
 import com.electronicstore.model.inventory.Item;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 
 public class SaleItem implements Serializable {
@@ -10,12 +12,27 @@ public class SaleItem implements Serializable {
     private Item item;
     private int quantity;
     private double price;
+    private double unitCost; // purchase price at the time of sale
+    // Prices in cents, derived from the fields above
+    private transient long priceCents;
+    private transient long unitCostCents;
 
     public SaleItem(Item item, int quantity) {
         this.item = item;
         this.itemId = item.getId();
         this.quantity = quantity;
         this.price = item.getSellingPrice();
+        this.unitCost = item.getPurchasePrice();
+        updateCents();
+    }
+
+    public SaleItem(Item item, int quantity, double price, double unitCost) {
+        this.item = item;
+        this.itemId = item.getId();
+        this.quantity = quantity;
+        this.price = price;
+        this.unitCost = unitCost;
+        updateCents();
     }
 
     // Getters and Setters
@@ -26,17 +43,54 @@ public class SaleItem implements Serializable {
         this.item = item;
         this.itemId = item.getId();
         this.price = item.getSellingPrice();
+        this.unitCost = item.getPurchasePrice();
+        updateCents();
     }
 
     public int getQuantity() { return quantity; }
     public void setQuantity(int quantity) { this.quantity = quantity; }
 
     public double getPrice() { return price; }
-    public void setPrice(double price) { this.price = price; }
+    public void setPrice(double price) {
+        this.price = price;
+        updateCents();
+    }
+
+    public double getUnitCost() { return unitCost; }
+
+    public long getPriceCents() { return priceCents; }
+
+    public long getUnitCostCents() { return unitCostCents; }
 
     // Business Methods
+    public long calculateSubtotalCents() {
+        return quantity * priceCents;
+    }
+
+    public long calculateCostCents() {
+        return quantity * unitCostCents;
+    }
+
     public double calculateSubtotal() {
-        return quantity * price;
+        return Money.toAmount(calculateSubtotalCents());
+    }
+
+    public double calculateCost() {
+        return Money.toAmount(calculateCostCents());
+    }
+
+    private void updateCents() {
+        priceCents = Money.toCents(price);
+        unitCostCents = Money.toCents(unitCost);
+    }
+
+    // Lines saved before unitCost existed take it from the embedded item
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (unitCost == 0.0 && item != null) {
+            unitCost = item.getPurchasePrice();
+        }
+        updateCents();
     }
 
     @Override
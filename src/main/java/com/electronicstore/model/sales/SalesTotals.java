@@ -0,0 +1,66 @@
+package com.electronicstore.model.sales;
+
+import java.io.Serializable;
+
+// Immutable revenue, cost, bill and unit counters; money is held in cents
+public final class SalesTotals implements Serializable {
+    // 2: revenue and cost became cents; older rollup files are rebuilt from the journal
+    private static final long serialVersionUID = 2L;
+
+    public static final SalesTotals ZERO = new SalesTotals(0L, 0L, 0, 0);
+
+    private final long revenueCents;
+    private final long costCents;
+    private final int billCount;
+    private final int units;
+
+    public SalesTotals(long revenueCents, long costCents, int billCount, int units) {
+        this.revenueCents = revenueCents;
+        this.costCents = costCents;
+        this.billCount = billCount;
+        this.units = units;
+    }
+
+    public long getRevenueCents() {
+        return revenueCents;
+    }
+
+    public long getCostCents() {
+        return costCents;
+    }
+
+    public long getProfitCents() {
+        return revenueCents - costCents;
+    }
+
+    public double getRevenue() {
+        return Money.toAmount(revenueCents);
+    }
+
+    public double getCost() {
+        return Money.toAmount(costCents);
+    }
+
+    public double getProfit() {
+        return Money.toAmount(getProfitCents());
+    }
+
+    public int getBillCount() {
+        return billCount;
+    }
+
+    public int getUnits() {
+        return units;
+    }
+
+    public SalesTotals plus(SalesTotals other) {
+        return new SalesTotals(revenueCents + other.revenueCents, costCents + other.costCents,
+                billCount + other.billCount, units + other.units);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SalesTotals[revenue=%s, cost=%s, bills=%d, units=%d]",
+                Money.format(revenueCents), Money.format(costCents), billCount, units);
+    }
+}
@@ -1,6 +1,7 @@
 package com.electronicstore.model.users;
 
 import com.electronicstore.model.sales.Bill;
+import com.electronicstore.model.sales.Money;
 
 import java.io.Serializable;
 import java.util.List;
@@ -57,9 +58,9 @@ public class Cashier extends User implements Serializable {
     }
 
     public double getTotalSales() {
-        return dailyBills.stream()
+        return Money.toAmount(dailyBills.stream()
                 .filter(bill -> bill.getDate().equals(LocalDate.now()))
-                .mapToDouble(Bill::getTotalAmount)
-                .sum();
+                .mapToLong(Bill::getTotalCents)
+                .sum());
     }
 }
\ No newline at end of file
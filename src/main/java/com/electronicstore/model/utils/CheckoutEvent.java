@@ -0,0 +1,50 @@
+package com.electronicstore.model.utils;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for finalizing a bill: journal append, rollup
+ * update, stock movements and the printed copy.
+ */
+@Name("com.electronicstore.Checkout")
+@Label("Bill Finalization")
+@Category({"Electronic Store", "Billing"})
+@Description("Finalization of one bill at a till")
+public class CheckoutEvent extends Event {
+    @Label("Bill Number")
+    String billNumber;
+
+    @Label("Cashier")
+    String cashierId;
+
+    @Label("Lines")
+    int lineCount;
+
+    @Label("Total (cents)")
+    long totalCents;
+
+    @Label("Succeeded")
+    boolean succeeded;
+
+    public static CheckoutEvent start(String billNumber, String cashierId, int lineCount, long totalCents) {
+        CheckoutEvent event = new CheckoutEvent();
+        event.billNumber = billNumber;
+        event.cashierId = cashierId;
+        event.lineCount = lineCount;
+        event.totalCents = totalCents;
+        event.begin();
+        return event;
+    }
+
+    public void finish(boolean success) {
+        end();
+        if (shouldCommit()) {
+            succeeded = success;
+            commit();
+        }
+    }
+}
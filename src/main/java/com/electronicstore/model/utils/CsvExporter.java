@@ -0,0 +1,99 @@
+package com.electronicstore.model.utils;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes one CSV file row by row, so an export holds a buffer's worth of
+ * output in memory however many rows it has.
+ *
+ * Rows go through a buffer into a file channel, gzip-compressed when asked
+ * (the file name then gets a .gz suffix). The progress callback hears about
+ * every {@value #PROGRESS_INTERVAL} rows and once more when the file is
+ * closed. Nothing here touches the UI; callers decide how to report the
+ * outcome.
+ */
+public class CsvExporter implements Closeable {
+    public static final int PROGRESS_INTERVAL = 10_000;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Rows written so far to the named file
+    @FunctionalInterface
+    public interface Progress {
+        void rowsWritten(String file, long rows);
+
+        Progress NONE = (file, rows) -> {
+        };
+    }
+
+    private final Path file;
+    private final FileChannel channel;
+    private final CSVPrinter printer;
+    private final Progress progress;
+    private final FileIoEvent event;
+    private long rows;
+
+    public CsvExporter(Path file, boolean gzip, Progress progress, String... headers) throws IOException {
+        this.file = gzip ? file.resolveSibling(file.getFileName() + ".gz") : file;
+        this.progress = progress != null ? progress : Progress.NONE;
+        this.event = FileIoEvent.start(FileIoEvent.WRITE, this.file);
+        this.channel = FileChannel.open(this.file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+            if (gzip) {
+                out = new GZIPOutputStream(out, BUFFER_SIZE);
+            }
+            this.printer = new CSVPrinter(new OutputStreamWriter(out, StandardCharsets.UTF_8),
+                    CSVFormat.DEFAULT.builder().setHeader(headers).build());
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // File actually written, including the .gz suffix when compressed
+    public Path getFile() {
+        return file;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public void write(Object... values) throws IOException {
+        printer.printRecord(values);
+        rows++;
+        if (rows % PROGRESS_INTERVAL == 0) {
+            progress.rowsWritten(file.getFileName().toString(), rows);
+        }
+    }
+
+    // Flushes and closes the file (ending the gzip stream), then reports the final row count
+    @Override
+    public void close() throws IOException {
+        try {
+            printer.close();
+        } finally {
+            channel.close();
+        }
+        long bytes = file.toFile().length();
+        Metrics metrics = Metrics.getInstance();
+        metrics.count(Metrics.FILES_WRITTEN, 1);
+        metrics.count(Metrics.BYTES_WRITTEN, bytes);
+        event.finish(bytes);
+        progress.rowsWritten(file.getFileName().toString(), rows);
+    }
+}
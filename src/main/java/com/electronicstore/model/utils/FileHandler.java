@@ -1,19 +1,42 @@
 package com.electronicstore.model.utils;
 
+import com.electronicstore.model.persistence.BinaryStoreSerializer;
+import com.electronicstore.model.persistence.JavaObjectSerializer;
+import com.electronicstore.model.persistence.StoreSerializer;
 import com.electronicstore.model.sales.Bill;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
 import java.nio.file.*;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class FileHandler {
     public static final String DATA_DIRECTORY = "store_data";
+    // Alternative data directory, e.g. for benchmarks and generated datasets
+    public static final String DATA_DIRECTORY_PROPERTY = "electronicstore.dataDir";
 
     // Avoid hard-coded delimiters by using Path/resolve
-    private static final Path DATA_PATH = Paths.get(DATA_DIRECTORY);
+    private static final Path DATA_PATH = Paths.get(System.getProperty(DATA_DIRECTORY_PROPERTY, DATA_DIRECTORY));
     private static final Path BILLS_PATH = DATA_PATH.resolve("bills");
 
+    // List file formats, in order of preference. Java serialization stays last as
+    // the catch-all writer and as the reader for files from older versions.
+    private static final List<StoreSerializer> SERIALIZERS = new CopyOnWriteArrayList<>(
+            List.of(new BinaryStoreSerializer(), new JavaObjectSerializer()));
+
+    private static final int GENERATION_MAGIC = 0x45534731; // "ESG1"
+    private static final int GENERATION_TRAILER_SIZE = 8;
+    private static final int MAX_GENERATION_SIZE = 256;
+
+    // Durable writes arriving within this many milliseconds share one commit
+    public static final String GROUP_COMMIT_WINDOW_PROPERTY = "electronicstore.groupCommitWindowMs";
+    private static final GroupCommit GROUP_COMMIT =
+            new GroupCommit(Long.getLong(GROUP_COMMIT_WINDOW_PROPERTY, 2L));
+
     static {
         try {
             // Create necessary directories 
@@ -24,14 +47,20 @@ public class FileHandler {
         }
     }
 
+    // Resolve a file name inside the data directory
+    public static Path resolve(String filename) {
+        return DATA_PATH.resolve(filename);
+    }
+
     // Generic method to save object to binary file
     public static <T extends Serializable> void saveToFile(T object, String filename)
             throws IOException {
         Path filepath = DATA_PATH.resolve(filename);
-        try (ObjectOutputStream oos = new ObjectOutputStream(
-                new FileOutputStream(filepath.toFile()))) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
             oos.writeObject(object);
         }
+        commitAtomically(filepath, bytes.toByteArray());
     }
 
     // Generic method to read object from binary file
@@ -39,29 +68,185 @@ public class FileHandler {
     public static <T extends Serializable> T readFromFile(String filename)
             throws IOException, ClassNotFoundException {
         Path filepath = DATA_PATH.resolve(filename);
+        FileIoEvent event = FileIoEvent.start(FileIoEvent.READ, filepath);
         try (ObjectInputStream ois = new ObjectInputStream(
                 new FileInputStream(filepath.toFile()))) {
-            return (T) ois.readObject();
+            T object = (T) ois.readObject();
+            countRead(event, Files.size(filepath));
+            return object;
         }
     }
 
+    // Register an additional list format ahead of the built-in ones
+    public static void registerSerializer(StoreSerializer serializer) {
+        SERIALIZERS.add(0, serializer);
+    }
+
     // Method to save list of objects to binary file
     public static <T extends Serializable> void saveListToFile(List<T> list, String filename)
             throws IOException {
+        saveListToFile(list, DATA_PATH.resolve(filename));
+    }
+
+    // Same, for a list file outside the data directory (e.g. a generated dataset)
+    public static <T extends Serializable> void saveListToFile(List<T> list, Path filepath)
+            throws IOException {
+        System.out.println("Saving to file: " + filepath);
+        StoreSerializer serializer = serializerForWrite(list);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        serializer.writeList(list, bytes);
+        commitAtomically(filepath, bytes.toByteArray());
+        System.out.println("Successfully saved " + list.size() + " items");
+    }
+
+    /**
+     * Same, with a generation ID after the list. List readers stop at the end
+     * of the list and never see it; {@link #readGeneration(Path)} reads it back.
+     * Unlike the file's size or modification time, the ID survives copying or
+     * restoring the file.
+     */
+    public static <T extends Serializable> void saveListToFile(List<T> list, String filename, String generation)
+            throws IOException {
         Path filepath = DATA_PATH.resolve(filename);
         System.out.println("Saving to file: " + filepath);
-        try (ObjectOutputStream oos = new ObjectOutputStream(
-                new FileOutputStream(filepath.toFile()))) {
-            oos.writeObject(list);
-            System.out.println("Successfully saved " + list.size() + " items");
+        StoreSerializer serializer = serializerForWrite(list);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        serializer.writeList(list, bytes);
+        // Trailer: [generation bytes][int length][int magic], found from the end of the file
+        byte[] id = generation.getBytes(StandardCharsets.UTF_8);
+        DataOutputStream trailer = new DataOutputStream(bytes);
+        trailer.write(id);
+        trailer.writeInt(id.length);
+        trailer.writeInt(GENERATION_MAGIC);
+        trailer.flush();
+        commitAtomically(filepath, bytes.toByteArray());
+        System.out.println("Successfully saved " + list.size() + " items");
+    }
+
+    // Generation ID written with the list file, or null when the file is missing or has none
+    public static String readGeneration(Path filepath) {
+        try (FileChannel channel = FileChannel.open(filepath, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < GENERATION_TRAILER_SIZE) {
+                return null;
+            }
+            ByteBuffer tail = ByteBuffer.allocate(GENERATION_TRAILER_SIZE);
+            readFully(channel, tail, size - GENERATION_TRAILER_SIZE);
+            int length = tail.getInt(0);
+            if (tail.getInt(4) != GENERATION_MAGIC || length <= 0 || length > MAX_GENERATION_SIZE
+                    || size < GENERATION_TRAILER_SIZE + length) {
+                return null;
+            }
+            ByteBuffer id = ByteBuffer.allocate(length);
+            readFully(channel, id, size - GENERATION_TRAILER_SIZE - length);
+            return new String(id.array(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            // NoSuchFileException included: a missing file has no generation
+            return null;
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+    }
+
+    // fsync an append-only file; concurrent requests for the same file share one fsync
+    public static void syncFile(Path filepath) throws IOException {
+        FileIoEvent event = FileIoEvent.start(FileIoEvent.SYNC, filepath);
+        GROUP_COMMIT.submit(filepath, () -> {
+            try (FileChannel channel = FileChannel.open(filepath, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+        });
+        event.finish(0);
+    }
+
+    // Replace any file (not only those in the data directory) with the given content atomically
+    public static void writeTextAtomically(Path filepath, String content) throws IOException {
+        commitAtomically(filepath, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static void writeBytesAtomically(Path filepath, byte[] content) throws IOException {
+        commitAtomically(filepath, content);
+    }
+
+    // Replace the file so that readers see either the old or the new content, never a torn one
+    private static void commitAtomically(Path filepath, byte[] content) throws IOException {
+        FileIoEvent event = FileIoEvent.start(FileIoEvent.WRITE, filepath);
+        GROUP_COMMIT.submit(filepath, () -> writeAtomically(filepath, content));
+        countWrite(event, content.length);
+    }
+
+    private static void writeAtomically(Path filepath, byte[] content) throws IOException {
+        Path directory = filepath.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, filepath.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(content);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(temp, filepath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        syncDirectory(directory);
+    }
+
+    // Persist the rename itself; not every platform allows opening a directory
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Best effort
         }
     }
 
     // Method to read list of objects from binary file
-    @SuppressWarnings("unchecked")
     public static <T extends Serializable> List<T> readListFromFile(String filename)
             throws IOException, ClassNotFoundException {
-        return (List<T>) readFromFile(filename);
+        return readListFromFile(DATA_PATH.resolve(filename));
+    }
+
+    public static <T extends Serializable> List<T> readListFromFile(Path filepath)
+            throws IOException, ClassNotFoundException {
+        FileIoEvent event = FileIoEvent.start(FileIoEvent.READ, filepath);
+        try (InputStream in = new BufferedInputStream(
+                new FileInputStream(filepath.toFile()))) {
+            List<T> list = serializerForRead(in, filepath).readList(in);
+            countRead(event, Files.size(filepath));
+            return list;
+        }
+    }
+
+    private static StoreSerializer serializerForWrite(List<?> list) throws IOException {
+        for (StoreSerializer serializer : SERIALIZERS) {
+            if (serializer.canWrite(list)) {
+                return serializer;
+            }
+        }
+        throw new NotSerializableException("No serializer accepts " + list.getClass().getName());
+    }
+
+    // Peeks at the file header without consuming it
+    private static StoreSerializer serializerForRead(InputStream in, Path filepath) throws IOException {
+        in.mark(StoreSerializer.HEADER_PROBE_SIZE);
+        byte[] header = in.readNBytes(StoreSerializer.HEADER_PROBE_SIZE);
+        in.reset();
+
+        for (StoreSerializer serializer : SERIALIZERS) {
+            if (serializer.canRead(header)) {
+                return serializer;
+            }
+        }
+        throw new StreamCorruptedException("Unrecognized file format: " + filepath);
     }
 
     // Method to export bill to text file
@@ -69,30 +254,53 @@ public class FileHandler {
         String fileName = bill.getBillNumber() + "_" + bill.getDateTime().toLocalDate() + ".txt";
         Path billPath = BILLS_PATH.resolve(fileName);
 
-        String billContent = bill.generatePrintableFormat();
+        byte[] billContent = bill.generatePrintableFormat().getBytes();
+        FileIoEvent event = FileIoEvent.start(FileIoEvent.WRITE, billPath);
         Files.write(
                 billPath,
-                billContent.getBytes(),
+                billContent,
                 StandardOpenOption.CREATE,
                 StandardOpenOption.TRUNCATE_EXISTING
         );
+        countWrite(event, billContent.length);
     }
 
     // Method to save data to text file
     public static void saveToTextFile(String content, String filename) throws IOException {
         Path filepath = DATA_PATH.resolve(filename);
+        byte[] bytes = content.getBytes();
+        FileIoEvent event = FileIoEvent.start(FileIoEvent.WRITE, filepath);
         Files.write(
                 filepath,
-                content.getBytes(),
+                bytes,
                 StandardOpenOption.CREATE,
                 StandardOpenOption.TRUNCATE_EXISTING
         );
+        countWrite(event, bytes.length);
     }
 
     // Method to read data from text file
     public static String readFromTextFile(String filename) throws IOException {
         Path filepath = DATA_PATH.resolve(filename);
-        return Files.readString(filepath);
+        FileIoEvent event = FileIoEvent.start(FileIoEvent.READ, filepath);
+        String content = Files.readString(filepath);
+        countRead(event, Files.size(filepath));
+        return content;
+    }
+
+    // Byte counts for the metrics registry, and the flight recorder event of the operation
+    private static void countRead(FileIoEvent event, long bytes) {
+        Metrics metrics = Metrics.getInstance();
+        metrics.count(Metrics.FILES_READ, 1);
+        metrics.count(Metrics.BYTES_READ, bytes);
+        event.finish(bytes);
+    }
+
+    private static void countWrite(FileIoEvent event, long bytes) {
+        Metrics metrics = Metrics.getInstance();
+        metrics.count(Metrics.FILES_WRITTEN, 1);
+        metrics.count(Metrics.BYTES_WRITTEN, bytes);
+        event.finish(bytes);
     }
 
     // Method to list all files in a directory
@@ -0,0 +1,53 @@
+package com.electronicstore.model.utils;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import java.nio.file.Path;
+
+/**
+ * Flight recorder event for one read or write of a store file through
+ * FileHandler. A write's duration includes the wait for its group commit,
+ * so I/O stalls show up here next to the GC and OS events of the recording.
+ */
+@Name("com.electronicstore.FileIO")
+@Label("Store File I/O")
+@Category({"Electronic Store", "File I/O"})
+@Description("Read or write of a store data file")
+public class FileIoEvent extends Event {
+    public static final String READ = "read";
+    public static final String WRITE = "write";
+    // fsync of a file appended outside FileHandler, e.g. a journal segment
+    public static final String SYNC = "sync";
+
+    @Label("Operation")
+    String operation;
+
+    @Label("File")
+    String file;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    // Starts timing an operation on the file
+    public static FileIoEvent start(String operation, Path file) {
+        FileIoEvent event = new FileIoEvent();
+        event.operation = operation;
+        event.file = file.toString();
+        event.begin();
+        return event;
+    }
+
+    public void finish(long byteCount) {
+        end();
+        if (shouldCommit()) {
+            bytes = byteCount;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.electronicstore.model.utils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Folds durable writes that arrive close together into one commit.
+ *
+ * The first caller of a batch opens it and hands it to a committer thread,
+ * which waits for the window, then takes every write queued so far and
+ * performs them while later callers queue up for the next batch. Committers
+ * are platform threads: callers may be virtual threads that hold a
+ * repository monitor, and on a small carrier pool a batch led by one of them
+ * could wait forever for a carrier that the blocked callers are pinning.
+ * Writes to the same path within one batch are
+ * collapsed to the newest one, which is correct for whole-file snapshots and
+ * for fsync requests alike; all callers of that path see its outcome.
+ */
+public class GroupCommit {
+
+    // One durable action for a path: publish a snapshot, or fsync an appended file
+    @FunctionalInterface
+    public interface Action {
+        void run() throws IOException;
+    }
+
+    private static final class Batch {
+        private final Map<Path, Action> actions = new LinkedHashMap<>();
+        private final Map<Path, CompletableFuture<Void>> results = new LinkedHashMap<>();
+    }
+
+    private static final Executor COMMITTERS = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "group-commit");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final long windowMillis;
+    private final ReentrantLock commitLock = new ReentrantLock();
+    private Batch open;
+
+    public GroupCommit(long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+
+    // Queues the action and returns once the batch containing it has been committed
+    public void submit(Path path, Action action) throws IOException {
+        CompletableFuture<Void> result;
+        boolean leader;
+        synchronized (this) {
+            leader = open == null;
+            if (leader) {
+                open = new Batch();
+            }
+            open.actions.put(path, action);
+            result = open.results.computeIfAbsent(path, key -> new CompletableFuture<>());
+        }
+
+        if (leader) {
+            COMMITTERS.execute(this::lead);
+        }
+
+        try {
+            result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw e;
+        }
+    }
+
+    private void lead() {
+        if (windowMillis > 0) {
+            try {
+                Thread.sleep(windowMillis);
+            } catch (InterruptedException e) {
+                // Commit early rather than strand the followers of this batch
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // Keep collecting while the previous batch is still being committed
+        commitLock.lock();
+        try {
+            Batch batch;
+            synchronized (this) {
+                batch = open;
+                open = null;
+            }
+            commit(batch);
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    private static void commit(Batch batch) {
+        batch.actions.forEach((path, action) -> {
+            CompletableFuture<Void> result = batch.results.get(path);
+            try {
+                action.run();
+                result.complete(null);
+            } catch (IOException e) {
+                result.completeExceptionally(e);
+            } catch (RuntimeException e) {
+                result.completeExceptionally(new IOException("Commit failed for " + path, e));
+            }
+        });
+    }
+}
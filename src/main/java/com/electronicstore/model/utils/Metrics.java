@@ -0,0 +1,231 @@
+package com.electronicstore.model.utils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Process-wide timings and counters of the controllers and of FileHandler.
+ *
+ * Controller methods run through {@link #time(String, Supplier)}, which
+ * records the latency, counts the call and counts it as an error when it
+ * throws or when the code it runs reports a handled failure through
+ * {@link #markFailed()}. Counters are plain named sums, e.g. the bytes
+ * FileHandler has read and written.
+ *
+ * Set {@value #DUMP_INTERVAL_PROPERTY} to a number of milliseconds to have
+ * everything written every so often to {@value #DUMP_FILE_PROPERTY} (default
+ * metrics.json in the data directory; a name not ending in .json gets the
+ * text table instead).
+ */
+public class Metrics {
+    private static final Logger LOGGER = Logger.getLogger(Metrics.class.getName());
+
+    public static final String DUMP_INTERVAL_PROPERTY = "electronicstore.metricsDumpIntervalMs";
+    public static final String DUMP_FILE_PROPERTY = "electronicstore.metricsDumpFile";
+
+    public static final String BYTES_READ = "FileHandler.bytesRead";
+    public static final String BYTES_WRITTEN = "FileHandler.bytesWritten";
+    public static final String FILES_READ = "FileHandler.filesRead";
+    public static final String FILES_WRITTEN = "FileHandler.filesWritten";
+
+    private static final Metrics INSTANCE = new Metrics();
+
+    // The timed call running on this thread, so nested code can mark it failed
+    private static final ThreadLocal<Call> CURRENT = new ThreadLocal<>();
+
+    // Latency, calls and errors of one operation
+    public static final class Timer {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        public long getCalls() {
+            return calls.sum();
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+    }
+
+    private static final class Call {
+        private boolean failed;
+    }
+
+    private final Map<String, Timer> timers = new ConcurrentSkipListMap<>();
+    private final Map<String, LongAdder> counters = new ConcurrentSkipListMap<>();
+    private ScheduledExecutorService dumper;
+
+    private Metrics() {
+    }
+
+    public static Metrics getInstance() {
+        return INSTANCE;
+    }
+
+    // Runs the action as one call of the named operation and returns its result
+    public <T> T time(String operation, Supplier<T> action) {
+        Call outer = CURRENT.get();
+        Call call = new Call();
+        CURRENT.set(call);
+        long start = System.nanoTime();
+        try {
+            return action.get();
+        } catch (RuntimeException | Error e) {
+            call.failed = true;
+            throw e;
+        } finally {
+            Timer timer = timer(operation);
+            timer.latency.record(System.nanoTime() - start);
+            timer.calls.increment();
+            if (call.failed) {
+                timer.errors.increment();
+            }
+            if (outer != null) {
+                CURRENT.set(outer);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    public void run(String operation, Runnable action) {
+        time(operation, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    // Counts the innermost timed call on this thread as an error, e.g. after a caught IOException
+    public static void markFailed() {
+        Call call = CURRENT.get();
+        if (call != null) {
+            call.failed = true;
+        }
+    }
+
+    // Whether the innermost timed call on this thread has been marked failed so far
+    public static boolean isFailed() {
+        Call call = CURRENT.get();
+        return call != null && call.failed;
+    }
+
+    public void count(String counter, long delta) {
+        counters.computeIfAbsent(counter, name -> new LongAdder()).add(delta);
+    }
+
+    public Timer timer(String operation) {
+        return timers.computeIfAbsent(operation, name -> new Timer());
+    }
+
+    public long counter(String counter) {
+        LongAdder sum = counters.get(counter);
+        return sum != null ? sum.sum() : 0;
+    }
+
+    // Timers by operation name, in name order
+    public Map<String, Timer> getTimers() {
+        return Collections.unmodifiableMap(timers);
+    }
+
+    public void reset() {
+        timers.clear();
+        counters.clear();
+    }
+
+    public String toJson() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"timestamp\":\"").append(Instant.now()).append("\",\"timers\":{");
+        String separator = "";
+        for (Map.Entry<String, Timer> entry : timers.entrySet()) {
+            Timer timer = entry.getValue();
+            LatencyHistogram latency = timer.latency;
+            json.append(separator).append('"').append(entry.getKey()).append("\":{")
+                    .append("\"calls\":").append(timer.getCalls())
+                    .append(",\"errors\":").append(timer.getErrors())
+                    .append(",\"meanMs\":").append(millis(Math.round(latency.getMean())))
+                    .append(",\"p50Ms\":").append(millis(latency.percentile(0.50)))
+                    .append(",\"p99Ms\":").append(millis(latency.percentile(0.99)))
+                    .append(",\"p999Ms\":").append(millis(latency.percentile(0.999)))
+                    .append(",\"maxMs\":").append(millis(latency.getMax()))
+                    .append('}');
+            separator = ",";
+        }
+        json.append("},\"counters\":{");
+        separator = "";
+        for (Map.Entry<String, LongAdder> entry : counters.entrySet()) {
+            json.append(separator).append('"').append(entry.getKey()).append("\":").append(entry.getValue().sum());
+            separator = ",";
+        }
+        return json.append("}}").toString();
+    }
+
+    public String format() {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("%-45s %8s %7s %10s %10s %10s %10s%n",
+                "Operation", "Calls", "Errors", "p50 ms", "p99 ms", "p999 ms", "max ms"));
+        timers.forEach((operation, timer) -> text.append(String.format("%-45s %8d %7d %10s %10s %10s %10s%n",
+                operation, timer.getCalls(), timer.getErrors(),
+                millis(timer.latency.percentile(0.50)), millis(timer.latency.percentile(0.99)),
+                millis(timer.latency.percentile(0.999)), millis(timer.latency.getMax()))));
+        counters.forEach((counter, sum) -> text.append(String.format("%-45s %8d%n", counter, sum.sum())));
+        return text.toString();
+    }
+
+    // Writes the current figures to the file every interval, until the JVM exits
+    public synchronized void startDumping(Path file, long intervalMillis) {
+        if (dumper != null) {
+            return;
+        }
+        dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumper.scheduleWithFixedDelay(() -> dump(file), intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Not through FileHandler, so dumps do not show up in its byte counts
+    public void dump(Path file) {
+        String content = file.getFileName().toString().endsWith(".json") ? toJson() : format();
+        try {
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.writeString(temp, content, StandardCharsets.UTF_8);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not write metrics to " + file, e);
+        }
+    }
+
+    // Starts the dump configured by system properties, if any
+    public static void startConfiguredDump() {
+        long interval = Long.getLong(DUMP_INTERVAL_PROPERTY, 0L);
+        if (interval > 0) {
+            String file = System.getProperty(DUMP_FILE_PROPERTY, "metrics.json");
+            INSTANCE.startDumping(FileHandler.resolve(file), interval);
+        }
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+}
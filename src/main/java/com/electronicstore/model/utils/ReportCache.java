@@ -0,0 +1,105 @@
+package com.electronicstore.model.utils;
+
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Results of sales reports, kept by report, date range and role so that
+ * dashboards going back and forth between periods do not recompute them.
+ *
+ * The cache holds at most {@value #CAPACITY_PROPERTY} results (default
+ * {@value #DEFAULT_CAPACITY}) and drops the least recently used one first.
+ * A finalized bill invalidates only the results whose range contains the
+ * bill's date, so closed periods stay cached. Only reports computed from
+ * bills alone belong here; anything showing current stock or catalog names
+ * would go stale without a bill. Cached results are shared between callers
+ * and must not be modified.
+ */
+public class ReportCache {
+    public static final String CAPACITY_PROPERTY = "electronicstore.reportCacheSize";
+    public static final int DEFAULT_CAPACITY = 256;
+
+    public static final String HITS = "ReportCache.hits";
+    public static final String MISSES = "ReportCache.misses";
+
+    private static final ReportCache INSTANCE = new ReportCache(Integer.getInteger(CAPACITY_PROPERTY, DEFAULT_CAPACITY));
+
+    private record Key(String report, LocalDate startDate, LocalDate endDate, SessionState.Role role) {
+        boolean covers(LocalDate date) {
+            return !date.isBefore(startDate) && !date.isAfter(endDate);
+        }
+    }
+
+    private final int capacity;
+    private final LinkedHashMap<Key, Object> results;
+    // Bumped by every invalidation, so a result computed across one is not stored
+    private long generation;
+
+    public ReportCache(int capacity) {
+        this.capacity = Math.max(0, capacity);
+        this.results = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Object> eldest) {
+                return size() > ReportCache.this.capacity;
+            }
+        };
+    }
+
+    public static ReportCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the cached result of the report, or computes and caches it. A
+     * computation that reports a handled failure through
+     * {@link Metrics#markFailed()} is not cached.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String report, LocalDate startDate, LocalDate endDate, SessionState.Role role,
+                     Supplier<T> compute) {
+        Key key = new Key(report, startDate, endDate, role);
+        long seen;
+        synchronized (this) {
+            Object cached = results.get(key);
+            if (cached != null) {
+                Metrics.getInstance().count(HITS, 1);
+                return (T) cached;
+            }
+            seen = generation;
+        }
+
+        Metrics.getInstance().count(MISSES, 1);
+        T result = compute.get();
+        if (result != null && !Metrics.isFailed()) {
+            synchronized (this) {
+                if (generation == seen) {
+                    results.put(key, result);
+                }
+            }
+        }
+        return result;
+    }
+
+    // Drops the results whose range contains the date, e.g. after a bill of that day was finalized
+    public synchronized void invalidate(LocalDate date) {
+        generation++;
+        Iterator<Key> keys = results.keySet().iterator();
+        while (keys.hasNext()) {
+            if (keys.next().covers(date)) {
+                keys.remove();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        generation++;
+        results.clear();
+    }
+
+    public synchronized int size() {
+        return results.size();
+    }
+}
@@ -0,0 +1,71 @@
+package com.electronicstore.model.utils;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import java.time.LocalDate;
+
+/**
+ * Flight recorder event for generating one report.
+ *
+ * While a report runs, the code that reads sales data reports the rows it
+ * went through with {@link #countRows(long)}; they are added to every report
+ * in progress on the thread, so a report built from other reports counts
+ * their rows too.
+ */
+@Name("com.electronicstore.Report")
+@Label("Report Generation")
+@Category({"Electronic Store", "Reports"})
+@Description("Generation of one report, with the number of rows it scanned")
+public class ReportEvent extends Event {
+    private static final ThreadLocal<ReportEvent> CURRENT = new ThreadLocal<>();
+
+    @Label("Report Type")
+    String reportType;
+
+    @Label("Start Date")
+    String startDate;
+
+    @Label("End Date")
+    String endDate;
+
+    @Label("Rows Scanned")
+    long rowsScanned;
+
+    // Report this one is part of; not recorded
+    private transient ReportEvent outer;
+
+    // Starts timing a report on this thread; dates may be null for reports without a period
+    public static ReportEvent start(String reportType, LocalDate startDate, LocalDate endDate) {
+        ReportEvent event = new ReportEvent();
+        event.reportType = reportType;
+        event.startDate = startDate != null ? startDate.toString() : null;
+        event.endDate = endDate != null ? endDate.toString() : null;
+        event.outer = CURRENT.get();
+        CURRENT.set(event);
+        event.begin();
+        return event;
+    }
+
+    // Adds rows read from the sales data to the reports running on this thread
+    public static void countRows(long rows) {
+        for (ReportEvent event = CURRENT.get(); event != null; event = event.outer) {
+            event.rowsScanned += rows;
+        }
+    }
+
+    public void finish() {
+        end();
+        if (outer != null) {
+            CURRENT.set(outer);
+        } else {
+            CURRENT.remove();
+        }
+        if (shouldCommit()) {
+            commit();
+        }
+    }
+}
@@ -1,81 +1,144 @@
 package com.electronicstore.model.utils;
 
+import com.electronicstore.model.users.Administrator;
+import com.electronicstore.model.users.Cashier;
+import com.electronicstore.model.users.Manager;
 import com.electronicstore.model.users.User;
 import java.time.LocalDateTime;
-
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Login session of one terminal (till or back-office screen).
+ *
+ * Sessions are kept in a registry keyed by terminal ID; {@link #getInstance()}
+ * returns the session of the local terminal, so a single-till application can
+ * keep using it as before. The state of a session is one immutable snapshot
+ * behind a volatile field: every read sees a consistent user, role and login
+ * time without locking, and each terminal's controllers only ever touch their
+ * own session.
+ */
 public class SessionState {
-    private static SessionState instance;
-    private User currentUser;
-    private LocalDateTime loginTime;
-    private String currentSection;
+    public static final String DEFAULT_TERMINAL = "default";
+
+    private static final ConcurrentMap<String, SessionState> TERMINALS = new ConcurrentHashMap<>();
+
+    public enum Role {
+        CASHIER, MANAGER, ADMINISTRATOR, OTHER;
+
+        // Resolved once at login instead of comparing class names on every check
+        public static Role of(User user) {
+            if (user instanceof Cashier) {
+                return CASHIER;
+            }
+            if (user instanceof Manager) {
+                return MANAGER;
+            }
+            if (user instanceof Administrator) {
+                return ADMINISTRATOR;
+            }
+            return OTHER;
+        }
+    }
+
+    private record Snapshot(User user, Role role, LocalDateTime loginTime, String section) {
+        static final Snapshot EMPTY = new Snapshot(null, null, null, null);
+
+        Snapshot withSection(String newSection) {
+            return new Snapshot(user, role, loginTime, newSection);
+        }
+    }
 
-    // Private constructor for Singleton pattern
-    private SessionState() {}
+    private final String terminalId;
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
 
-    // Get singleton instance
+    private SessionState(String terminalId) {
+        this.terminalId = terminalId;
+    }
+
+    // Session of the local terminal
     public static SessionState getInstance() {
-        if (instance == null) {
-            instance = new SessionState();
+        return forTerminal(DEFAULT_TERMINAL);
+    }
+
+    // Session of the given terminal, created on first use
+    public static SessionState forTerminal(String terminalId) {
+        return TERMINALS.computeIfAbsent(terminalId, SessionState::new);
+    }
+
+    // Ends the terminal's session and forgets the terminal
+    public static void closeTerminal(String terminalId) {
+        SessionState session = TERMINALS.remove(terminalId);
+        if (session != null) {
+            session.endSession();
         }
-        return instance;
+    }
+
+    // Sessions of all terminals that currently have a user logged in
+    public static List<SessionState> activeSessions() {
+        return TERMINALS.values().stream().filter(SessionState::isLoggedIn).toList();
+    }
+
+    public String getTerminalId() {
+        return terminalId;
     }
 
     // Session management methods
-    public void startSession(User user) {
-        this.currentUser = user;
-        this.loginTime = LocalDateTime.now();
-        this.currentSection = "main";
+    public synchronized void startSession(User user) {
+        this.snapshot = new Snapshot(user, Role.of(user), LocalDateTime.now(), "main");
     }
 
-    public void endSession() {
-        if (this.currentUser != null) {
-            this.currentUser.logout();
+    public synchronized void endSession() {
+        User user = snapshot.user();
+        if (user != null) {
+            user.logout();
         }
-        this.currentUser = null;
-        this.loginTime = null;
-        this.currentSection = null;
+        this.snapshot = Snapshot.EMPTY;
     }
 
     public boolean isLoggedIn() {
-        return currentUser != null;
+        return snapshot.user() != null;
     }
 
     // Getters and setters
     public User getCurrentUser() {
-        return currentUser;
+        return snapshot.user();
+    }
+
+    public Role getRole() {
+        return snapshot.role();
     }
 
     public LocalDateTime getLoginTime() {
-        return loginTime;
+        return snapshot.loginTime();
     }
 
     public String getCurrentSection() {
-        return currentSection;
+        return snapshot.section();
     }
 
-    public void setCurrentSection(String section) {
-        this.currentSection = section;
+    public synchronized void setCurrentSection(String section) {
+        this.snapshot = snapshot.withSection(section);
     }
 
     // User type checking methods
     public boolean isCashier() {
-        return currentUser != null &&
-                currentUser.getClass().getSimpleName().equals("Cashier");
+        return snapshot.role() == Role.CASHIER;
     }
 
     public boolean isManager() {
-        return currentUser != null &&
-                currentUser.getClass().getSimpleName().equals("Manager");
+        return snapshot.role() == Role.MANAGER;
     }
 
     public boolean isAdministrator() {
-        return currentUser != null &&
-                currentUser.getClass().getSimpleName().equals("Administrator");
+        return snapshot.role() == Role.ADMINISTRATOR;
     }
 
     // Session information
     public String getSessionInfo() {
-        if (!isLoggedIn()) {
+        Snapshot current = snapshot;
+        if (current.user() == null) {
             return "No active session";
         }
 
@@ -85,17 +148,18 @@ public class SessionState {
             Login Time: %s
             Current Section: %s
             """,
-                currentUser.getName(),
-                currentUser.getClass().getSimpleName(),
-                loginTime,
-                currentSection);
+                current.user().getName(),
+                current.user().getClass().getSimpleName(),
+                current.loginTime(),
+                current.section());
     }
 
     @Override
     public String toString() {
-        return "SessionState[user=" +
-                (currentUser != null ? currentUser.getUsername() : "none") +
-                ", loginTime=" + loginTime +
-                ", section=" + currentSection + "]";
+        Snapshot current = snapshot;
+        return "SessionState[terminal=" + terminalId +
+                ", user=" + (current.user() != null ? current.user().getUsername() : "none") +
+                ", loginTime=" + current.loginTime() +
+                ", section=" + current.section() + "]";
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,347 @@
+package com.electronicstore.tools;
+
+import com.electronicstore.controller.BillingController;
+import com.electronicstore.controller.LoginController;
+import com.electronicstore.model.inventory.Item;
+import com.electronicstore.model.inventory.StockReservations;
+import com.electronicstore.model.persistence.BillJournal;
+import com.electronicstore.model.persistence.FileRepository;
+import com.electronicstore.model.persistence.ItemRepository;
+import com.electronicstore.model.persistence.UserRepository;
+import com.electronicstore.model.users.Cashier;
+import com.electronicstore.model.users.User;
+import com.electronicstore.model.utils.LatencyHistogram;
+import com.electronicstore.model.utils.Metrics;
+import com.electronicstore.model.utils.SessionState;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Headless checkout load against the store in the data directory.
+ *
+ * Each simulated till logs a cashier in through {@link LoginController} on a
+ * terminal of its own and then runs checkouts back to back on a virtual
+ * thread: createNewBill, addItemToBill for every line of the basket, then
+ * finalizeBill (or cancelBill when no line could be reserved). The run ends
+ * after the configured duration or number of checkouts per till. Latency is
+ * recorded per operation; at the end the stock of every item sold is
+ * checked against its starting stock minus the quantities on finalized bills.
+ *
+ * Usage: {@code LoadSimulator [name=value ...]} with the names of the
+ * {@link Settings} setters, run with -Delectronicstore.dataDir pointing at a
+ * store, e.g. one written by {@link StoreDataGenerator}.
+ */
+public class LoadSimulator {
+    public static final String CREATE_BILL = "createNewBill";
+    public static final String ADD_ITEM = "addItemToBill";
+    public static final String FINALIZE_BILL = "finalizeBill";
+    public static final String CHECKOUT = "checkout";
+
+    public static class Settings {
+        private int cashiers = 8;
+        private Duration duration = Duration.ofSeconds(30);
+        // 0 runs until the duration is over
+        private int checkoutsPerCashier;
+        private int minItems = 1;
+        private int maxItems = 5;
+        private int maxQuantity = 2;
+        private long thinkTimeMillis;
+        private String password = StoreDataGenerator.DEFAULT_PASSWORD;
+        private long seed = 42L;
+
+        public int getCashiers() { return cashiers; }
+        public Settings setCashiers(int cashiers) { this.cashiers = cashiers; return this; }
+
+        public Duration getDuration() { return duration; }
+        public Settings setDuration(Duration duration) { this.duration = duration; return this; }
+
+        public int getCheckoutsPerCashier() { return checkoutsPerCashier; }
+        public Settings setCheckoutsPerCashier(int checkoutsPerCashier) {
+            this.checkoutsPerCashier = checkoutsPerCashier;
+            return this;
+        }
+
+        public int getMinItems() { return minItems; }
+        public Settings setMinItems(int minItems) { this.minItems = minItems; return this; }
+
+        public int getMaxItems() { return maxItems; }
+        public Settings setMaxItems(int maxItems) { this.maxItems = maxItems; return this; }
+
+        public int getMaxQuantity() { return maxQuantity; }
+        public Settings setMaxQuantity(int maxQuantity) { this.maxQuantity = maxQuantity; return this; }
+
+        public long getThinkTimeMillis() { return thinkTimeMillis; }
+        public Settings setThinkTimeMillis(long thinkTimeMillis) {
+            this.thinkTimeMillis = thinkTimeMillis;
+            return this;
+        }
+
+        public String getPassword() { return password; }
+        public Settings setPassword(String password) { this.password = password; return this; }
+
+        public long getSeed() { return seed; }
+        public Settings setSeed(long seed) { this.seed = seed; return this; }
+
+        // Applies one name=value argument of the command line
+        public Settings set(String argument) {
+            int separator = argument.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Expected name=value, got " + argument);
+            }
+            String name = argument.substring(0, separator);
+            String value = argument.substring(separator + 1);
+            return switch (name) {
+                case "cashiers" -> setCashiers(Integer.parseInt(value));
+                case "durationSeconds" -> setDuration(Duration.ofSeconds(Long.parseLong(value)));
+                case "checkoutsPerCashier" -> setCheckoutsPerCashier(Integer.parseInt(value));
+                case "minItems" -> setMinItems(Integer.parseInt(value));
+                case "maxItems" -> setMaxItems(Integer.parseInt(value));
+                case "maxQuantity" -> setMaxQuantity(Integer.parseInt(value));
+                case "thinkTimeMillis" -> setThinkTimeMillis(Long.parseLong(value));
+                case "password" -> setPassword(value);
+                case "seed" -> setSeed(Long.parseLong(value));
+                default -> throw new IllegalArgumentException("Unknown setting " + name);
+            };
+        }
+    }
+
+    // Outcome of one run
+    public static class Report {
+        private final Map<String, LatencyHistogram> latencies;
+        private final long elapsedNanos;
+        private final int checkouts;
+        private final int rejectedLines;
+        private final int failedCheckouts;
+        private final List<String> stockErrors;
+
+        private Report(Map<String, LatencyHistogram> latencies, long elapsedNanos, int checkouts,
+                       int rejectedLines, int failedCheckouts, List<String> stockErrors) {
+            this.latencies = latencies;
+            this.elapsedNanos = elapsedNanos;
+            this.checkouts = checkouts;
+            this.rejectedLines = rejectedLines;
+            this.failedCheckouts = failedCheckouts;
+            this.stockErrors = stockErrors;
+        }
+
+        public LatencyHistogram getLatency(String operation) {
+            return latencies.get(operation);
+        }
+
+        // Finalized bills
+        public int getCheckouts() {
+            return checkouts;
+        }
+
+        // Lines refused because the item had run out
+        public int getRejectedLines() {
+            return rejectedLines;
+        }
+
+        // Bills that could not be finalized
+        public int getFailedCheckouts() {
+            return failedCheckouts;
+        }
+
+        public double getThroughput() {
+            return elapsedNanos == 0 ? 0 : checkouts * 1e9 / elapsedNanos;
+        }
+
+        // One line per item whose stock does not add up; empty when consistent
+        public List<String> getStockErrors() {
+            return stockErrors;
+        }
+
+        public boolean isStockConsistent() {
+            return stockErrors.isEmpty();
+        }
+
+        public String format() {
+            StringBuilder report = new StringBuilder();
+            report.append(String.format("Checkouts: %d in %.1f s (%.1f/s), rejected lines: %d, failed checkouts: %d%n",
+                    checkouts, elapsedNanos / 1e9, getThroughput(), rejectedLines, failedCheckouts));
+            report.append(String.format("%-15s %10s %10s %10s %10s %10s%n",
+                    "Operation", "Count", "p50 ms", "p99 ms", "p999 ms", "max ms"));
+            for (Map.Entry<String, LatencyHistogram> entry : latencies.entrySet()) {
+                LatencyHistogram histogram = entry.getValue();
+                report.append(String.format("%-15s %10d %10.3f %10.3f %10.3f %10.3f%n",
+                        entry.getKey(), histogram.getCount(),
+                        histogram.percentile(0.50) / 1e6, histogram.percentile(0.99) / 1e6,
+                        histogram.percentile(0.999) / 1e6, histogram.getMax() / 1e6));
+            }
+            report.append(isStockConsistent()
+                    ? "Stock: consistent\n"
+                    : "Stock: " + stockErrors.size() + " inconsistent items\n  " + String.join("\n  ", stockErrors) + "\n");
+            return report.toString();
+        }
+    }
+
+    private final Settings settings;
+    private final List<Cashier> cashiers;
+    private final List<Item> items;
+
+    private final Map<String, LatencyHistogram> latencies = new LinkedHashMap<>();
+    private final Map<String, AtomicInteger> sold = new ConcurrentHashMap<>();
+    private final AtomicInteger checkouts = new AtomicInteger();
+    private final AtomicInteger rejectedLines = new AtomicInteger();
+    private final AtomicInteger failedCheckouts = new AtomicInteger();
+
+    // Tills log in as the given cashiers in turn and sell the given items
+    public LoadSimulator(Settings settings, List<Cashier> cashiers, List<Item> items) {
+        if (cashiers.isEmpty() || items.isEmpty()) {
+            throw new IllegalArgumentException("Need at least one cashier and one item");
+        }
+        if (settings.minItems < 1 || settings.maxItems < settings.minItems || settings.maxQuantity < 1) {
+            throw new IllegalArgumentException("Invalid basket settings");
+        }
+        this.settings = settings;
+        this.cashiers = List.copyOf(cashiers);
+        this.items = List.copyOf(items);
+        for (String operation : List.of(CREATE_BILL, ADD_ITEM, FINALIZE_BILL, CHECKOUT)) {
+            latencies.put(operation, new LatencyHistogram());
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Settings settings = new Settings();
+        for (String argument : args) {
+            settings.set(argument);
+        }
+        List<Cashier> cashiers = new ArrayList<>();
+        for (User user : UserRepository.getInstance().findAll()) {
+            if (user instanceof Cashier cashier && cashier.isActive()) {
+                cashiers.add(cashier);
+            }
+        }
+        List<Item> items = ItemRepository.getInstance().findAll();
+        Report report = new LoadSimulator(settings, cashiers, items).run();
+        FileRepository.flushAll();
+        System.out.print(report.format());
+        System.out.println();
+        System.out.print(Metrics.getInstance().format());
+        System.exit(report.isStockConsistent() ? 0 : 1);
+    }
+
+    public Report run() throws InterruptedException {
+        Map<String, Integer> startingStock = new HashMap<>();
+        for (Item item : items) {
+            startingStock.put(item.getId(), committedStock(item));
+        }
+        int billsBefore = BillJournal.getInstance().billCount();
+
+        long start = System.nanoTime();
+        long deadline = start + settings.duration.toNanos();
+        try (ExecutorService tills = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int till = 0; till < settings.cashiers; till++) {
+                Cashier cashier = cashiers.get(till % cashiers.size());
+                String terminal = "load-" + till;
+                Random random = new Random(settings.seed + till);
+                tills.submit(() -> runTill(terminal, cashier, random, deadline));
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        List<String> stockErrors = checkStock(startingStock);
+        int journaled = BillJournal.getInstance().billCount() - billsBefore;
+        if (journaled != checkouts.get()) {
+            stockErrors.add("journal holds " + journaled + " new bills, expected " + checkouts.get());
+        }
+        return new Report(latencies, elapsed, checkouts.get(), rejectedLines.get(),
+                failedCheckouts.get(), stockErrors);
+    }
+
+    private void runTill(String terminal, Cashier cashier, Random random, long deadline) {
+        SessionState session = SessionState.forTerminal(terminal);
+        try {
+            if (!new LoginController(session).login(cashier.getUsername(), settings.password)) {
+                throw new IllegalStateException("Login failed for " + cashier.getUsername());
+            }
+            BillingController billing = new BillingController(session);
+            for (int done = 0; settings.checkoutsPerCashier == 0 || done < settings.checkoutsPerCashier; done++) {
+                if (settings.checkoutsPerCashier == 0 && System.nanoTime() >= deadline) {
+                    break;
+                }
+                checkout(billing, random);
+                if (settings.thinkTimeMillis > 0) {
+                    Thread.sleep(settings.thinkTimeMillis);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            SessionState.closeTerminal(terminal);
+        }
+    }
+
+    private void checkout(BillingController billing, Random random) {
+        long checkoutStart = System.nanoTime();
+        billing.createNewBill();
+        long created = System.nanoTime();
+        latencies.get(CREATE_BILL).record(created - checkoutStart);
+
+        int lines = settings.minItems + random.nextInt(settings.maxItems - settings.minItems + 1);
+        Map<String, Integer> basket = new HashMap<>();
+        for (int line = 0; line < lines; line++) {
+            Item item = items.get(random.nextInt(items.size()));
+            int quantity = 1 + random.nextInt(settings.maxQuantity);
+            long addStart = System.nanoTime();
+            boolean added = billing.addItemToBill(item, quantity);
+            latencies.get(ADD_ITEM).record(System.nanoTime() - addStart);
+            if (added) {
+                basket.merge(item.getId(), quantity, Integer::sum);
+            } else {
+                rejectedLines.incrementAndGet();
+            }
+        }
+
+        if (basket.isEmpty()) {
+            billing.cancelBill();
+            return;
+        }
+        long finalizeStart = System.nanoTime();
+        boolean finalized = billing.finalizeBill();
+        long finished = System.nanoTime();
+        latencies.get(FINALIZE_BILL).record(finished - finalizeStart);
+        if (finalized) {
+            latencies.get(CHECKOUT).record(finished - checkoutStart);
+            checkouts.incrementAndGet();
+            basket.forEach((itemId, quantity) ->
+                    sold.computeIfAbsent(itemId, id -> new AtomicInteger()).addAndGet(quantity));
+        } else {
+            failedCheckouts.incrementAndGet();
+            billing.cancelBill();
+        }
+    }
+
+    // Starting stock minus what finalized bills sold must be what the repository holds now
+    private List<String> checkStock(Map<String, Integer> startingStock) {
+        List<String> errors = new ArrayList<>();
+        ItemRepository repository = ItemRepository.getInstance();
+        for (Map.Entry<String, AtomicInteger> entry : sold.entrySet()) {
+            String itemId = entry.getKey();
+            int expected = startingStock.get(itemId) - entry.getValue().get();
+            int actual = repository.findById(itemId).map(LoadSimulator::committedStock).orElse(-1);
+            if (actual != expected) {
+                errors.add(itemId + ": stock " + actual + ", expected " + expected);
+            }
+            if (expected < 0) {
+                errors.add(itemId + ": oversold by " + -expected);
+            }
+        }
+        return errors;
+    }
+
+    private static int committedStock(Item item) {
+        return StockReservations.getInstance().committedStock(item);
+    }
+}
@@ -0,0 +1,350 @@
+package com.electronicstore.tools;
+
+import com.electronicstore.model.inventory.Category;
+import com.electronicstore.model.inventory.Item;
+import com.electronicstore.model.inventory.Supplier;
+import com.electronicstore.model.persistence.BillJournal;
+import com.electronicstore.model.persistence.CategoryRepository;
+import com.electronicstore.model.persistence.ItemRepository;
+import com.electronicstore.model.persistence.SalesRollupRepository;
+import com.electronicstore.model.persistence.SupplierRepository;
+import com.electronicstore.model.persistence.UserRepository;
+import com.electronicstore.model.sales.Bill;
+import com.electronicstore.model.sales.DailySales;
+import com.electronicstore.model.sales.SaleItem;
+import com.electronicstore.model.users.Administrator;
+import com.electronicstore.model.users.Cashier;
+import com.electronicstore.model.users.Manager;
+import com.electronicstore.model.users.User;
+import com.electronicstore.model.utils.FileHandler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Logger;
+
+/**
+ * Writes a synthetic store into an empty data directory: users, categories,
+ * suppliers, items and a sales history, all derived from one seed so the same
+ * settings always produce the same files.
+ *
+ * Bills go straight into the bill journal (the format that replaced
+ * bills.dat) together with their daily rollups. They are generated one day
+ * at a time and appended in chunks, so memory depends on the catalog and the
+ * number of days, not on the number of bills; ten million bills need no more
+ * heap than ten thousand.
+ *
+ * Usage: {@code StoreDataGenerator <directory> [name=value ...]}, with the
+ * names of the {@link Settings} setters, e.g. {@code bills=10000000 days=730}.
+ */
+public class StoreDataGenerator {
+    private static final Logger LOGGER = Logger.getLogger(StoreDataGenerator.class.getName());
+
+    // Password of every generated user
+    public static final String DEFAULT_PASSWORD = "password";
+
+    private static final int CHUNK = 10_000;
+    private static final int SECTORS = 4;
+
+    /**
+     * What to generate. Weights need not sum to anything in particular; a
+     * basket weight at index k is the relative frequency of bills with k + 1
+     * lines, an hour weight at index h that of bills issued between h:00 and
+     * h:59.
+     */
+    public static class Settings {
+        private long seed = 42L;
+        private int catalogSize = 5_000;
+        private int categories = 20;
+        private int suppliers = 10;
+        private int cashiers = 20;
+        private int managers = 2;
+        private int days = 365;
+        private LocalDate firstDay = LocalDate.of(2024, 1, 1);
+        private long bills = 100_000;
+        private double[] basketWeights = {30, 25, 17, 11, 7, 5, 3, 2};
+        private double[] hourWeights = {0, 0, 0, 0, 0, 0, 0, 0, 0,
+                3, 5, 7, 9, 8, 6, 6, 7, 9, 10, 8, 5, 0, 0, 0};
+        // Zipf exponent of item popularity; 0 sells every item equally often
+        private double popularitySkew = 1.0;
+
+        public long getSeed() { return seed; }
+        public Settings setSeed(long seed) { this.seed = seed; return this; }
+
+        public int getCatalogSize() { return catalogSize; }
+        public Settings setCatalogSize(int catalogSize) { this.catalogSize = catalogSize; return this; }
+
+        public int getCategories() { return categories; }
+        public Settings setCategories(int categories) { this.categories = categories; return this; }
+
+        public int getSuppliers() { return suppliers; }
+        public Settings setSuppliers(int suppliers) { this.suppliers = suppliers; return this; }
+
+        public int getCashiers() { return cashiers; }
+        public Settings setCashiers(int cashiers) { this.cashiers = cashiers; return this; }
+
+        public int getManagers() { return managers; }
+        public Settings setManagers(int managers) { this.managers = managers; return this; }
+
+        public int getDays() { return days; }
+        public Settings setDays(int days) { this.days = days; return this; }
+
+        public LocalDate getFirstDay() { return firstDay; }
+        public Settings setFirstDay(LocalDate firstDay) { this.firstDay = firstDay; return this; }
+
+        public long getBills() { return bills; }
+        public Settings setBills(long bills) { this.bills = bills; return this; }
+
+        public double[] getBasketWeights() { return basketWeights.clone(); }
+        public Settings setBasketWeights(double... basketWeights) {
+            this.basketWeights = basketWeights.clone();
+            return this;
+        }
+
+        public double[] getHourWeights() { return hourWeights.clone(); }
+        public Settings setHourWeights(double... hourWeights) {
+            if (hourWeights.length != 24) {
+                throw new IllegalArgumentException("Expected 24 hour weights, got " + hourWeights.length);
+            }
+            this.hourWeights = hourWeights.clone();
+            return this;
+        }
+
+        public double getPopularitySkew() { return popularitySkew; }
+        public Settings setPopularitySkew(double popularitySkew) {
+            this.popularitySkew = popularitySkew;
+            return this;
+        }
+
+        // Applies one name=value argument of the command line
+        public Settings set(String argument) {
+            int separator = argument.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Expected name=value, got " + argument);
+            }
+            String name = argument.substring(0, separator);
+            String value = argument.substring(separator + 1);
+            return switch (name) {
+                case "seed" -> setSeed(Long.parseLong(value));
+                case "catalogSize" -> setCatalogSize(Integer.parseInt(value));
+                case "categories" -> setCategories(Integer.parseInt(value));
+                case "suppliers" -> setSuppliers(Integer.parseInt(value));
+                case "cashiers" -> setCashiers(Integer.parseInt(value));
+                case "managers" -> setManagers(Integer.parseInt(value));
+                case "days" -> setDays(Integer.parseInt(value));
+                case "firstDay" -> setFirstDay(LocalDate.parse(value));
+                case "bills" -> setBills(Long.parseLong(value));
+                case "basketWeights" -> setBasketWeights(parseWeights(value));
+                case "hourWeights" -> setHourWeights(parseWeights(value));
+                case "popularitySkew" -> setPopularitySkew(Double.parseDouble(value));
+                default -> throw new IllegalArgumentException("Unknown setting " + name);
+            };
+        }
+
+        private static double[] parseWeights(String value) {
+            return Arrays.stream(value.split(",")).mapToDouble(Double::parseDouble).toArray();
+        }
+    }
+
+    private final Settings settings;
+
+    public StoreDataGenerator(Settings settings) {
+        if (settings.catalogSize < 1 || settings.cashiers < 1 || settings.days < 1) {
+            throw new IllegalArgumentException("Catalog, cashiers and days must be at least 1");
+        }
+        this.settings = settings;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: StoreDataGenerator <directory> [name=value ...]");
+            System.exit(2);
+        }
+        Settings settings = new Settings();
+        for (int i = 1; i < args.length; i++) {
+            settings.set(args[i]);
+        }
+        new StoreDataGenerator(settings).generate(Paths.get(args[0]));
+    }
+
+    // Writes the store into the directory, which must not hold store data yet
+    public void generate(Path directory) throws IOException {
+        if (Files.exists(directory.resolve(ItemRepository.ITEMS_FILE))
+                || Files.exists(directory.resolve(BillJournal.JOURNAL_DIRECTORY))) {
+            throw new IOException(directory + " already contains store data");
+        }
+        Files.createDirectories(directory);
+
+        // Separate streams, so changing e.g. the number of bills keeps the same catalog
+        Random catalogRandom = new Random(settings.seed);
+        Random salesRandom = new Random(settings.seed * 31 + 17);
+
+        List<User> users = createUsers();
+        List<Category> categories = createCategories(catalogRandom);
+        List<Supplier> suppliers = createSuppliers();
+        List<Item> items = createItems(categories, suppliers, catalogRandom);
+        FileHandler.saveListToFile(new ArrayList<>(users), directory.resolve(UserRepository.USERS_FILE));
+        FileHandler.saveListToFile(new ArrayList<>(categories), directory.resolve(CategoryRepository.CATEGORIES_FILE));
+        FileHandler.saveListToFile(new ArrayList<>(suppliers), directory.resolve(SupplierRepository.SUPPLIERS_FILE));
+        FileHandler.saveListToFile(new ArrayList<>(items), directory.resolve(ItemRepository.ITEMS_FILE));
+
+        List<DailySales> rollups = writeBills(directory, items, salesRandom);
+        FileHandler.saveListToFile(new ArrayList<>(rollups), directory.resolve(SalesRollupRepository.ROLLUPS_FILE));
+        LOGGER.info("Generated " + settings.bills + " bills over " + settings.days + " days in " + directory);
+    }
+
+    private List<User> createUsers() {
+        List<User> users = new ArrayList<>();
+        users.add(new Administrator("A1", "admin", DEFAULT_PASSWORD, "Administrator",
+                "admin@example.com", "000000"));
+        for (int i = 1; i <= settings.managers; i++) {
+            users.add(new Manager("M" + i, "manager" + i, DEFAULT_PASSWORD, "Manager " + i,
+                    "manager" + i + "@example.com", phone(i)));
+        }
+        for (int i = 1; i <= settings.cashiers; i++) {
+            users.add(new Cashier(cashierId(i), "cashier" + i, DEFAULT_PASSWORD, "Cashier " + i,
+                    "cashier" + i + "@example.com", phone(i), sector(i)));
+        }
+        return users;
+    }
+
+    private List<Category> createCategories(Random random) {
+        List<Category> categories = new ArrayList<>(settings.categories);
+        for (int i = 1; i <= settings.categories; i++) {
+            categories.add(new Category("C" + i, "Category " + i, 5 + random.nextInt(20), sector(i)));
+        }
+        return categories;
+    }
+
+    private List<Supplier> createSuppliers() {
+        List<Supplier> suppliers = new ArrayList<>(settings.suppliers);
+        for (int i = 1; i <= settings.suppliers; i++) {
+            suppliers.add(new Supplier("S" + i, "Supplier " + i, "supplier" + i + "@example.com"));
+        }
+        return suppliers;
+    }
+
+    // Prices spread over several orders of magnitude; about one item in ten is low on stock
+    private List<Item> createItems(List<Category> categories, List<Supplier> suppliers, Random random) {
+        List<Item> items = new ArrayList<>(settings.catalogSize);
+        for (int i = 1; i <= settings.catalogSize; i++) {
+            double purchasePrice = Math.round(Math.exp(1 + random.nextDouble() * 7) * 100) / 100.0;
+            double sellingPrice = Math.round(purchasePrice * (1.15 + random.nextDouble() * 0.5) * 100) / 100.0;
+            int stock = random.nextInt(10) == 0 ? random.nextInt(5) : 20 + random.nextInt(500);
+            LocalDate purchaseDate = settings.firstDay.minusDays(random.nextInt(365));
+            items.add(new Item("I" + i, "Item " + i, categories.get(random.nextInt(categories.size())),
+                    suppliers.get(random.nextInt(suppliers.size())), purchaseDate,
+                    purchasePrice, sellingPrice, stock));
+        }
+        return items;
+    }
+
+    // Appends the history day by day and returns the rollups of the days with sales
+    private List<DailySales> writeBills(Path directory, List<Item> items, Random random) throws IOException {
+        BillJournal journal = new BillJournal(directory.resolve(BillJournal.JOURNAL_DIRECTORY));
+        double[] basketSizes = cumulative(settings.basketWeights);
+        double[] hours = cumulative(settings.hourWeights);
+        double[] popularity = popularity(items.size(), settings.popularitySkew);
+
+        List<DailySales> rollups = new ArrayList<>();
+        long billNumber = 0;
+        for (int day = 0; day < settings.days; day++) {
+            LocalDate date = settings.firstDay.plusDays(day);
+            // Whole bills per day, with the remainder spread over the first days
+            long billsToday = settings.bills / settings.days + (day < settings.bills % settings.days ? 1 : 0);
+
+            LocalDateTime[] times = new LocalDateTime[(int) Math.min(billsToday, CHUNK)];
+            DailySales rollup = new DailySales(date);
+            for (long written = 0; written < billsToday; written += times.length) {
+                int count = (int) Math.min(times.length, billsToday - written);
+                // Sorted within a chunk; chunks of one day overlap in time, which the journal does not mind
+                for (int i = 0; i < count; i++) {
+                    times[i] = date.atTime(pick(hours, random), random.nextInt(60), random.nextInt(60));
+                }
+                Arrays.sort(times, 0, count);
+
+                List<Bill> chunk = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    chunk.add(createBill("G" + (++billNumber), times[i], items, basketSizes, popularity, random));
+                }
+                journal.appendAll(chunk);
+                rollup = rollup.plusAll(chunk);
+            }
+            if (billsToday > 0) {
+                rollups.add(rollup);
+            }
+        }
+        return rollups;
+    }
+
+    private Bill createBill(String billNumber, LocalDateTime time, List<Item> items,
+                            double[] basketSizes, double[] popularity, Random random) {
+        String cashier = cashierId(1 + random.nextInt(settings.cashiers));
+        Bill bill = new Bill(billNumber, cashier, time, 0.0);
+        int lines = pick(basketSizes, random) + 1;
+        for (int line = 0; line < lines; line++) {
+            Item item = items.get(pick(popularity, random));
+            int roll = random.nextInt(20);
+            int quantity = roll < 16 ? 1 : roll < 19 ? 2 : 3;
+            bill.addItem(new SaleItem(item, quantity));
+        }
+        return bill;
+    }
+
+    // Running sums of the weights, for sampling by binary search
+    private static double[] cumulative(double[] weights) {
+        double[] sums = new double[weights.length];
+        double sum = 0;
+        for (int i = 0; i < weights.length; i++) {
+            if (weights[i] < 0) {
+                throw new IllegalArgumentException("Weights must not be negative");
+            }
+            sum += weights[i];
+            sums[i] = sum;
+        }
+        if (sum <= 0) {
+            throw new IllegalArgumentException("At least one weight must be positive");
+        }
+        return sums;
+    }
+
+    // Rank r (0-based) has weight 1 / (r + 1)^skew
+    private static double[] popularity(int items, double skew) {
+        double[] weights = new double[items];
+        for (int rank = 0; rank < items; rank++) {
+            weights[rank] = 1.0 / Math.pow(rank + 1, skew);
+        }
+        return cumulative(weights);
+    }
+
+    // Index drawn with probability proportional to its weight
+    private static int pick(double[] cumulative, Random random) {
+        double target = random.nextDouble() * cumulative[cumulative.length - 1];
+        int index = Arrays.binarySearch(cumulative, target);
+        index = index >= 0 ? index + 1 : -index - 1;
+        // Skip zero weights, whose running sum equals the previous one
+        while (index < cumulative.length - 1 && cumulative[index] <= target) {
+            index++;
+        }
+        return Math.min(index, cumulative.length - 1);
+    }
+
+    public static String cashierId(int cashier) {
+        return "U" + cashier;
+    }
+
+    private static String sector(int index) {
+        return "Sector " + (1 + (index - 1) % SECTORS);
+    }
+
+    private static String phone(int index) {
+        return String.format("555%06d", index);
+    }
+}
@@ -245,6 +245,7 @@ public class BillGenerationView extends BorderPane {
                 return;
             }
         }
+        billingController.cancelBill();
         app.showCashierDashboard();
     }
 }
\ No newline at end of file
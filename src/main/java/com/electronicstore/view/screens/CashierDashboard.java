@@ -3,6 +3,7 @@ package com.electronicstore.view.screens;
 import com.electronicstore.App;
 import com.electronicstore.controller.BillingController;
 import com.electronicstore.model.sales.Bill;
+import com.electronicstore.model.sales.Money;
 import com.electronicstore.view.components.SalesChart;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -227,9 +228,10 @@ public class CashierDashboard extends BorderPane {
 
     private void updateSummaryMetrics(List<Bill> bills) {
         int billCount = bills.size();
-        double totalSales = bills.stream()
-                .mapToDouble(Bill::getTotalAmount)
+        long totalCents = bills.stream()
+                .mapToLong(Bill::getTotalCents)
                 .sum();
+        double totalSales = Money.toAmount(totalCents);
         double averageTicket = billCount > 0 ? totalSales / billCount : 0;
 
         // Calculate peak time
@@ -245,17 +247,19 @@ public class CashierDashboard extends BorderPane {
     private String calculatePeakTime(List<Bill> bills) {
         if (bills.isEmpty()) return "N/A";
 
-        // Group bills by hour and find the hour with most sales
-        Map<Integer, Double> salesByHour = bills.stream()
-                .collect(Collectors.groupingBy(
-                        bill -> bill.getDateTime().getHour(),
-                        Collectors.summingDouble(Bill::getTotalAmount)
-                ));
+        // Sum sales per hour and find the hour with most sales
+        long[] salesByHour = new long[24];
+        for (Bill bill : bills) {
+            salesByHour[bill.getDateTime().getHour()] += bill.getTotalCents();
+        }
 
-        return salesByHour.entrySet().stream()
-                .max(Map.Entry.comparingByValue())
-                .map(entry -> String.format("%02d:00", entry.getKey()))
-                .orElse("N/A");
+        int peakHour = 0;
+        for (int hour = 1; hour < salesByHour.length; hour++) {
+            if (salesByHour[hour] > salesByHour[peakHour]) {
+                peakHour = hour;
+            }
+        }
+        return String.format("%02d:00", peakHour);
     }
 
     private void createBillCard(Bill bill) {
@@ -184,10 +184,15 @@ public class EditItemDialog extends DialogPane {
             itemToEdit.setSupplier(supplierCombo.getValue());
             itemToEdit.setPurchasePrice(purchasePrice);
             itemToEdit.setSellingPrice(sellingPrice);
-            itemToEdit.setStockQuantity(quantity);
 
             // Save the updated item
-            return inventoryController.updateItem(itemToEdit);
+            if (!inventoryController.updateItem(itemToEdit)) {
+                return false;
+            }
+
+            // Stock goes through the stock lock and the movement log like any other change
+            int delta = quantity - itemToEdit.getStockQuantity();
+            return delta == 0 || inventoryController.updateItemStock(itemToEdit.getId(), delta);
         } catch (Exception e) {
             e.printStackTrace();
             AlertDialog.showError("Error", "Failed to update item: " + e.getMessage());
@@ -3,14 +3,21 @@ package com.electronicstore.unit.model.controller;
 import com.electronicstore.controller.BillingController;
 import com.electronicstore.model.inventory.Category;
 import com.electronicstore.model.inventory.Item;
+import com.electronicstore.model.inventory.StockReservations;
 import com.electronicstore.model.inventory.Supplier;
+import com.electronicstore.model.persistence.ItemRepository;
 import com.electronicstore.model.sales.SaleItem;
 import com.electronicstore.model.users.Cashier;
+import com.electronicstore.model.utils.FileHandler;
 import com.electronicstore.model.utils.SessionState;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDate;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -165,4 +172,55 @@ class BillingControllerUnitTest {
         assertTrue(controller.getBillTotal() > 0.0,
                 "Total should be > 0 when bill contains items");
     }
+
+    @Test
+    void finalizeBill_shouldKeepTheBillFinalWhenTheMovementLogCannotBeWritten() throws Exception {
+        loginAsCashier();
+        ItemRepository repository = ItemRepository.getInstance();
+        Item item = new Item("BCF1", "Logged Laptop", new Category("C1", "Laptops", 5, "IT"),
+                new Supplier("S1", "Dell", "contact"), LocalDate.now(), 500.0, 700.0, 10);
+        repository.save(item);
+        // Written now, so no background flush runs into the blocked log below
+        repository.flush();
+
+        BillingController controller = new BillingController();
+        controller.createNewBill();
+        assertTrue(controller.addItemToBill(item, 3));
+
+        // A directory where the log file should be makes every append fail
+        Path log = repository.getMovementLog().getPath();
+        Path aside = log.resolveSibling(log.getFileName() + ".aside");
+        boolean hadLog = Files.exists(log);
+        if (hadLog) {
+            Files.move(log, aside, StandardCopyOption.REPLACE_EXISTING);
+        }
+        Path blocker = Files.createDirectories(log.resolve("blocker"));
+        boolean finalized;
+        try {
+            finalized = controller.finalizeBill();
+        } finally {
+            Files.delete(blocker);
+            Files.delete(log);
+            if (hadLog) {
+                Files.move(aside, log);
+            }
+        }
+
+        // The bill is journaled, so it must not be retried or cancelled
+        assertTrue(finalized, "A journaled bill should count as finalized");
+        assertNull(controller.getCurrentBill(), "The finalized bill should no longer be open");
+        assertEquals(0, StockReservations.getInstance().reservedQuantity("BCF1"),
+                "The reservations should be committed");
+        assertEquals(7, item.getStockQuantity());
+
+        // Cancelling afterwards must not put the sold stock back
+        controller.cancelBill();
+        assertEquals(7, item.getStockQuantity());
+
+        // The sold stock reaches items.dat through the scheduled compaction instead of the log
+        repository.flush();
+        List<Item> onDisk = FileHandler.readListFromFile(ItemRepository.ITEMS_FILE);
+        assertEquals(7, onDisk.stream().filter(i -> i.getId().equals("BCF1")).findFirst()
+                .orElseThrow().getStockQuantity());
+    }
 }
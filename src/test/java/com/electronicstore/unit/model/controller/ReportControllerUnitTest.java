@@ -0,0 +1,59 @@
+package com.electronicstore.unit.model.controller;
+
+import com.electronicstore.controller.BillingController;
+import com.electronicstore.controller.ReportController;
+import com.electronicstore.model.inventory.Category;
+import com.electronicstore.model.inventory.Item;
+import com.electronicstore.model.inventory.Supplier;
+import com.electronicstore.model.persistence.ItemRepository;
+import com.electronicstore.model.users.Administrator;
+import com.electronicstore.model.users.Cashier;
+import com.electronicstore.model.utils.SessionState;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Purpose: verify that the inventory movement report joins sales to the catalog by item ID.
+ */
+class ReportControllerUnitTest {
+
+    private Item createItem(String id, String name) {
+        Category category = new Category("C1", "Laptops", 5, "IT");
+        Supplier supplier = new Supplier("S1", "Dell", "contact");
+        Item item = new Item(id, name, category, supplier, LocalDate.now(), 50.0, 70.0, 20);
+        ItemRepository.getInstance().save(item);
+        return item;
+    }
+
+    @Test
+    void inventoryReport_shouldKeepItemsWithTheSameNameApart() {
+        // Two SKUs under one name; a join on the name would report only one of them
+        Item first = createItem("RCT1", "Report Twin");
+        Item second = createItem("RCT2", "Report Twin");
+
+        SessionState till = SessionState.forTerminal("report-test-till");
+        till.startSession(new Cashier("RCU1", "reportcashier", "secret", "Report Cashier",
+                "report@example.com", "000", "IT"));
+        BillingController billing = new BillingController(till);
+        billing.createNewBill();
+        assertTrue(billing.addItemToBill(first, 3));
+        assertTrue(billing.addItemToBill(second, 1));
+        assertTrue(billing.finalizeBill());
+        till.endSession();
+
+        SessionState office = SessionState.forTerminal("report-test-office");
+        office.startSession(new Administrator("RCA1", "reportadmin", "secret", "Report Admin",
+                "admin@example.com", "000"));
+        String report = new ReportController(office)
+                .generateReport("Inventory Report", LocalDate.now(), LocalDate.now());
+        office.endSession();
+
+        String nl = System.lineSeparator();
+        assertTrue(report.contains("Item: Report Twin" + nl + "Current Stock: 17" + nl), report);
+        assertTrue(report.contains("Item: Report Twin" + nl + "Current Stock: 19" + nl), report);
+        assertTrue(report.contains("Sold in Period: 3" + nl), report);
+        assertTrue(report.contains("Sold in Period: 1" + nl), report);
+    }
+}
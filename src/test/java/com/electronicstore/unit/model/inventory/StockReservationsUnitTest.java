@@ -0,0 +1,136 @@
+package com.electronicstore.unit.model.inventory;
+
+import com.electronicstore.model.inventory.Category;
+import com.electronicstore.model.inventory.Item;
+import com.electronicstore.model.inventory.StockReservations;
+import com.electronicstore.model.inventory.Supplier;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Purpose: verify reserve, release and commit of stock, and that concurrent tills never oversell.
+ */
+class StockReservationsUnitTest {
+
+    private final StockReservations reservations = new StockReservations();
+
+    private Item createItem(int stock) {
+        Category category = new Category("C1", "Laptops", 5, "IT");
+        Supplier supplier = new Supplier("S1", "Dell", "contact");
+        return new Item("I1", "Laptop A", category, supplier, LocalDate.now(), 500.0, 700.0, stock);
+    }
+
+    @Test
+    void reserve_shouldTakeStockAndRefuseWhenShort() {
+        Item item = createItem(5);
+
+        assertTrue(reservations.reserve("B1", item, 3));
+        assertFalse(reservations.reserve("B2", item, 3));
+        assertEquals(2, item.getStockQuantity());
+        assertEquals(3, reservations.reservedQuantity("I1"));
+    }
+
+    @Test
+    void releaseAll_shouldReturnEverythingTheBillHeld() {
+        Item item = createItem(10);
+        reservations.reserve("B1", item, 2);
+        reservations.reserve("B1", item, 3);
+
+        reservations.release("B1", item, 1);
+        assertEquals(6, item.getStockQuantity());
+
+        reservations.releaseAll("B1");
+        assertEquals(10, item.getStockQuantity());
+        assertEquals(0, reservations.reservedQuantity("I1"));
+    }
+
+    @Test
+    void commit_shouldKeepStockTakenAndForgetReservation() {
+        Item item = createItem(10);
+        reservations.reserve("B1", item, 4);
+
+        List<StockReservations.Reservation> committed = reservations.commit("B1");
+        reservations.releaseAll("B1");
+
+        assertEquals(1, committed.size());
+        assertEquals(4, committed.get(0).getQuantity());
+        assertEquals(6, item.getStockQuantity());
+    }
+
+    @Test
+    void rebase_shouldMoveOpenBillsOntoReloadedItems() {
+        Item item = createItem(10);
+        reservations.reserve("B1", item, 4);
+
+        // A reload reads the committed stock, which still counts the open bill
+        Item reloaded = createItem(10);
+        reservations.rebase(List.of(reloaded));
+        assertEquals(6, reloaded.getStockQuantity());
+        assertEquals(10, reservations.committedStock(reloaded));
+
+        // The till still holds the old instance; the stock goes back to the new one
+        reservations.release("B1", item, 1);
+        assertEquals(7, reloaded.getStockQuantity());
+        assertEquals(6, item.getStockQuantity());
+        assertSame(reloaded, reservations.commit("B1").get(0).getItem());
+    }
+
+    @Test
+    void reserve_shouldTakeStockOffTheReloadedItem() {
+        Item item = createItem(10);
+        reservations.rebase(List.of(item));
+        Item reloaded = createItem(10);
+        reservations.rebase(List.of(reloaded));
+
+        // A till still showing the old instance sells from the catalog's one
+        assertTrue(reservations.reserve("B1", item, 4));
+        assertTrue(reservations.adjust(item, -1));
+
+        assertEquals(5, reloaded.getStockQuantity());
+        assertEquals(10, item.getStockQuantity());
+        assertSame(reloaded, reservations.commit("B1").get(0).getItem());
+    }
+
+    @Test
+    void concurrentTills_shouldNeverOversell() throws Exception {
+        Item item = createItem(1000);
+        int tills = 32;
+        AtomicInteger sold = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(tills);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < tills; t++) {
+            String till = "T" + t;
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < 100; i++) {
+                    String bill = till + "-" + i;
+                    if (reservations.reserve(bill, item, 1)) {
+                        if (i % 2 == 0) {
+                            reservations.commit(bill);
+                            sold.incrementAndGet();
+                        } else {
+                            reservations.releaseAll(bill);
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(1000 - sold.get(), item.getStockQuantity());
+        assertTrue(item.getStockQuantity() >= 0);
+    }
+}
@@ -0,0 +1,102 @@
+package com.electronicstore.unit.model.persistence;
+
+import com.electronicstore.model.inventory.Category;
+import com.electronicstore.model.inventory.Item;
+import com.electronicstore.model.inventory.Supplier;
+import com.electronicstore.model.persistence.BillJournal;
+import com.electronicstore.model.persistence.JournalSegment;
+import com.electronicstore.model.persistence.ReferenceResolver;
+import com.electronicstore.model.sales.Bill;
+import com.electronicstore.model.sales.SaleItem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Purpose: verify monthly segmentation, range reads and manifest recovery of the bill journal.
+ */
+class BillJournalUnitTest {
+
+    private static final ReferenceResolver NO_CATALOG = ReferenceResolver.forCatalog(List.of());
+
+    @TempDir
+    Path tempDir;
+
+    private Bill createBill(String number, LocalDate date) {
+        Category category = new Category("C1", "Laptops", 5, "IT");
+        Supplier supplier = new Supplier("S1", "Dell", "contact");
+        Item item = new Item("I1", "Laptop A", category, supplier, date, 500.0, 700.0, 10);
+
+        Bill bill = new Bill(number, "U1", date.atTime(10, 0), 0.0);
+        bill.addItem(new SaleItem(item, 1));
+        return bill;
+    }
+
+    @Test
+    void append_shouldWriteOneSegmentPerMonth() throws Exception {
+        BillJournal journal = new BillJournal(tempDir);
+
+        journal.append(createBill("B1", LocalDate.of(2024, 1, 15)));
+        journal.append(createBill("B2", LocalDate.of(2024, 1, 20)));
+        journal.append(createBill("B3", LocalDate.of(2024, 3, 2)));
+
+        assertTrue(Files.exists(tempDir.resolve("bills-2024-01.seg")));
+        assertTrue(Files.exists(tempDir.resolve("bills-2024-03.seg")));
+        assertEquals(3, journal.readAll(NO_CATALOG).size());
+    }
+
+    @Test
+    void readRange_shouldOpenOnlyOverlappingSegments() throws Exception {
+        BillJournal journal = new BillJournal(tempDir);
+        journal.append(createBill("B1", LocalDate.of(2024, 1, 15)));
+        journal.append(createBill("B2", LocalDate.of(2024, 2, 10)));
+        journal.append(createBill("B3", LocalDate.of(2024, 2, 28)));
+        journal.append(createBill("B4", LocalDate.of(2024, 3, 2)));
+
+        LocalDate start = LocalDate.of(2024, 2, 1);
+        LocalDate end = LocalDate.of(2024, 2, 15);
+
+        assertEquals(List.of(tempDir.resolve("bills-2024-02.seg")), journal.segmentsFor(start, end));
+        List<Bill> bills = journal.readRange(start, end, NO_CATALOG);
+        assertEquals(1, bills.size());
+        assertEquals("B2", bills.get(0).getBillNumber());
+    }
+
+    @Test
+    void reopen_shouldRecoverSegmentsMissingFromManifest() throws Exception {
+        BillJournal journal = new BillJournal(tempDir);
+        journal.append(createBill("B1", LocalDate.of(2024, 1, 15)));
+
+        // A segment written just before a crash, before the manifest was updated
+        new JournalSegment(tempDir.resolve("bills-2024-02.seg"))
+                .append(createBill("B2", LocalDate.of(2024, 2, 10)));
+
+        BillJournal reopened = new BillJournal(tempDir);
+        assertEquals(2, reopened.readAll(NO_CATALOG).size());
+        assertTrue(Files.readString(tempDir.resolve(BillJournal.MANIFEST_FILE)).contains("bills-2024-02.seg"));
+    }
+
+    @Test
+    void readRange_shouldReturnEmptyListWithoutSegments() throws Exception {
+        BillJournal journal = new BillJournal(tempDir.resolve("empty"));
+
+        assertTrue(journal.readRange(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31), NO_CATALOG).isEmpty());
+    }
+
+    @Test
+    void append_shouldFileBillUnderItsIssueMonth() throws Exception {
+        BillJournal journal = new BillJournal(tempDir);
+        LocalDateTime issued = LocalDateTime.of(2023, 12, 31, 23, 59);
+
+        Bill bill = new Bill("B1", "U1", issued, 0.0);
+        journal.append(bill);
+
+        assertTrue(Files.exists(tempDir.resolve("bills-2023-12.seg")));
+    }
+}
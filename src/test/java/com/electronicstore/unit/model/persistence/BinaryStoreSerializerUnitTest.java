@@ -0,0 +1,118 @@
+package com.electronicstore.unit.model.persistence;
+
+import com.electronicstore.model.inventory.Category;
+import com.electronicstore.model.inventory.Item;
+import com.electronicstore.model.inventory.Supplier;
+import com.electronicstore.model.persistence.BinaryStoreSerializer;
+import com.electronicstore.model.persistence.JavaObjectSerializer;
+import com.electronicstore.model.sales.Bill;
+import com.electronicstore.model.sales.SaleItem;
+import com.electronicstore.model.users.Cashier;
+import com.electronicstore.model.users.Manager;
+import com.electronicstore.model.users.User;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Purpose: verify round trips through the binary codec and format detection.
+ */
+class BinaryStoreSerializerUnitTest {
+
+    private final BinaryStoreSerializer binary = new BinaryStoreSerializer();
+    private final JavaObjectSerializer java = new JavaObjectSerializer();
+
+    private Item createItem(String id, int stock) {
+        Category category = new Category("C1", "Laptops", 5, "IT");
+        Supplier supplier = new Supplier("S1", "Dell", "contact");
+        return new Item(id, "Laptop " + id, category, supplier,
+                LocalDate.of(2024, 1, 15), 500.0, 700.0, stock);
+    }
+
+    private <T> List<T> roundTrip(List<?> list) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        binary.writeList(list, out);
+        return binary.readList(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    @Test
+    void items_shouldRoundTripAllFields() throws Exception {
+        List<Item> loaded = roundTrip(List.of(createItem("I1", 10), createItem("I2", 0)));
+
+        assertEquals(2, loaded.size());
+        Item item = loaded.get(0);
+        assertEquals("I1", item.getId());
+        assertEquals("Laptops", item.getCategory().getName());
+        assertEquals(5, item.getCategory().getMinStockLevel());
+        assertEquals("Dell", item.getSupplier().getName());
+        assertEquals(LocalDate.of(2024, 1, 15), item.getPurchaseDate());
+        assertEquals(700.0, item.getSellingPrice(), 0.0001);
+        assertEquals(0, loaded.get(1).getStockQuantity());
+    }
+
+    @Test
+    void items_shouldShareOneCategoryAndSupplierInstancePerId() throws Exception {
+        List<Item> loaded = roundTrip(List.of(createItem("I1", 10), createItem("I2", 5)));
+
+        assertSame(loaded.get(0).getCategory(), loaded.get(1).getCategory());
+        assertSame(loaded.get(0).getSupplier(), loaded.get(1).getSupplier());
+    }
+
+    @Test
+    void bills_shouldRoundTripLinesAndTotal() throws Exception {
+        Bill bill = new Bill("B1", "U1");
+        bill.addItem(new SaleItem(createItem("I1", 10), 2));
+
+        List<Bill> loaded = roundTrip(List.of(bill));
+
+        Bill copy = loaded.get(0);
+        assertEquals("B1", copy.getBillNumber());
+        assertEquals(bill.getDateTime(), copy.getDateTime());
+        assertEquals(1, copy.getItems().size());
+        assertEquals("I1", copy.getItems().get(0).getItemId());
+        assertEquals("Laptop I1", copy.getItems().get(0).getItem().getName());
+        assertEquals(500.0, copy.getItems().get(0).getUnitCost(), 0.0001);
+        assertEquals(1400.0, copy.getTotalAmount(), 0.0001);
+    }
+
+    @Test
+    void users_shouldKeepSubtypeAndRoleFields() throws Exception {
+        Manager manager = new Manager("U2", "mgr", "pw", "Manager", "m@test.com", "222");
+        manager.addManagedSector("IT");
+        Cashier cashier = new Cashier("U1", "cash", "pw", "Cashier", "c@test.com", "111", "Sales");
+        cashier.setActive(false);
+
+        List<User> loaded = roundTrip(List.of(cashier, manager));
+
+        assertInstanceOf(Cashier.class, loaded.get(0));
+        assertEquals("Sales", ((Cashier) loaded.get(0)).getSector());
+        assertFalse(loaded.get(0).isActive());
+        assertInstanceOf(Manager.class, loaded.get(1));
+        assertEquals(List.of("IT"), ((Manager) loaded.get(1)).getManagedSectors());
+    }
+
+    @Test
+    void loadedList_shouldBeMutable() throws Exception {
+        List<Item> loaded = roundTrip(new ArrayList<>());
+
+        assertDoesNotThrow(() -> loaded.add(createItem("I3", 1)));
+    }
+
+    @Test
+    void formatDetection_shouldTellBinaryFromJavaSerialization() throws Exception {
+        ByteArrayOutputStream binaryOut = new ByteArrayOutputStream();
+        binary.writeList(List.of(createItem("I1", 1)), binaryOut);
+        ByteArrayOutputStream javaOut = new ByteArrayOutputStream();
+        java.writeList(new ArrayList<>(List.of(createItem("I1", 1))), javaOut);
+
+        assertTrue(binary.canRead(binaryOut.toByteArray()));
+        assertFalse(java.canRead(binaryOut.toByteArray()));
+        assertTrue(java.canRead(javaOut.toByteArray()));
+        assertFalse(binary.canRead(javaOut.toByteArray()));
+    }
+}
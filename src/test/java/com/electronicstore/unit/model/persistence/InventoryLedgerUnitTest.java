@@ -0,0 +1,218 @@
+package com.electronicstore.unit.model.persistence;
+
+import com.electronicstore.model.persistence.InventoryLedger;
+import com.electronicstore.model.persistence.StockMovementLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Purpose: verify point-in-time stock, movement ranges, snapshots, reopening from the saved index, failed appends
+ * and that old or foreign ledger files are migrated or set aside, never deleted.
+ */
+class InventoryLedgerUnitTest {
+
+    @TempDir
+    Path tempDir;
+
+    private StockMovementLog.Movement movement(String itemId, int delta, Instant at) {
+        return new StockMovementLog.Movement(itemId, delta, "B1", at);
+    }
+
+    private InventoryLedger ledgerWithHistory() throws Exception {
+        InventoryLedger ledger = new InventoryLedger(tempDir.resolve("ledger.log"));
+        ledger.recordSnapshot("I1", 10);
+        Instant start = Instant.now();
+        ledger.record(List.of(movement("I1", -2, start.plusSeconds(60))));
+        ledger.record(List.of(movement("I1", -3, start.plusSeconds(120)), movement("I2", -1, start.plusSeconds(120))));
+        ledger.record(List.of(movement("I1", 5, start.plusSeconds(180))));
+        return ledger;
+    }
+
+    @Test
+    void stockAt_shouldReturnStockAfterLastEventBeforeInstant() throws Exception {
+        InventoryLedger ledger = ledgerWithHistory();
+        Instant first = ledger.stockMovements(Instant.EPOCH, Instant.MAX).get(0).getTimestamp();
+
+        assertEquals(OptionalInt.empty(), ledger.stockAt("I1", first.minusSeconds(3600)));
+        assertEquals(OptionalInt.of(8), ledger.stockAt("I1", first));
+        assertEquals(OptionalInt.of(5), ledger.stockAt("I1", first.plusSeconds(90)));
+        assertEquals(OptionalInt.of(10), ledger.stockAt("I1", first.plusSeconds(3600)));
+    }
+
+    @Test
+    void stockMovements_shouldReturnOnlyMovementsInRange() throws Exception {
+        InventoryLedger ledger = ledgerWithHistory();
+        Instant first = ledger.stockMovements(Instant.EPOCH, Instant.MAX).get(0).getTimestamp();
+
+        List<StockMovementLog.Movement> range = ledger.stockMovements(first.plusSeconds(60), first.plusSeconds(120));
+
+        assertEquals(2, range.size());
+        assertEquals(-3, range.get(0).getDelta());
+        assertEquals("I2", range.get(1).getItemId());
+        assertEquals(4, ledger.movementCount());
+    }
+
+    @Test
+    void untrackedItem_shouldHaveNoStockHistory() throws Exception {
+        InventoryLedger ledger = ledgerWithHistory();
+
+        assertEquals(OptionalInt.empty(), ledger.stockAt("I2", Instant.now().plusSeconds(3600)));
+    }
+
+    @Test
+    void recordSnapshot_shouldWriteOnlyWhenStockDiffers() throws Exception {
+        InventoryLedger ledger = new InventoryLedger(tempDir.resolve("ledger.log"));
+        ledger.recordSnapshot("I1", 10);
+        long size = Files.size(ledger.getPath());
+
+        ledger.recordSnapshot("I1", 10);
+        assertEquals(size, Files.size(ledger.getPath()));
+
+        ledger.recordSnapshot("I1", 12);
+        assertTrue(Files.size(ledger.getPath()) > size);
+        assertEquals(OptionalInt.of(12), ledger.stockAt("I1", Instant.now().plusSeconds(1)));
+    }
+
+    @Test
+    void reopen_shouldRebuildHistoryIncludingPeriodicSnapshots() throws Exception {
+        InventoryLedger ledger = new InventoryLedger(tempDir.resolve("ledger.log"));
+        ledger.recordSnapshot("I1", 1000);
+        Instant start = Instant.now();
+        for (int i = 0; i < InventoryLedger.SNAPSHOT_INTERVAL + 10; i++) {
+            ledger.record(List.of(movement("I1", -1, start.plusMillis(i))));
+        }
+
+        InventoryLedger reopened = new InventoryLedger(ledger.getPath());
+
+        int expected = 1000 - InventoryLedger.SNAPSHOT_INTERVAL - 10;
+        assertEquals(OptionalInt.of(expected), reopened.stockAt("I1", start.plusSeconds(3600)));
+        assertEquals(OptionalInt.of(999), reopened.stockAt("I1", start));
+        assertEquals(InventoryLedger.SNAPSHOT_INTERVAL + 10, reopened.movementCount());
+    }
+
+    @Test
+    void stockAt_shouldReadOlderSnapshotsFromDisk() throws Exception {
+        InventoryLedger ledger = new InventoryLedger(tempDir.resolve("ledger.log"));
+        ledger.recordSnapshot("I1", 5000);
+        Instant start = Instant.now();
+        int movements = InventoryLedger.SNAPSHOT_INTERVAL * 3 + 7;
+        for (int i = 0; i < movements; i++) {
+            ledger.record(List.of(movement("I1", -1, start.plusMillis(i)), movement("I2", 1, start.plusMillis(i))));
+        }
+
+        assertEquals(OptionalInt.of(5000 - 1), ledger.stockAt("I1", start));
+        assertEquals(OptionalInt.of(5000 - 301), ledger.stockAt("I1", start.plusMillis(300)));
+        assertEquals(OptionalInt.of(5000 - 700), ledger.stockAt("I1", start.plusMillis(699)));
+        assertEquals(OptionalInt.of(5000 - movements), ledger.stockAt("I1", start.plusSeconds(3600)));
+
+        List<StockMovementLog.Movement> range = ledger.stockMovements(start.plusMillis(500), start.plusMillis(510));
+        assertEquals(20, range.size());
+        assertEquals(start.plusMillis(500).toEpochMilli(), range.get(0).getTimestamp().toEpochMilli());
+    }
+
+    @Test
+    void reopen_shouldOnlyReadWhatWasAppendedAfterTheSavedIndex() throws Exception {
+        Path file = tempDir.resolve("ledger.log");
+        InventoryLedger ledger = new InventoryLedger(file);
+        ledger.recordSnapshot("I1", 100);
+        Instant start = Instant.now();
+        ledger.record(List.of(movement("I1", -10, start)));
+        new InventoryLedger(file);
+        Path index = file.resolveSibling(file.getFileName() + InventoryLedger.INDEX_SUFFIX);
+        assertTrue(Files.exists(index));
+
+        ledger.record(List.of(movement("I1", -5, start.plusSeconds(60))));
+        InventoryLedger reopened = new InventoryLedger(file);
+
+        assertEquals(OptionalInt.of(90), reopened.stockAt("I1", start));
+        assertEquals(OptionalInt.of(85), reopened.stockAt("I1", start.plusSeconds(3600)));
+        assertEquals(2, reopened.stockMovements(Instant.MIN, Instant.MAX).size());
+        assertEquals(2, reopened.movementCount());
+    }
+
+    @Test
+    void record_shouldPropagateWriteFailuresWithoutChangingHistory() throws Exception {
+        Path file = tempDir.resolve("ledger.log");
+        InventoryLedger ledger = new InventoryLedger(file);
+        ledger.recordSnapshot("I1", 10);
+
+        // A directory in place of the ledger makes the append fail
+        Files.delete(file);
+        Files.createDirectory(file);
+        assertThrows(IOException.class, () -> ledger.record(List.of(movement("I1", -2, Instant.now()))));
+
+        assertEquals(OptionalInt.of(10), ledger.stockAt("I1", Instant.now().plusSeconds(3600)));
+        assertEquals(0, ledger.movementCount());
+    }
+
+    // [int length][int crc32][payload], as the ledger frames its records
+    private static void writeRecord(DataOutputStream out, byte[] payload) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        out.writeInt(payload.length);
+        out.writeInt((int) crc.getValue());
+        out.write(payload);
+    }
+
+    @Test
+    void open_shouldMigrateAVersion1LedgerAndKeepTheOriginal() throws Exception {
+        Path file = tempDir.resolve("ledger.log");
+        long start = Instant.now().toEpochMilli();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0x45534C31);
+        out.writeInt(1);
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        try (DataOutputStream record = new DataOutputStream(snapshot)) {
+            record.writeByte(1);
+            record.writeUTF("I1");
+            record.writeInt(50);
+            record.writeLong(start);
+        }
+        writeRecord(out, snapshot.toByteArray());
+        ByteArrayOutputStream sale = new ByteArrayOutputStream();
+        try (DataOutputStream record = new DataOutputStream(sale)) {
+            record.writeByte(2);
+            record.writeUTF("I1");
+            record.writeInt(-4);
+            record.writeUTF("B1");
+            record.writeLong(start + 60_000);
+        }
+        writeRecord(out, sale.toByteArray());
+        byte[] original = bytes.toByteArray();
+        Files.write(file, original);
+
+        InventoryLedger ledger = new InventoryLedger(file);
+
+        assertEquals(OptionalInt.of(50), ledger.stockAt("I1", Instant.ofEpochMilli(start)));
+        assertEquals(OptionalInt.of(46), ledger.stockAt("I1", Instant.ofEpochMilli(start + 120_000)));
+        assertEquals(1, ledger.movementCount());
+        assertArrayEquals(original, Files.readAllBytes(
+                tempDir.resolve("ledger.log" + InventoryLedger.VERSION_1_SUFFIX)));
+    }
+
+    @Test
+    void open_shouldSetAForeignFileAsideInsteadOfDeletingIt() throws Exception {
+        Path file = tempDir.resolve("ledger.log");
+        byte[] foreign = "not a ledger, but somebody's data".getBytes();
+        Files.write(file, foreign);
+
+        InventoryLedger ledger = new InventoryLedger(file);
+        ledger.recordSnapshot("I1", 3);
+
+        assertArrayEquals(foreign, Files.readAllBytes(
+                tempDir.resolve("ledger.log" + InventoryLedger.CORRUPT_SUFFIX)));
+        assertEquals(OptionalInt.of(3), ledger.stockAt("I1", Instant.now().plusSeconds(1)));
+    }
+}
@@ -0,0 +1,186 @@
+package com.electronicstore.unit.model.persistence;
+
+import com.electronicstore.model.inventory.Category;
+import com.electronicstore.model.inventory.Item;
+import com.electronicstore.model.inventory.StockReservations;
+import com.electronicstore.model.inventory.Supplier;
+import com.electronicstore.model.persistence.ItemRepository;
+import com.electronicstore.model.persistence.StockMovementLog;
+import com.electronicstore.model.utils.FileHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Purpose: verify in-memory reads, write-behind flush, stock movement compaction across restored copies and merging of external file changes.
+ */
+class ItemRepositoryUnitTest {
+
+    private static final Path ITEMS = FileHandler.resolve(ItemRepository.ITEMS_FILE);
+
+    private final ItemRepository repository = ItemRepository.getInstance();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Files.deleteIfExists(ITEMS);
+    }
+
+    @AfterEach
+    void cleanUp() throws Exception {
+        Files.deleteIfExists(ITEMS);
+    }
+
+    private Item createItem(String id, int stock) {
+        Category category = new Category("C1", "Laptops", 5, "IT");
+        Supplier supplier = new Supplier("S1", "Dell", "contact");
+        return new Item(id, "Laptop " + id, category, supplier, LocalDate.now(), 500, 700, stock);
+    }
+
+    @Test
+    void save_shouldBeVisibleImmediatelyAndOnDiskAfterFlush() throws Exception {
+        repository.save(createItem("I1", 10));
+
+        assertTrue(repository.findById("I1").isPresent());
+
+        repository.flush();
+        List<Item> onDisk = FileHandler.readListFromFile(ItemRepository.ITEMS_FILE);
+        assertEquals(1, onDisk.size());
+        assertEquals("I1", onDisk.get(0).getId());
+    }
+
+    @Test
+    void findAll_shouldReturnSameInstancesWithoutRereading() {
+        repository.save(createItem("I1", 10));
+
+        Item first = repository.findAll().get(0);
+        Item second = repository.findAll().get(0);
+
+        assertSame(first, second);
+    }
+
+    @Test
+    void externalWrite_shouldReplaceInMemoryState() throws Exception {
+        repository.save(createItem("I1", 10));
+        repository.flush();
+
+        FileHandler.saveListToFile(new ArrayList<>(List.of(createItem("I2", 3))), ItemRepository.ITEMS_FILE);
+
+        assertFalse(repository.findById("I1").isPresent());
+        assertEquals(3, repository.findById("I2").orElseThrow().getStockQuantity());
+    }
+
+    @Test
+    void externalWrite_shouldMergeWithUnflushedChanges() throws Exception {
+        repository.save(createItem("X1", 10));
+        repository.save(createItem("X2", 10));
+        repository.flush();
+
+        // Holding the repository keeps the background flush out until the file was changed
+        synchronized (repository) {
+            repository.save(createItem("X3", 4));
+            assertTrue(repository.delete("X2"));
+            FileHandler.saveListToFile(new ArrayList<>(List.of(createItem("X1", 8), createItem("X2", 10))),
+                    ItemRepository.ITEMS_FILE);
+
+            assertEquals(8, repository.findById("X1").orElseThrow().getStockQuantity());
+            assertTrue(repository.findById("X3").isPresent(), "An acknowledged save must survive");
+            assertFalse(repository.findById("X2").isPresent(), "An acknowledged delete must survive");
+        }
+
+        repository.flush();
+        List<Item> onDisk = FileHandler.readListFromFile(ItemRepository.ITEMS_FILE);
+        assertTrue(onDisk.stream().anyMatch(item -> item.getId().equals("X1") && item.getStockQuantity() == 8));
+        assertTrue(onDisk.stream().anyMatch(item -> item.getId().equals("X3")));
+        assertTrue(onDisk.stream().noneMatch(item -> item.getId().equals("X2")));
+    }
+
+    @Test
+    void delete_shouldRemoveEntry() {
+        repository.save(createItem("I1", 10));
+
+        assertTrue(repository.delete("I1"));
+        assertFalse(repository.delete("I1"));
+        assertEquals(0, repository.size());
+    }
+
+    @Test
+    void stockChange_shouldBeFoldedIntoItemsOnFlush() throws Exception {
+        repository.save(createItem("M1", 10));
+        repository.flush();
+
+        Item item = repository.findById("M1").orElseThrow();
+        StockMovementLog.Movement sale = new StockMovementLog.Movement("M1", -3, "B1", Instant.now());
+        assertTrue(repository.recordStockChange(List.of(sale), () -> item.updateStock(-3)));
+        assertEquals(1, repository.getMovementLog().pendingCount());
+
+        repository.save(createItem("M2", 5));
+        repository.flush();
+
+        List<Item> onDisk = FileHandler.readListFromFile(ItemRepository.ITEMS_FILE);
+        assertEquals(7, onDisk.get(0).getStockQuantity());
+        assertEquals(0, repository.getMovementLog().pendingCount());
+    }
+
+    @Test
+    void externalWrite_shouldDiscardLoggedStockChanges() throws Exception {
+        repository.save(createItem("M1", 10));
+        repository.flush();
+
+        Item item = repository.findById("M1").orElseThrow();
+        StockMovementLog.Movement sale = new StockMovementLog.Movement("M1", -3, "B1", Instant.now());
+        repository.recordStockChange(List.of(sale), () -> item.updateStock(-3));
+
+        FileHandler.saveListToFile(new ArrayList<>(List.of(createItem("M1", 10))), ItemRepository.ITEMS_FILE);
+
+        assertEquals(10, repository.findById("M1").orElseThrow().getStockQuantity());
+        assertEquals(0, repository.getMovementLog().pendingCount());
+    }
+
+    @Test
+    void restoredCopy_shouldKeepLoggedStockChanges() throws Exception {
+        repository.save(createItem("G1", 10));
+        repository.flush();
+
+        Item item = repository.findById("G1").orElseThrow();
+        StockMovementLog.Movement sale = new StockMovementLog.Movement("G1", -3, "B1", Instant.now());
+        repository.recordStockChange(List.of(sale), () -> item.updateStock(-3));
+
+        // Same content, new file: size, time and file key no longer identify it, the generation does
+        byte[] copy = Files.readAllBytes(ITEMS);
+        Files.delete(ITEMS);
+        Files.write(ITEMS, copy);
+
+        assertEquals(7, repository.findById("G1").orElseThrow().getStockQuantity());
+        assertEquals(1, repository.getMovementLog().pendingCount());
+    }
+
+    @Test
+    void externalWrite_shouldKeepOpenBillsHoldingTheirStock() throws Exception {
+        StockReservations reservations = StockReservations.getInstance();
+        repository.save(createItem("R1", 10));
+        repository.flush();
+        assertTrue(reservations.reserve("RB1", repository.findById("R1").orElseThrow(), 4));
+
+        FileHandler.saveListToFile(new ArrayList<>(List.of(createItem("R1", 10))), ItemRepository.ITEMS_FILE);
+
+        Item reloaded = repository.findById("R1").orElseThrow();
+        assertEquals(6, reloaded.getStockQuantity());
+
+        // Compaction must not count the open bill twice
+        repository.touch("R1");
+        repository.flush();
+        List<Item> onDisk = FileHandler.readListFromFile(ItemRepository.ITEMS_FILE);
+        assertEquals(10, onDisk.get(0).getStockQuantity());
+
+        reservations.releaseAll("RB1");
+        assertEquals(10, reloaded.getStockQuantity());
+    }
+}
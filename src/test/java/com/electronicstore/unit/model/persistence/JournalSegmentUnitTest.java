@@ -0,0 +1,125 @@
+package com.electronicstore.unit.model.persistence;
+
+import com.electronicstore.model.inventory.Category;
+import com.electronicstore.model.inventory.Item;
+import com.electronicstore.model.inventory.Supplier;
+import com.electronicstore.model.persistence.JournalSegment;
+import com.electronicstore.model.persistence.ReferenceResolver;
+import com.electronicstore.model.sales.Bill;
+import com.electronicstore.model.sales.SaleItem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Purpose: verify append, read back, torn-tail recovery and quarantine of one bill journal segment.
+ */
+class JournalSegmentUnitTest {
+
+    private static final ReferenceResolver NO_CATALOG = ReferenceResolver.forCatalog(List.of());
+
+    @TempDir
+    Path tempDir;
+
+    private Item createItem() {
+        Category category = new Category("C1", "Laptops", 5, "IT");
+        Supplier supplier = new Supplier("S1", "Dell", "contact");
+        return new Item("I1", "Laptop A", category, supplier,
+                LocalDate.now(), 500.0, 700.0, 10);
+    }
+
+    private Bill createBill(String number, int quantity) {
+        Item item = createItem();
+
+        Bill bill = new Bill(number, "U1");
+        bill.addItem(new SaleItem(item, quantity));
+        return bill;
+    }
+
+    @Test
+    void append_shouldReadBackBillsInOrder() throws Exception {
+        JournalSegment journal = new JournalSegment(tempDir.resolve("bills.journal"));
+
+        journal.append(createBill("B1", 1));
+        journal.append(createBill("B2", 2));
+
+        List<Bill> bills = journal.readAll(NO_CATALOG);
+        assertEquals(2, bills.size());
+        assertEquals("B1", bills.get(0).getBillNumber());
+        assertEquals("B2", bills.get(1).getBillNumber());
+        assertEquals(1400.0, bills.get(1).getTotalAmount(), 0.0001);
+    }
+
+    @Test
+    void readAll_shouldResolveLinesToCatalogInstances() throws Exception {
+        JournalSegment journal = new JournalSegment(tempDir.resolve("bills.journal"));
+        journal.append(createBill("B1", 1));
+        journal.append(createBill("B2", 2));
+
+        Item catalogItem = createItem();
+        catalogItem.setPurchasePrice(650.0); // price changed after the sales
+        List<Bill> bills = journal.readAll(ReferenceResolver.forCatalog(List.of(catalogItem)));
+
+        SaleItem first = bills.get(0).getItems().get(0);
+        assertSame(catalogItem, first.getItem());
+        assertSame(catalogItem, bills.get(1).getItems().get(0).getItem());
+        assertEquals(500.0, first.getUnitCost(), 0.0001, "Cost should stay the one at sale time");
+    }
+
+    @Test
+    void readAll_shouldReturnEmptyListWhenJournalMissing() throws Exception {
+        JournalSegment journal = new JournalSegment(tempDir.resolve("missing.journal"));
+
+        assertTrue(journal.readAll(NO_CATALOG).isEmpty());
+        assertEquals(0, journal.recover());
+    }
+
+    @Test
+    void recover_shouldTruncateTornRecordAndKeepAppending() throws Exception {
+        Path file = tempDir.resolve("bills.journal");
+        JournalSegment journal = new JournalSegment(file);
+        journal.append(createBill("B1", 1));
+        long goodLength = Files.size(file);
+
+        // Simulate a crash in the middle of writing the next record
+        Files.write(file, new byte[]{0, 0, 1, 0, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        assertEquals(1, journal.recover());
+        assertEquals(goodLength, Files.size(file));
+
+        journal.append(createBill("B2", 3));
+        List<Bill> bills = journal.readAll(NO_CATALOG);
+        assertEquals(2, bills.size());
+        assertEquals("B2", bills.get(1).getBillNumber());
+    }
+
+    @Test
+    void recover_shouldSetACorruptHeaderAsideAndRefuseTheMonth() throws Exception {
+        Path file = tempDir.resolve("bills-2024-05.seg");
+        JournalSegment journal = new JournalSegment(file);
+        journal.append(createBill("B1", 1));
+        journal.append(createBill("B2", 2));
+
+        // Damage the magic number; every record after it is still intact
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[0] ^= 0x7F;
+        Files.write(file, bytes);
+
+        JournalSegment reopened = new JournalSegment(file);
+        assertEquals(0, reopened.recover());
+
+        Path corrupt = tempDir.resolve("bills-2024-05.seg" + JournalSegment.CORRUPT_SUFFIX);
+        assertArrayEquals(bytes, Files.readAllBytes(corrupt), "The damaged segment must be kept byte for byte");
+        assertTrue(reopened.isQuarantined());
+        assertThrows(IOException.class, () -> reopened.append(createBill("B3", 1)));
+        assertThrows(IOException.class, () -> reopened.readAll(NO_CATALOG));
+        assertFalse(Files.exists(file), "No new segment may be started over the quarantined month");
+    }
+}
@@ -0,0 +1,140 @@
+package com.electronicstore.unit.model.persistence;
+
+import com.electronicstore.model.inventory.Category;
+import com.electronicstore.model.inventory.Item;
+import com.electronicstore.model.inventory.Supplier;
+import com.electronicstore.model.persistence.BillJournal;
+import com.electronicstore.model.persistence.SalesColumnStore;
+import com.electronicstore.model.sales.Bill;
+import com.electronicstore.model.sales.SaleItem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Purpose: verify column appends, ranged scans, snapshots and rebuild from the bill journal.
+ */
+class SalesColumnStoreUnitTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 5, 10);
+
+    @TempDir
+    Path tempDir;
+
+    private Bill createBill(String number, String cashierId, LocalDate date, String itemId, int quantity) {
+        Category category = new Category("C1", "Laptops", 5, "IT");
+        Supplier supplier = new Supplier("S1", "Dell", "contact");
+        Item item = new Item(itemId, "Laptop " + itemId, category, supplier, date, 500.0, 700.0, 10);
+
+        Bill bill = new Bill(number, cashierId, date.atTime(12, 0), 0.0);
+        bill.addItem(new SaleItem(item, quantity));
+        return bill;
+    }
+
+    @Test
+    void scanBills_shouldVisitOnlyBillsInRange() throws Exception {
+        SalesColumnStore store = new SalesColumnStore(tempDir);
+        store.append(createBill("B1", "U1", DAY, "I1", 1));
+        store.append(createBill("B2", "U2", DAY, "I1", 2));
+        store.append(createBill("B3", "U1", DAY.plusDays(1), "I1", 1));
+
+        SalesColumnStore.Snapshot sales = store.snapshot();
+        long[] totals = new long[sales.cashierCount()];
+        sales.scanBills(DAY, DAY, (day, cashier, totalCents) -> totals[cashier] += totalCents);
+
+        assertEquals(2, sales.cashierCount());
+        assertEquals("U1", sales.cashierId(0));
+        assertEquals(70000, totals[0]);
+        assertEquals(140000, totals[1]);
+    }
+
+    @Test
+    void scanLines_shouldExposeQuantityPriceAndCost() throws Exception {
+        SalesColumnStore store = new SalesColumnStore(tempDir);
+        store.append(createBill("B1", "U1", DAY, "I1", 3));
+        store.append(createBill("B2", "U1", DAY, "I2", 1));
+
+        SalesColumnStore.Snapshot sales = store.snapshot();
+        int[] units = new int[sales.itemCount()];
+        long[] cost = new long[1];
+        sales.scanLines(DAY, DAY, (day, cashier, item, quantity, priceCents, unitCostCents) -> {
+            units[item] += quantity;
+            cost[0] += unitCostCents * quantity;
+        });
+
+        assertEquals("I1", sales.itemId(0));
+        assertEquals("Laptop I2", sales.itemName(1));
+        assertArrayEquals(new int[]{3, 1}, units);
+        assertEquals(200000, cost[0]);
+    }
+
+    @Test
+    void snapshot_shouldNotSeeLaterAppends() throws Exception {
+        SalesColumnStore store = new SalesColumnStore(tempDir);
+        store.append(createBill("B1", "U1", DAY, "I1", 1));
+
+        SalesColumnStore.Snapshot before = store.snapshot();
+        store.append(createBill("B2", "U2", DAY, "I2", 1));
+
+        assertEquals(1, before.billCount());
+        assertEquals(1, before.cashierCount());
+        assertEquals(2, store.snapshot().billCount());
+    }
+
+    @Test
+    void reopen_shouldKeepRowsAndDictionary() throws Exception {
+        SalesColumnStore store = new SalesColumnStore(tempDir);
+        store.append(createBill("B1", "U1", DAY, "I1", 1));
+        store.append(createBill("B2", "U2", DAY, "I1", 1));
+
+        SalesColumnStore.Snapshot sales = new SalesColumnStore(tempDir).snapshot();
+        assertEquals(2, sales.billCount());
+        assertEquals(2, sales.lineCount());
+        assertEquals("U2", sales.cashierId(1));
+    }
+
+    @Test
+    void billJournal_shouldRebuildMissingColumns() throws Exception {
+        BillJournal journal = new BillJournal(tempDir);
+        journal.append(createBill("B1", "U1", DAY, "I1", 1));
+        journal.append(createBill("B2", "U1", DAY.plusMonths(1), "I1", 1));
+        assertEquals(2, journal.getColumns().billCount());
+
+        Path columns = journal.getColumns().getDirectory();
+        try (Stream<Path> files = Files.walk(columns)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+
+        BillJournal reopened = new BillJournal(tempDir);
+        assertEquals(2, reopened.getColumns().billCount());
+        assertEquals(2, reopened.getColumns().lineCount());
+    }
+
+    @Test
+    void billJournal_shouldRebuildColumnsInBatches() throws Exception {
+        BillJournal journal = new BillJournal(tempDir);
+        List<Bill> bills = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            bills.add(createBill("B" + i, "U" + (i % 3), DAY.plusDays(i % 40), "I" + (i % 7), 1 + i % 2));
+        }
+        journal.appendAll(bills);
+        Files.delete(journal.getColumns().getDirectory().resolve("bill.day"));
+
+        SalesColumnStore.Snapshot sales = new BillJournal(tempDir).getColumns().snapshot();
+
+        assertEquals(5000, sales.billCount());
+        assertEquals(5000, sales.lineCount());
+        long[] quantity = new long[1];
+        sales.scanLines(DAY, DAY.plusDays(40), (day, cashier, item, units, priceCents, unitCostCents) ->
+                quantity[0] += units);
+        assertEquals(7500, quantity[0]);
+    }
+}
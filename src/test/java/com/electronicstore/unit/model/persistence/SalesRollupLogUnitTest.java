@@ -0,0 +1,100 @@
+package com.electronicstore.unit.model.persistence;
+
+import com.electronicstore.model.persistence.SalesRollupLog;
+import com.electronicstore.model.sales.DailySales;
+import com.electronicstore.model.sales.SalesTotals;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Purpose: verify rollup delta replay against the matching snapshot, restart and torn-tail recovery.
+ */
+class SalesRollupLogUnitTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 5, 10);
+
+    @TempDir
+    Path tempDir;
+
+    private DailySales.BillSales sales(String cashierId, long revenueCents) {
+        return new DailySales.BillSales(cashierId, new SalesTotals(revenueCents, 100, 1, 2),
+                Map.of("I1", new SalesTotals(revenueCents, 100, 0, 2)));
+    }
+
+    private List<DailySales.BillSales> replay(SalesRollupLog log, long snapshotBills) {
+        List<DailySales.BillSales> replayed = new ArrayList<>();
+        log.replay(snapshotBills, (date, sales) -> {
+            assertEquals(DAY, date);
+            replayed.add(sales);
+        });
+        return replayed;
+    }
+
+    @Test
+    void replay_shouldReturnDeltasForMatchingSnapshot() throws Exception {
+        SalesRollupLog log = new SalesRollupLog(tempDir.resolve("rollups.log"));
+        log.replay(3, (date, sales) -> fail());
+        log.append(DAY, sales("U1", 500));
+        log.append(DAY, sales("U2", 700));
+
+        List<DailySales.BillSales> replayed = replay(new SalesRollupLog(tempDir.resolve("rollups.log")), 3);
+
+        assertEquals(2, replayed.size());
+        assertEquals("U1", replayed.get(0).cashierId());
+        assertEquals(700, replayed.get(1).total().getRevenueCents());
+        assertEquals(2, replayed.get(1).byItem().get("I1").getUnits());
+    }
+
+    @Test
+    void replay_shouldDiscardDeltasOfAnotherSnapshot() throws Exception {
+        SalesRollupLog log = new SalesRollupLog(tempDir.resolve("rollups.log"));
+        log.replay(3, (date, sales) -> fail());
+        log.append(DAY, sales("U1", 500));
+
+        // A snapshot written after the delta already accounts for its bill
+        assertTrue(replay(log, 4).isEmpty());
+        assertEquals(0, log.pendingCount());
+        assertTrue(replay(log, 3).isEmpty());
+    }
+
+    @Test
+    void restart_shouldFoldDeltasIntoTheNewSnapshot() throws Exception {
+        SalesRollupLog log = new SalesRollupLog(tempDir.resolve("rollups.log"));
+        log.replay(0, (date, sales) -> fail());
+        log.append(DAY, sales("U1", 500));
+        assertEquals(1, log.pendingCount());
+
+        log.restart(1);
+
+        assertEquals(0, log.pendingCount());
+        assertTrue(replay(log, 1).isEmpty());
+    }
+
+    @Test
+    void replay_shouldCutOffTornTail() throws Exception {
+        Path path = tempDir.resolve("rollups.log");
+        SalesRollupLog log = new SalesRollupLog(path);
+        log.replay(0, (date, sales) -> fail());
+        log.append(DAY, sales("U1", 500));
+        log.append(DAY, sales("U2", 700));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        SalesRollupLog reopened = new SalesRollupLog(path);
+        assertEquals(1, replay(reopened, 0).size());
+        assertEquals(1, reopened.pendingCount());
+
+        reopened.append(DAY, sales("U3", 900));
+        assertEquals(2, replay(new SalesRollupLog(path), 0).size());
+    }
+}
@@ -0,0 +1,142 @@
+package com.electronicstore.unit.model.persistence;
+
+import com.electronicstore.model.inventory.Category;
+import com.electronicstore.model.inventory.Item;
+import com.electronicstore.model.inventory.Supplier;
+import com.electronicstore.model.persistence.SalesColumnStore;
+import com.electronicstore.model.persistence.SalesScan;
+import com.electronicstore.model.sales.Bill;
+import com.electronicstore.model.sales.SaleItem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Purpose: verify that one sales scan fills every registered accumulator and reads each table once.
+ */
+class SalesScanUnitTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 6, 3);
+
+    @TempDir
+    Path tempDir;
+
+    private Bill createBill(String number, String cashierId, LocalDate date, String itemId, int quantity) {
+        Category category = new Category("C1", "Laptops", 5, "IT");
+        Supplier supplier = new Supplier("S1", "Dell", "contact");
+        Item item = new Item(itemId, "Laptop " + itemId, category, supplier, date, 500.0, 700.0, 10);
+
+        Bill bill = new Bill(number, cashierId, date.atTime(12, 0), 0.0);
+        bill.addItem(new SaleItem(item, quantity));
+        return bill;
+    }
+
+    private SalesColumnStore.Snapshot sales() throws Exception {
+        SalesColumnStore store = new SalesColumnStore(tempDir);
+        store.append(createBill("B1", "U1", DAY, "I1", 2));
+        store.append(createBill("B2", "U2", DAY.plusDays(1), "I2", 1));
+        store.append(createBill("B3", "U1", DAY.plusDays(1), "I1", 1));
+        store.append(createBill("B4", "U2", DAY.plusDays(5), "I2", 4));
+        return store.snapshot();
+    }
+
+    @Test
+    void run_shouldFillAllAccumulatorsOfTheRange() throws Exception {
+        SalesScan scan = new SalesScan(sales(), DAY, DAY.plusDays(1));
+        SalesScan.Totals totals = scan.totals();
+        SalesScan.ByDay days = scan.byDay(true);
+        SalesScan.ByCashier cashiers = scan.byCashier();
+        SalesScan.ByItem items = scan.byItem();
+        scan.run();
+
+        assertEquals(3, totals.getBillCount());
+        assertEquals(280000, totals.getRevenueCents());
+        assertEquals(200000, totals.getCostCents());
+        assertEquals(4, totals.getUnits());
+
+        assertEquals(2, days.days());
+        assertEquals(140000, days.getRevenueCents(0));
+        assertEquals(2, days.getBillCount(1));
+        assertEquals(100000, days.getCostCents(1));
+
+        assertEquals(210000, cashiers.getRevenueCents(0));
+        assertEquals(1, cashiers.getBillCount(1));
+
+        assertEquals(3, items.getUnits(0));
+        assertEquals(70000, items.getRevenueCents(1));
+    }
+
+    @Test
+    void run_shouldReadEachTableOnceAndSkipUnusedLines() throws Exception {
+        AtomicInteger billRows = new AtomicInteger();
+        AtomicInteger lineRows = new AtomicInteger();
+        SalesScan scan = new SalesScan(sales(), DAY, DAY.plusDays(10));
+        SalesScan.ByDay days = scan.byDay(false);
+        scan.add(new SalesScan.Accumulator() {
+            @Override
+            public boolean usesLines() {
+                return false;
+            }
+
+            @Override
+            public void visit(int epochDay, int cashier, long totalCents) {
+                billRows.incrementAndGet();
+            }
+
+            @Override
+            public void visit(int epochDay, int cashier, int item, int quantity, long priceCents, long unitCostCents) {
+                lineRows.incrementAndGet();
+            }
+        });
+        scan.run();
+        scan.run();
+
+        assertEquals(4, billRows.get());
+        assertEquals(0, lineRows.get());
+        assertEquals(0, days.getCostCents(0));
+        // The accessors hand out the accumulator already registered
+        assertSame(days, scan.byDay(false));
+        assertThrows(IllegalStateException.class, scan::byItem);
+    }
+
+    @Test
+    void run_shouldMergeParallelSegmentsIntoTheSameFigures() throws Exception {
+        SalesColumnStore store = new SalesColumnStore(tempDir);
+        for (int i = 0; i < 200; i++) {
+            store.append(createBill("P" + i, "U" + (i % 3), DAY.plusDays(i % 7), "I" + (i % 5), 1 + i % 4));
+        }
+        SalesColumnStore.Snapshot sales = store.snapshot();
+
+        SalesScan sequential = new SalesScan(sales, DAY, DAY.plusDays(5));
+        sequential.setParallelThreshold(Integer.MAX_VALUE);
+        SalesScan parallel = new SalesScan(sales, DAY, DAY.plusDays(5));
+        parallel.setParallelThreshold(8);
+        for (SalesScan scan : new SalesScan[]{sequential, parallel}) {
+            scan.totals();
+            scan.byDay(true);
+            scan.byCashier();
+            scan.byItem();
+            scan.run();
+        }
+
+        assertEquals(sequential.totals().getRevenueCents(), parallel.totals().getRevenueCents());
+        assertEquals(sequential.totals().getCostCents(), parallel.totals().getCostCents());
+        assertEquals(sequential.totals().getBillCount(), parallel.totals().getBillCount());
+        for (int day = 0; day < 6; day++) {
+            assertEquals(sequential.byDay(true).getRevenueCents(day), parallel.byDay(true).getRevenueCents(day));
+            assertEquals(sequential.byDay(true).getCostCents(day), parallel.byDay(true).getCostCents(day));
+        }
+        for (int cashier = 0; cashier < 3; cashier++) {
+            assertEquals(sequential.byCashier().getBillCount(cashier), parallel.byCashier().getBillCount(cashier));
+        }
+        for (int item = 0; item < 5; item++) {
+            assertEquals(sequential.byItem().getUnits(item), parallel.byItem().getUnits(item));
+        }
+        // Day 6 is outside the range
+        assertTrue(parallel.totals().getBillCount() < 200);
+    }
+}
@@ -0,0 +1,90 @@
+package com.electronicstore.unit.model.persistence;
+
+import com.electronicstore.model.persistence.StockMovementLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Purpose: verify movement replay against the matching snapshot, compaction and torn-tail recovery.
+ */
+class StockMovementLogUnitTest {
+
+    @TempDir
+    Path tempDir;
+
+    private StockMovementLog.Movement sale(String itemId, int quantity, String billNumber) {
+        return new StockMovementLog.Movement(itemId, -quantity, billNumber, Instant.now());
+    }
+
+    @Test
+    void replay_shouldReturnMovementsForMatchingSnapshot() throws Exception {
+        StockMovementLog log = new StockMovementLog(tempDir.resolve("moves.log"));
+        log.replay("S1");
+        log.record(List.of(sale("I1", 2, "B1"), sale("I2", 1, "B1")), () -> true);
+
+        List<StockMovementLog.Movement> movements = new StockMovementLog(log.getPath()).replay("S1");
+
+        assertEquals(2, movements.size());
+        assertEquals("I1", movements.get(0).getItemId());
+        assertEquals(-2, movements.get(0).getDelta());
+        assertEquals("B1", movements.get(1).getBillNumber());
+    }
+
+    @Test
+    void replay_shouldDiscardMovementsOfAnotherSnapshot() throws Exception {
+        StockMovementLog log = new StockMovementLog(tempDir.resolve("moves.log"));
+        log.replay("S1");
+        log.record(List.of(sale("I1", 2, "B1")), () -> true);
+
+        assertTrue(log.replay("S2").isEmpty());
+        assertEquals(0, log.pendingCount());
+        assertTrue(log.replay("S1").isEmpty());
+    }
+
+    @Test
+    void record_shouldNotLogFailedChange() throws Exception {
+        StockMovementLog log = new StockMovementLog(tempDir.resolve("moves.log"));
+        log.replay("S1");
+
+        assertFalse(log.record(List.of(sale("I1", 2, null)), () -> false));
+        assertEquals(0, log.pendingCount());
+        assertTrue(log.replay("S1").isEmpty());
+    }
+
+    @Test
+    void compact_shouldRestartLogForNewSnapshot() throws Exception {
+        StockMovementLog log = new StockMovementLog(tempDir.resolve("moves.log"));
+        log.replay("S1");
+        log.record(List.of(sale("I1", 2, "B1")), () -> true);
+
+        assertEquals("S2", log.compact(() -> "S2"));
+        log.record(List.of(sale("I1", 1, "B2")), () -> true);
+
+        List<StockMovementLog.Movement> movements = log.replay("S2");
+        assertEquals(1, movements.size());
+        assertEquals("B2", movements.get(0).getBillNumber());
+    }
+
+    @Test
+    void reopen_shouldCutOffTornTail() throws Exception {
+        Path path = tempDir.resolve("moves.log");
+        StockMovementLog log = new StockMovementLog(path);
+        log.replay("S1");
+        log.record(List.of(sale("I1", 2, "B1"), sale("I1", 3, "B2")), () -> true);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 5);
+        }
+
+        StockMovementLog reopened = new StockMovementLog(path);
+        assertEquals(1, reopened.pendingCount());
+        assertEquals(1, reopened.replay("S1").size());
+    }
+}
@@ -0,0 +1,77 @@
+package com.electronicstore.unit.model.persistence;
+
+import com.electronicstore.model.persistence.UserRepository;
+import com.electronicstore.model.users.Cashier;
+import com.electronicstore.model.users.User;
+import com.electronicstore.model.utils.FileHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Purpose: verify username lookups and that the index follows writes and external file changes.
+ */
+class UserRepositoryUnitTest {
+
+    private static final Path USERS = FileHandler.resolve(UserRepository.USERS_FILE);
+
+    private final UserRepository repository = UserRepository.getInstance();
+    private byte[] original;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        original = Files.exists(USERS) ? Files.readAllBytes(USERS) : null;
+        Files.deleteIfExists(USERS);
+    }
+
+    @AfterEach
+    void cleanUp() throws Exception {
+        Files.deleteIfExists(USERS);
+        if (original != null) {
+            Files.write(USERS, original);
+        }
+    }
+
+    private User createCashier(String id, String username) {
+        return new Cashier(id, username, "pass", "Name", "mail@test.com", "123", "IT");
+    }
+
+    @Test
+    void findByUsername_shouldReturnSavedUser() {
+        repository.save(createCashier("U1", "anna"));
+        repository.save(createCashier("U2", "ben"));
+
+        assertEquals("U2", repository.findByUsername("ben").orElseThrow().getId());
+        assertTrue(repository.findByUsername("carl").isEmpty());
+    }
+
+    @Test
+    void findByUsername_shouldFollowRenameAfterTouch() {
+        User user = createCashier("U1", "anna");
+        repository.save(user);
+        assertTrue(repository.findByUsername("anna").isPresent());
+
+        user.setUsername("annie");
+        repository.touch("U1");
+
+        assertTrue(repository.findByUsername("anna").isEmpty());
+        assertSame(user, repository.findByUsername("annie").orElseThrow());
+    }
+
+    @Test
+    void findByUsername_shouldSeeUsersWrittenOutsideTheRepository() throws Exception {
+        repository.save(createCashier("U1", "anna"));
+        repository.flush();
+
+        FileHandler.saveListToFile(new ArrayList<>(List.of(createCashier("U9", "zoe"))), UserRepository.USERS_FILE);
+
+        assertTrue(repository.findByUsername("anna").isEmpty());
+        assertEquals("U9", repository.findByUsername("zoe").orElseThrow().getId());
+    }
+}
@@ -0,0 +1,65 @@
+package com.electronicstore.unit.model.sales;
+
+import com.electronicstore.model.inventory.Category;
+import com.electronicstore.model.inventory.Item;
+import com.electronicstore.model.inventory.Supplier;
+import com.electronicstore.model.sales.Bill;
+import com.electronicstore.model.sales.SaleItem;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Purpose: verify incremental bill totals and the read-only view of bill lines.
+ */
+class BillUnitTest {
+
+    private Item createItem(String id, double price) {
+        Category category = new Category("C1", "Laptops", 5, "IT");
+        Supplier supplier = new Supplier("S1", "Dell", "contact");
+        return new Item(id, "Laptop " + id, category, supplier, LocalDate.now(), price / 2, price, 10);
+    }
+
+    @Test
+    void addAndRemove_shouldKeepTotalEqualToSumOfLines() {
+        Bill bill = new Bill("B1", "U1");
+        SaleItem first = new SaleItem(createItem("I1", 19.99), 3);
+        SaleItem second = new SaleItem(createItem("I2", 5.01), 1);
+
+        bill.addItem(first);
+        bill.addItem(second);
+        assertEquals(6498, bill.getTotalCents());
+
+        bill.removeItem(first);
+        assertEquals(501, bill.getTotalCents());
+
+        bill.removeItem(first);
+        assertEquals(501, bill.getTotalCents());
+
+        bill.removeItem(second);
+        assertEquals(0, bill.getTotalCents());
+    }
+
+    @Test
+    void addItem_shouldReplaceStoredTotalWithLineSum() {
+        Bill bill = new Bill("B1", "U1", LocalDate.now().atStartOfDay(), 123.45);
+
+        bill.addItem(new SaleItem(createItem("I1", 10.0), 2));
+
+        assertEquals(20.0, bill.getTotalAmount());
+    }
+
+    @Test
+    void getItems_shouldReturnSameReadOnlyView() {
+        Bill bill = new Bill("B1", "U1");
+        List<SaleItem> view = bill.getItems();
+
+        bill.addItem(new SaleItem(createItem("I1", 10.0), 1));
+
+        assertSame(view, bill.getItems());
+        assertEquals(1, view.size());
+        assertThrows(UnsupportedOperationException.class, view::clear);
+    }
+}
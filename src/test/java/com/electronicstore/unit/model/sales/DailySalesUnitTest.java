@@ -0,0 +1,77 @@
+package com.electronicstore.unit.model.sales;
+
+import com.electronicstore.model.inventory.Category;
+import com.electronicstore.model.inventory.Item;
+import com.electronicstore.model.inventory.Supplier;
+import com.electronicstore.model.sales.Bill;
+import com.electronicstore.model.sales.DailySales;
+import com.electronicstore.model.sales.SaleItem;
+import com.electronicstore.model.sales.SalesTotals;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Purpose: verify that daily rollups add bills per cashier and per item in place, or as a copy that leaves the original unchanged.
+ */
+class DailySalesUnitTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 5, 10);
+
+    private Item createItem(String id) {
+        Category category = new Category("C1", "Laptops", 5, "IT");
+        Supplier supplier = new Supplier("S1", "Dell", "contact");
+        return new Item(id, "Laptop " + id, category, supplier, DAY, 500.0, 700.0, 10);
+    }
+
+    private Bill createBill(String cashierId, int quantity) {
+        Bill bill = new Bill("B-" + cashierId + quantity, cashierId, DAY.atTime(9, 30), 0.0);
+        bill.addItem(new SaleItem(createItem("I1"), quantity));
+        bill.addItem(new SaleItem(createItem("I2"), 1));
+        return bill;
+    }
+
+    @Test
+    void plus_shouldAccumulateTotalsPerCashierAndItem() {
+        DailySales day = new DailySales(DAY)
+                .plus(createBill("U1", 2))
+                .plus(createBill("U2", 1));
+
+        SalesTotals total = day.getTotal();
+        assertEquals(3500.0, total.getRevenue(), 0.0001);
+        assertEquals(2500.0, total.getCost(), 0.0001);
+        assertEquals(2, total.getBillCount());
+        assertEquals(5, total.getUnits());
+
+        assertEquals(2100.0, day.getByCashier().get("U1").getRevenue(), 0.0001);
+        assertEquals(1, day.getByCashier().get("U2").getBillCount());
+        assertEquals(3, day.getByItem().get("I1").getUnits());
+        assertEquals(2, day.getByItem().get("I2").getBillCount());
+    }
+
+    @Test
+    void plus_shouldLeaveOriginalUnchanged() {
+        DailySales empty = new DailySales(DAY);
+
+        DailySales updated = empty.plus(createBill("U1", 1));
+
+        assertEquals(0, empty.getTotal().getBillCount());
+        assertTrue(empty.getByCashier().isEmpty());
+        assertEquals(1, updated.getTotal().getBillCount());
+        assertEquals("2024-05-10", updated.getId());
+    }
+
+    @Test
+    void add_shouldUpdateTheRollupInPlace() {
+        DailySales day = new DailySales(DAY);
+
+        day.add(createBill("U1", 2));
+        day.add(createBill("U1", 1));
+
+        assertEquals(2, day.getTotal().getBillCount());
+        assertEquals(2, day.getByCashier().get("U1").getBillCount());
+        assertEquals(3, day.getByItem().get("I1").getUnits());
+        assertEquals(2, day.getByItem().get("I2").getBillCount());
+    }
+}
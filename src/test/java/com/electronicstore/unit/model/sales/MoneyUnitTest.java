@@ -0,0 +1,47 @@
+package com.electronicstore.unit.model.sales;
+
+import com.electronicstore.model.inventory.Category;
+import com.electronicstore.model.inventory.Item;
+import com.electronicstore.model.inventory.Supplier;
+import com.electronicstore.model.sales.Bill;
+import com.electronicstore.model.sales.Money;
+import com.electronicstore.model.sales.SaleItem;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Purpose: verify cent conversion and formatting, and that bill totals summed in cents are exact.
+ */
+class MoneyUnitTest {
+
+    @Test
+    void toCents_shouldRoundToNearestCent() {
+        assertEquals(1999, Money.toCents(19.99));
+        assertEquals(10, Money.toCents(0.1));
+        assertEquals(-1205, Money.toCents(-12.05));
+    }
+
+    @Test
+    void format_shouldPrintTwoDecimals() {
+        assertEquals("12.05", Money.format(1205));
+        assertEquals("0.07", Money.format(7));
+        assertEquals("-0.50", Money.format(-50));
+    }
+
+    @Test
+    void billTotal_shouldBeExactAcrossManyLines() {
+        Category category = new Category("C1", "Cables", 5, "IT");
+        Supplier supplier = new Supplier("S1", "Acme", "contact");
+        Item item = new Item("I1", "Cable", category, supplier, LocalDate.now(), 0.05, 0.1, 1000);
+
+        Bill bill = new Bill("B1", "U1");
+        for (int i = 0; i < 1000; i++) {
+            bill.addItem(new SaleItem(item, 1));
+        }
+
+        assertEquals(10000, bill.getTotalCents());
+        assertEquals(100.0, bill.getTotalAmount());
+    }
+}
@@ -0,0 +1,49 @@
+package com.electronicstore.unit.model.tools;
+
+import com.electronicstore.model.inventory.Category;
+import com.electronicstore.model.inventory.Item;
+import com.electronicstore.model.inventory.Supplier;
+import com.electronicstore.model.persistence.ItemRepository;
+import com.electronicstore.model.persistence.UserRepository;
+import com.electronicstore.model.users.Cashier;
+import com.electronicstore.tools.LoadSimulator;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Purpose: verify that concurrent simulated tills never oversell and that the report adds up.
+ */
+class LoadSimulatorUnitTest {
+
+    private Item createItem(String id, int stock) {
+        Category category = new Category("C1", "Laptops", 5, "IT");
+        Supplier supplier = new Supplier("S1", "Dell", "contact");
+        Item item = new Item(id, "Load " + id, category, supplier, LocalDate.now(), 50.0, 70.0, stock);
+        ItemRepository.getInstance().save(item);
+        return item;
+    }
+
+    @Test
+    void run_shouldKeepStockConsistentUnderContention() throws Exception {
+        Cashier cashier = new Cashier("LSU1", "loadcashier", "secret", "Load Cashier",
+                "load@example.com", "000", "IT");
+        UserRepository.getInstance().save(cashier);
+        // Far less stock than the tills try to sell, so most lines are refused
+        List<Item> items = List.of(createItem("LS1", 6), createItem("LS2", 4));
+
+        LoadSimulator.Report report = new LoadSimulator(new LoadSimulator.Settings()
+                .setCashiers(4)
+                .setCheckoutsPerCashier(10)
+                .setMaxItems(3)
+                .setPassword("secret"), List.of(cashier), items).run();
+
+        assertTrue(report.isStockConsistent(), report.format());
+        assertEquals(0, report.getFailedCheckouts());
+        assertTrue(report.getCheckouts() > 0);
+        assertTrue(report.getRejectedLines() > 0);
+        assertEquals(report.getCheckouts(), report.getLatency(LoadSimulator.CHECKOUT).getCount());
+    }
+}
@@ -0,0 +1,93 @@
+package com.electronicstore.unit.model.tools;
+
+import com.electronicstore.model.inventory.Item;
+import com.electronicstore.model.persistence.BillJournal;
+import com.electronicstore.model.persistence.ItemRepository;
+import com.electronicstore.model.persistence.ReferenceResolver;
+import com.electronicstore.model.persistence.SalesRollupRepository;
+import com.electronicstore.model.persistence.UserRepository;
+import com.electronicstore.model.sales.Bill;
+import com.electronicstore.model.sales.DailySales;
+import com.electronicstore.model.users.User;
+import com.electronicstore.model.utils.FileHandler;
+import com.electronicstore.tools.StoreDataGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Purpose: verify that the synthetic store is complete, consistent and reproducible from its seed.
+ */
+class StoreDataGeneratorUnitTest {
+
+    private static final ReferenceResolver NO_CATALOG = ReferenceResolver.forCatalog(List.of());
+
+    @TempDir
+    Path tempDir;
+
+    private StoreDataGenerator.Settings smallStore() {
+        return new StoreDataGenerator.Settings()
+                .setCatalogSize(50)
+                .setCashiers(3)
+                .setManagers(1)
+                .setDays(5)
+                .setBills(103);
+    }
+
+    @Test
+    void generate_shouldWriteUsersCatalogBillsAndMatchingRollups() throws Exception {
+        Path directory = tempDir.resolve("store");
+        new StoreDataGenerator(smallStore()).generate(directory);
+
+        List<User> users = FileHandler.readListFromFile(directory.resolve(UserRepository.USERS_FILE));
+        List<Item> items = FileHandler.readListFromFile(directory.resolve(ItemRepository.ITEMS_FILE));
+        assertEquals(5, users.size());
+        assertEquals(50, items.size());
+
+        BillJournal journal = new BillJournal(directory.resolve(BillJournal.JOURNAL_DIRECTORY));
+        List<Bill> bills = journal.readAll(NO_CATALOG);
+        assertEquals(103, bills.size());
+
+        List<DailySales> rollups = FileHandler.readListFromFile(directory.resolve(SalesRollupRepository.ROLLUPS_FILE));
+        assertEquals(5, rollups.size());
+        assertEquals(103, rollups.stream().mapToInt(day -> day.getTotal().getBillCount()).sum());
+        assertEquals(bills.stream().mapToLong(Bill::getTotalCents).sum(),
+                rollups.stream().mapToLong(day -> day.getTotal().getRevenueCents()).sum());
+    }
+
+    @Test
+    void generate_shouldFollowBasketAndHourDistributions() throws Exception {
+        Path directory = tempDir.resolve("store");
+        double[] onlyTenOClock = new double[24];
+        onlyTenOClock[10] = 1;
+        new StoreDataGenerator(smallStore()
+                .setBasketWeights(0, 1)
+                .setHourWeights(onlyTenOClock)).generate(directory);
+
+        List<Bill> bills = new BillJournal(directory.resolve(BillJournal.JOURNAL_DIRECTORY)).readAll(NO_CATALOG);
+        assertTrue(bills.stream().allMatch(bill -> bill.getItems().size() == 2));
+        assertTrue(bills.stream().allMatch(bill -> bill.getDateTime().getHour() == 10));
+    }
+
+    @Test
+    void generate_shouldBeReproducibleAndRefuseExistingData() throws Exception {
+        Path first = tempDir.resolve("first");
+        Path second = tempDir.resolve("second");
+        new StoreDataGenerator(smallStore()).generate(first);
+        new StoreDataGenerator(smallStore()).generate(second);
+
+        assertArrayEquals(Files.readAllBytes(first.resolve(ItemRepository.ITEMS_FILE)),
+                Files.readAllBytes(second.resolve(ItemRepository.ITEMS_FILE)));
+        List<Bill> firstBills = new BillJournal(first.resolve(BillJournal.JOURNAL_DIRECTORY)).readAll(NO_CATALOG);
+        List<Bill> secondBills = new BillJournal(second.resolve(BillJournal.JOURNAL_DIRECTORY)).readAll(NO_CATALOG);
+        assertEquals(firstBills.stream().map(Bill::generatePrintableFormat).toList(),
+                secondBills.stream().map(Bill::generatePrintableFormat).toList());
+
+        assertThrows(IOException.class, () -> new StoreDataGenerator(smallStore()).generate(first));
+    }
+}
@@ -0,0 +1,58 @@
+package com.electronicstore.unit.model.utils;
+
+import com.electronicstore.model.utils.CsvExporter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Purpose: verify streamed CSV rows, gzip output and progress reporting of the exporter.
+ */
+class CsvExporterUnitTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void write_shouldQuoteValuesAfterTheHeader() throws Exception {
+        Path file = tempDir.resolve("plain.csv");
+        try (CsvExporter csv = new CsvExporter(file, false, null, "ID", "Name")) {
+            csv.write("I1", "Laptop, 15\"");
+            csv.write("I2", "Mouse");
+        }
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals(List.of("ID,Name", "I1,\"Laptop, 15\"\"\"", "I2,Mouse"), lines);
+    }
+
+    @Test
+    void gzip_shouldCompressAndReportProgress() throws Exception {
+        List<Long> progress = new ArrayList<>();
+        int rows = CsvExporter.PROGRESS_INTERVAL * 2 + 5;
+        Path written;
+        try (CsvExporter csv = new CsvExporter(tempDir.resolve("sales.csv"), true,
+                (name, count) -> progress.add(count), "Bill Number", "Total")) {
+            for (int i = 0; i < rows; i++) {
+                csv.write("B" + i, i);
+            }
+            written = csv.getFile();
+        }
+
+        assertEquals("sales.csv.gz", written.getFileName().toString());
+        assertEquals(List.of((long) CsvExporter.PROGRESS_INTERVAL, 2L * CsvExporter.PROGRESS_INTERVAL, (long) rows),
+                progress);
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(written))) {
+            String[] lines = new String(in.readAllBytes(), StandardCharsets.UTF_8).split("\r\n");
+            assertEquals(rows + 1, lines.length);
+            assertEquals("B" + (rows - 1) + "," + (rows - 1), lines[rows]);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.electronicstore.unit.model.utils;
+
+import com.electronicstore.model.utils.FileIoEvent;
+import com.electronicstore.model.utils.ReportEvent;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Purpose: verify the fields recorded by the custom flight recorder events.
+ */
+class FlightRecorderEventsUnitTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void fileIoEvent_shouldRecordOperationFileAndBytes() throws Exception {
+        Path file = tempDir.resolve("jfr_test.dat");
+        List<RecordedEvent> events = record("com.electronicstore.FileIO", () ->
+                FileIoEvent.start(FileIoEvent.WRITE, file).finish(128));
+
+        RecordedEvent event = events.stream()
+                .filter(e -> file.toString().equals(e.getString("file")))
+                .findFirst().orElseThrow();
+        assertEquals(FileIoEvent.WRITE, event.getString("operation"));
+        assertEquals(128, event.getLong("bytes"));
+    }
+
+    @Test
+    void reportEvent_shouldAddRowsToEveryReportInProgress() throws Exception {
+        LocalDate day = LocalDate.of(2024, 3, 1);
+        List<RecordedEvent> events = record("com.electronicstore.Report", () -> {
+            ReportEvent outer = ReportEvent.start("JfrTest Outer", day, day.plusDays(6));
+            ReportEvent.countRows(10);
+            ReportEvent inner = ReportEvent.start("JfrTest Inner", null, null);
+            ReportEvent.countRows(5);
+            inner.finish();
+            ReportEvent.countRows(1);
+            outer.finish();
+        });
+        // Nothing is left running on the thread
+        ReportEvent.countRows(100);
+
+        RecordedEvent outer = find(events, "JfrTest Outer");
+        assertEquals(16, outer.getLong("rowsScanned"));
+        assertEquals("2024-03-01", outer.getString("startDate"));
+        assertEquals("2024-03-07", outer.getString("endDate"));
+        RecordedEvent inner = find(events, "JfrTest Inner");
+        assertEquals(5, inner.getLong("rowsScanned"));
+        assertNull(inner.getString("startDate"));
+    }
+
+    private List<RecordedEvent> record(String eventName, Runnable action) throws Exception {
+        Path dump = tempDir.resolve(eventName + ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(eventName);
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(dump);
+        }
+        return RecordingFile.readAllEvents(dump);
+    }
+
+    private static RecordedEvent find(List<RecordedEvent> events, String reportType) {
+        return events.stream()
+                .filter(e -> reportType.equals(e.getString("reportType")))
+                .findFirst().orElseThrow();
+    }
+}
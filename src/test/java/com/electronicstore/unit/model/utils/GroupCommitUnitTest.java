@@ -0,0 +1,68 @@
+package com.electronicstore.unit.model.utils;
+
+import com.electronicstore.model.utils.GroupCommit;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Purpose: verify that concurrent commits are batched and that failures reach every caller.
+ */
+class GroupCommitUnitTest {
+
+    private static final Path FILE = Path.of("store_data", "group_commit_test.dat");
+
+    @Test
+    void concurrentSubmitsForSamePath_shouldShareCommits() throws Exception {
+        GroupCommit groupCommit = new GroupCommit(20);
+        AtomicInteger commits = new AtomicInteger();
+        int callers = 16;
+
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                groupCommit.submit(FILE, commits::incrementAndGet);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertTrue(commits.get() >= 1);
+        assertTrue(commits.get() < callers, "Callers within one window should share a commit");
+    }
+
+    @Test
+    void failedCommit_shouldThrowToCaller() {
+        GroupCommit groupCommit = new GroupCommit(0);
+
+        IOException e = assertThrows(IOException.class, () ->
+                groupCommit.submit(FILE, () -> {
+                    throw new IOException("disk full");
+                }));
+        assertEquals("disk full", e.getMessage());
+    }
+
+    @Test
+    void sequentialSubmits_shouldEachCommit() throws Exception {
+        GroupCommit groupCommit = new GroupCommit(0);
+        AtomicInteger commits = new AtomicInteger();
+
+        groupCommit.submit(FILE, commits::incrementAndGet);
+        groupCommit.submit(FILE, commits::incrementAndGet);
+
+        assertEquals(2, commits.get());
+    }
+}
@@ -0,0 +1,47 @@
+package com.electronicstore.unit.model.utils;
+
+import com.electronicstore.model.utils.LatencyHistogram;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Purpose: verify percentile precision, extremes and reset of the latency histogram.
+ */
+class LatencyHistogramUnitTest {
+
+    @Test
+    void percentile_shouldStayWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1_000);
+        }
+
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(50_000_000, histogram.percentile(0.50), 50_000_000 / 64.0);
+        assertEquals(99_000_000, histogram.percentile(0.99), 99_000_000 / 64.0);
+        assertEquals(99_900_000, histogram.percentile(0.999), 99_900_000 / 64.0);
+        assertEquals(100_000_000, histogram.percentile(1.0));
+        assertEquals(100_000_000, histogram.getMax());
+    }
+
+    @Test
+    void record_shouldKeepSmallValuesExactAndAcceptHugeOnes() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(3);
+        histogram.record(Long.MAX_VALUE);
+
+        assertEquals(3, histogram.percentile(0.5));
+        assertEquals(Long.MAX_VALUE, histogram.percentile(1.0));
+    }
+
+    @Test
+    void reset_shouldForgetEverything() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1_000);
+        histogram.reset();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.percentile(0.99));
+        assertEquals(0.0, histogram.getMean());
+    }
+}
@@ -0,0 +1,66 @@
+package com.electronicstore.unit.model.utils;
+
+import com.electronicstore.model.utils.Metrics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Purpose: verify call, error and latency recording of the metrics registry and its dumps.
+ */
+class MetricsUnitTest {
+
+    private final Metrics metrics = Metrics.getInstance();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void time_shouldCountCallsAndErrors() {
+        assertEquals("ok", metrics.time("MetricsTest.calls", () -> "ok"));
+        metrics.time("MetricsTest.calls", () -> {
+            Metrics.markFailed();
+            return false;
+        });
+        assertThrows(IllegalStateException.class, () -> metrics.run("MetricsTest.calls", () -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        Metrics.Timer timer = metrics.timer("MetricsTest.calls");
+        assertEquals(3, timer.getCalls());
+        assertEquals(2, timer.getErrors());
+        assertEquals(3, timer.getLatency().getCount());
+    }
+
+    @Test
+    void markFailed_shouldOnlyAffectTheInnermostCall() {
+        metrics.run("MetricsTest.outer", () ->
+                metrics.run("MetricsTest.inner", Metrics::markFailed));
+
+        assertEquals(1, metrics.timer("MetricsTest.inner").getErrors());
+        assertEquals(0, metrics.timer("MetricsTest.outer").getErrors());
+
+        // Outside any timed call there is nothing to mark
+        assertDoesNotThrow(Metrics::markFailed);
+    }
+
+    @Test
+    void dump_shouldWriteJsonOrText() throws Exception {
+        metrics.count("MetricsTest.bytes", 42);
+        metrics.run("MetricsTest.dumped", () -> { });
+
+        Path json = tempDir.resolve("metrics.json");
+        Path text = tempDir.resolve("metrics.txt");
+        metrics.dump(json);
+        metrics.dump(text);
+
+        String jsonContent = Files.readString(json);
+        assertTrue(jsonContent.startsWith("{\"timestamp\":"));
+        assertTrue(jsonContent.contains("\"MetricsTest.dumped\":{\"calls\":1,\"errors\":0"));
+        assertTrue(jsonContent.contains("\"MetricsTest.bytes\":42"));
+        assertTrue(Files.readString(text).contains("MetricsTest.dumped"));
+    }
+}
@@ -0,0 +1,85 @@
+package com.electronicstore.unit.model.utils;
+
+import com.electronicstore.model.utils.Metrics;
+import com.electronicstore.model.utils.ReportCache;
+import com.electronicstore.model.utils.SessionState;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Purpose: verify LRU eviction and date-precise invalidation of the report cache.
+ */
+class ReportCacheUnitTest {
+
+    private static final LocalDate MAY_1 = LocalDate.of(2024, 5, 1);
+    private static final LocalDate MAY_31 = LocalDate.of(2024, 5, 31);
+    private static final LocalDate JUNE_1 = LocalDate.of(2024, 6, 1);
+    private static final LocalDate JUNE_30 = LocalDate.of(2024, 6, 30);
+
+    private final AtomicInteger computed = new AtomicInteger();
+
+    private String compute() {
+        return "result " + computed.incrementAndGet();
+    }
+
+    @Test
+    void get_shouldServeRepeatsAndKeepRolesApart() {
+        ReportCache cache = new ReportCache(8);
+
+        String first = cache.get("Sales", MAY_1, MAY_31, SessionState.Role.ADMINISTRATOR, this::compute);
+        assertSame(first, cache.get("Sales", MAY_1, MAY_31, SessionState.Role.ADMINISTRATOR, this::compute));
+        cache.get("Sales", MAY_1, MAY_31, SessionState.Role.MANAGER, this::compute);
+
+        assertEquals(2, computed.get());
+    }
+
+    @Test
+    void invalidate_shouldOnlyDropRangesContainingTheDate() {
+        ReportCache cache = new ReportCache(8);
+        cache.get("Sales", MAY_1, MAY_31, SessionState.Role.ADMINISTRATOR, this::compute);
+        cache.get("Sales", JUNE_1, JUNE_30, SessionState.Role.ADMINISTRATOR, this::compute);
+        cache.get("Profit", MAY_1, JUNE_30, SessionState.Role.ADMINISTRATOR, this::compute);
+
+        cache.invalidate(JUNE_30);
+
+        assertEquals(1, cache.size());
+        cache.get("Sales", MAY_1, MAY_31, SessionState.Role.ADMINISTRATOR, this::compute);
+        assertEquals(3, computed.get());
+    }
+
+    @Test
+    void get_shouldEvictTheLeastRecentlyUsedResult() {
+        ReportCache cache = new ReportCache(2);
+        cache.get("A", MAY_1, MAY_1, null, this::compute);
+        cache.get("B", MAY_1, MAY_1, null, this::compute);
+        // Touching A makes B the eldest
+        cache.get("A", MAY_1, MAY_1, null, this::compute);
+        cache.get("C", MAY_1, MAY_1, null, this::compute);
+
+        assertEquals(2, cache.size());
+        cache.get("A", MAY_1, MAY_1, null, this::compute);
+        assertEquals(3, computed.get());
+        cache.get("B", MAY_1, MAY_1, null, this::compute);
+        assertEquals(4, computed.get());
+    }
+
+    @Test
+    void get_shouldNotStoreFailedOrOutdatedResults() {
+        ReportCache cache = new ReportCache(8);
+        Metrics.getInstance().run("ReportCacheTest.failed", () ->
+                cache.get("Sales", MAY_1, MAY_31, null, () -> {
+                    Metrics.markFailed();
+                    return "error";
+                }));
+        // A bill of the period arrives while the report is being computed
+        cache.get("Profit", MAY_1, MAY_31, null, () -> {
+            cache.invalidate(MAY_1.plusDays(3));
+            return "before the bill";
+        });
+
+        assertEquals(0, cache.size());
+    }
+}
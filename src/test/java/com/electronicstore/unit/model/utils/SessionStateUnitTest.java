@@ -114,4 +114,43 @@ class SessionStateUnitTest {
         assertNull(session.getCurrentSection());
         assertEquals("No active session", session.getSessionInfo());
     }
+
+    /**
+     * Verifies that each terminal keeps its own user and role.
+     */
+    @Test
+    void forTerminal_shouldKeepSessionsSeparate() {
+        SessionState till1 = SessionState.forTerminal("till-1");
+        SessionState till2 = SessionState.forTerminal("till-2");
+        try {
+            till1.startSession(new Cashier("U1", "cash", "1234",
+                    "Cashier", "c@test.com", "111", "IT"));
+            till2.startSession(new Manager("U2", "mgr", "1111",
+                    "Manager", "m@test.com", "222"));
+
+            assertSame(till1, SessionState.forTerminal("till-1"));
+            assertTrue(till1.isCashier());
+            assertTrue(till2.isManager());
+            assertEquals(SessionState.Role.MANAGER, till2.getRole());
+            assertFalse(SessionState.getInstance().isLoggedIn());
+        } finally {
+            SessionState.closeTerminal("till-1");
+            SessionState.closeTerminal("till-2");
+        }
+    }
+
+    /**
+     * Verifies that closing a terminal ends its session.
+     */
+    @Test
+    void closeTerminal_shouldEndSession() {
+        SessionState till = SessionState.forTerminal("till-3");
+        till.startSession(new Administrator("A1", "admin", "pass",
+                "Admin", "a@test.com", "000"));
+
+        SessionState.closeTerminal("till-3");
+
+        assertFalse(till.isLoggedIn());
+        assertFalse(SessionState.activeSessions().contains(till));
+    }
 }